@@ -0,0 +1,41 @@
+package benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+
+/**
+ * Runs the benchmarks selected by the usual JMH arguments, all of them by default, with the allocation
+ * profiler: each method reports its operations per millisecond, its latency percentiles (p99 included)
+ * and the bytes it allocates per operation ({@code gc.alloc.rate.norm}).
+ * <p>
+ * {@code java -jar target/benchmarks.jar ListBenchmarks -p catalogSize=1000 -rf json}
+ * <p>
+ * Like the JMH launcher, {@code -h} prints the options and {@code -l} or {@code -lp} list the benchmarks
+ * without running them.
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException, IOException {
+        CommandLineOptions options = new CommandLineOptions(args);
+        if (options.shouldHelp()) {
+            options.showHelp();
+            return;
+        }
+        Runner runner = new Runner(new OptionsBuilder()
+                .parent(options)
+                .addProfiler(GCProfiler.class)
+                .build());
+        if (options.shouldList())
+            runner.list();
+        else if (options.shouldListWithParams())
+            runner.listWithParams(options);
+        else
+            runner.run();
+    }
+}
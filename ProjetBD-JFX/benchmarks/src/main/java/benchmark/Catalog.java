@@ -0,0 +1,354 @@
+package benchmark;
+
+import database.OracleDB;
+import model.Album;
+import model.Artist;
+import model.Film;
+import model.FilmCategory;
+import model.MediaFile;
+import model.MusicCategory;
+import model.Track;
+import model.User;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+
+/**
+ * A catalog of {@code catalogSize} users, artists, films, tracks and their files in an in-memory H2 database
+ * in Oracle mode, created with creation_bd.sql, init_bd.sql and the indexes of the first schema migration,
+ * with {@link OracleDB} connected to it. OracleDB is static, so each fork gets its own catalog; the benchmarks
+ * run with {@code -Dklex.migrate=false} since the migrations read the Oracle data dictionary.
+ */
+@State(Scope.Benchmark)
+public class Catalog {
+
+    static final int PAGE_SIZE = 50;
+    static final int CATEGORIES = 10;
+    static final String[] LANGUAGES = {"fr", "en", "de"};
+    static final String[] VIDEO_CODECS = {"MPEG2", "MPEG4", "DivX", "H264"};
+    static final String[] AUDIO_CODECS = {"MP3", "ACC", "AC3"};
+    static final String[] TEXT_CODECS = {"AQTitle", "DKS", "Kate"};
+    private static final LocalDate EPOCH = LocalDate.of(1970, 1, 1);
+    private static final int BATCH_SIZE = 1000;
+
+    @Param({"100", "1000", "10000"})
+    public int catalogSize;
+
+    private final AtomicInteger nextId = new AtomicInteger(1_000_000);
+    private Connection connection;
+    private int albumCount;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException, IOException {
+        String url = "jdbc:h2:mem:klex" + catalogSize + ";MODE=Oracle;DB_CLOSE_DELAY=-1";
+        connection = DriverManager.getConnection(url, "sa", "");
+        createSchema(connection);
+        seed();
+        OracleDB.connect(OracleDB.createPool(url, "sa", ""));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        OracleDB.cleanup();
+        connection.close();
+    }
+
+    /**
+     * Direct connection to the database, bypassing the application.
+     */
+    Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * An ID no seeded row has.
+     */
+    int newId() {
+        return nextId.incrementAndGet();
+    }
+
+    // region Rows
+    static Map<String, Object> userRow(int i) {
+        return Rows.row("EMAIL", "user" + i + "@klex.fr", "FIRST_NAME", "First" + i, "LAST_NAME", "Last" + i,
+                "AGE", 10 + i % 70, "ACCESS_CODE", i % 10000, "PREFERRED_LANGUAGE", LANGUAGES[i % LANGUAGES.length]);
+    }
+
+    static Map<String, Object> artistRow(int id) {
+        return Rows.row("ARTIST_ID", id, "NAME", "Artist " + id, "PICTURE_URL", "https://klex.fr/artists/" + id + ".jpg",
+                "MAIN_SPECIALTY", id % 2 == 0 ? "Actor" : "Musician", "BIRTH_DATE", Date.valueOf(EPOCH.plusDays(id % 10000)),
+                "BIOGRAPHY", "Biography of artist " + id);
+    }
+
+    static Map<String, Object> filmRow(String title, int year) {
+        return Rows.row("FILM_TITLE", title, "FILM_YEAR", year, "ABSTRACT", "Abstract of " + title,
+                "RECOMMENDED_AGE", year % 4 * 6, "POSTER_URL", "https://klex.fr/posters/" + year + ".jpg");
+    }
+
+    static Map<String, Object> filmRow(int i) {
+        return filmRow("Film " + i, 1950 + i % 70);
+    }
+
+    static Map<String, Object> filmCategoryRow(String name) {
+        return Rows.row("FILM_CATEGORY_NAME", name);
+    }
+
+    static Map<String, Object> musicCategoryRow(String name) {
+        return Rows.row("MUSIC_CATEGORY_NAME", name);
+    }
+
+    static Map<String, Object> albumRow(int id) {
+        return Rows.row("ALBUM_ID", id, "ALBUM_TITLE", "Album " + id, "RELEASE_DATE", Date.valueOf(EPOCH.plusDays(id % 20000)),
+                "COVER_URL", "https://klex.fr/covers/" + id + ".jpg", "ARTIST_NAME", "Artist " + id);
+    }
+
+    static Map<String, Object> trackRow(int albumId, int trackId) {
+        return Rows.row("ALBUM_ID", albumId, "TRACK_ID", trackId, "TRACK_TITLE", "Track " + trackId, "LENGTH", 120 + trackId % 240);
+    }
+
+    static Map<String, Object> mediaFileRow(int fileId, String userEmail) {
+        return Rows.row("FILE_ID", fileId, "FILE_SIZE", 1_000_000 + fileId % 1000 * 1000,
+                "ADDED_DATE", Date.valueOf(EPOCH.plusDays(fileId % 20000)), "USER_EMAIL", userEmail);
+    }
+    // endregion
+
+    // region Seeded models
+    static String filmCategoryName(int i) {
+        return "Category " + i % CATEGORIES;
+    }
+
+    static String musicCategoryName(int i) {
+        return "Genre " + i % CATEGORIES;
+    }
+
+    User user(int i) throws SQLException {
+        return new User().loadFromResultSet(Rows.of(userRow(i % catalogSize)));
+    }
+
+    Artist artist(int i) throws SQLException {
+        return new Artist().loadFromResultSet(Rows.of(artistRow(i % catalogSize + 1)));
+    }
+
+    FilmCategory filmCategory(int i) throws SQLException {
+        return new FilmCategory().loadFromResultSet(Rows.of(filmCategoryRow(filmCategoryName(i))));
+    }
+
+    MusicCategory musicCategory(int i) throws SQLException {
+        return new MusicCategory().loadFromResultSet(Rows.of(musicCategoryRow(musicCategoryName(i))));
+    }
+
+    /**
+     * A seeded film with its categories and artists.
+     */
+    Film film(int i) throws SQLException {
+        i %= catalogSize;
+        Film film = new Film().loadFromResultSet(Rows.of(filmRow(i)));
+        film.getFilmCategories().add(filmCategory(i));
+        film.getFilmCategories().add(filmCategory(i + 3));
+        film.getArtists().add(artist(i));
+        film.getArtists().add(new Artist.Actor(artist(i + 1), "Role " + i));
+        return film;
+    }
+
+    Album album(int i) throws SQLException {
+        return new Album().loadFromResultSet(Rows.of(albumRow(i % albumCount + 1)));
+    }
+
+    /**
+     * A seeded track with its album, category and musician.
+     */
+    Track track(int i) throws SQLException {
+        i %= catalogSize;
+        Track track = new Track().loadFromResultSet(Rows.of(trackRow(i % albumCount + 1, i + 1)));
+        track.setAlbum(album(i));
+        track.getTrackCategories().add(musicCategory(i));
+        track.getArtistsList().add(new Artist.Musician(artist(i), "Guitar"));
+        return track;
+    }
+
+    /**
+     * The file of a seeded film.
+     */
+    MediaFile mediaFile(int i) throws SQLException {
+        i %= catalogSize;
+        return new MediaFile().loadFromResultSet(Rows.of(mediaFileRow(i + 1, (String) userRow(i).get("EMAIL"))));
+    }
+    // endregion
+
+    // region New models
+    User newUser() throws SQLException {
+        int id = newId();
+        Map<String, Object> row = userRow(id);
+        row.put("EMAIL", "new" + id + "@klex.fr");
+        return new User().loadFromResultSet(Rows.of(row));
+    }
+
+    Artist newArtist() throws SQLException {
+        return new Artist().loadFromResultSet(Rows.of(artistRow(newId())));
+    }
+
+    FilmCategory newFilmCategory() throws SQLException {
+        return new FilmCategory().loadFromResultSet(Rows.of(filmCategoryRow("Category " + newId())));
+    }
+
+    MusicCategory newMusicCategory() throws SQLException {
+        return new MusicCategory().loadFromResultSet(Rows.of(musicCategoryRow("Genre " + newId())));
+    }
+
+    Film newFilm() throws SQLException {
+        int id = newId();
+        Film film = new Film().loadFromResultSet(Rows.of(filmRow("New film " + id, 1950 + id % 70)));
+        film.getFilmCategories().add(filmCategory(id));
+        film.getArtists().add(new Artist.Actor(artist(id), "Role " + id));
+        return film;
+    }
+
+    Album newAlbum() throws SQLException {
+        return new Album().loadFromResultSet(Rows.of(albumRow(newId())));
+    }
+
+    Track newTrack() throws SQLException {
+        int id = newId();
+        Track track = new Track().loadFromResultSet(Rows.of(trackRow(id % albumCount + 1, id)));
+        track.setAlbum(album(id));
+        track.getTrackCategories().add(musicCategory(id));
+        track.getArtistsList().add(new Artist.Musician(artist(id), "Piano"));
+        return track;
+    }
+
+    /**
+     * A file without flux, the models only get their flux from the edition dialog.
+     */
+    MediaFile newMediaFile() throws SQLException {
+        int id = newId();
+        return new MediaFile().loadFromResultSet(Rows.of(mediaFileRow(id, (String) userRow(id % catalogSize).get("EMAIL"))));
+    }
+    // endregion
+
+    // region Seeding
+    /**
+     * Runs creation_bd.sql and init_bd.sql, then creates the indexes of the first schema migration.
+     */
+    static void createSchema(Connection connection) throws IOException, SQLException {
+        runScript(connection, "/creation_bd.sql");
+        runScript(connection, "/init_bd.sql");
+        runScript(connection, "/migrations/V1__performance_indexes.sql");
+    }
+
+    private static void runScript(Connection connection, String resource) throws IOException, SQLException {
+        String script;
+        try (InputStream input = Catalog.class.getResourceAsStream(resource)) {
+            if (input == null)
+                throw new IOException("Missing " + resource + ", is the module built with Maven?");
+            script = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)).lines()
+                    .map(line -> line.contains("--") ? line.substring(0, line.indexOf("--")) : line)
+                    .collect(Collectors.joining("\n"));
+        }
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : script.split(";")) {
+                if (!sql.isBlank() && !sql.trim().equalsIgnoreCase("COMMIT"))
+                    statement.execute(sql.trim());
+            }
+        }
+    }
+
+    private void seed() throws SQLException {
+        int n = catalogSize;
+        albumCount = Math.max(1, n / 10);
+        insert("KLEX_USER", n, Catalog::userRow);
+        insert("FILM_CATEGORY", CATEGORIES, i -> filmCategoryRow(filmCategoryName(i)));
+        insert("MUSIC_CATEGORY", CATEGORIES, i -> musicCategoryRow(musicCategoryName(i)));
+        insert("ARTIST", n, i -> artistRow(i + 1));
+        insert("FILM", n, Catalog::filmRow);
+        insert("FILM_A_POUR_CAT", 2 * n, i -> {
+            Map<String, Object> film = filmRow(i / 2);
+            return Rows.row("FILM_TITLE", film.get("FILM_TITLE"), "FILM_YEAR", film.get("FILM_YEAR"),
+                    "FILM_CATEGORY_NAME", filmCategoryName(i / 2 + i % 2 * 3));
+        });
+        insert("PARTICIPE_AU_FILM", n, i -> Rows.row("ARTIST_ID", i % n + 1,
+                "FILM_TITLE", filmRow(i).get("FILM_TITLE"), "FILM_YEAR", filmRow(i).get("FILM_YEAR")));
+        insert("JOUE_ROLE", n, i -> Rows.row("ARTIST_ID", (i + 1) % n + 1,
+                "FILM_TITLE", filmRow(i).get("FILM_TITLE"), "FILM_YEAR", filmRow(i).get("FILM_YEAR"),
+                "CHARACTER_NAME", "Role " + i));
+        insert("ALBUM", albumCount, i -> albumRow(i + 1));
+        insert("ALBUM_A_POUR_CAT", albumCount, i -> Rows.row("ALBUM_ID", i + 1, "MUSIC_CATEGORY_NAME", musicCategoryName(i)));
+        insert("TRACK", n, i -> trackRow(i % albumCount + 1, i + 1));
+        insert("TRACK_A_POUR_CAT", n, i -> Rows.row("ALBUM_ID", i % albumCount + 1, "TRACK_ID", i + 1,
+                "MUSIC_CATEGORY_NAME", musicCategoryName(i)));
+        insert("JOUE_DANS", n, i -> Rows.row("ARTIST_ID", i % n + 1, "ALBUM_ID", i % albumCount + 1, "TRACK_ID", i + 1,
+                "INSTRUMENT_NAME", "Guitar"));
+
+        // Files 1..n are the films', with a video, an audio and a text flux, n+1..2n the tracks', with an audio flux
+        insert("MEDIA_FILE", 2 * n, i -> mediaFileRow(i + 1, (String) userRow(i % n).get("EMAIL")));
+        insert("FLUX", 4 * n, i -> i < 3 * n
+                ? Rows.row("FILE_ID", i / 3 + 1, "FLUX_ID", i % 3 + 1, "DATA_RATE", fluxRate(i / 3, i % 3))
+                : Rows.row("FILE_ID", i - 2 * n + 1, "FLUX_ID", 1, "DATA_RATE", fluxRate(i - 2 * n, 1)));
+        insert("VIDEO_FLUX", n, i -> Rows.row("FILE_ID", i + 1, "FLUX_ID", 1,
+                "VIDEO_CODEC_NAME", VIDEO_CODECS[i % VIDEO_CODECS.length],
+                "WIDTH", 640 << i % 3, "HEIGHT", 360 << i % 3, "DATA_RATE", fluxRate(i, 0)));
+        insert("AUDIO_FLUX", 2 * n, i -> Rows.row("FILE_ID", i + 1, "FLUX_ID", i < n ? 2 : 1,
+                "AUDIO_CODEC_NAME", AUDIO_CODECS[i % AUDIO_CODECS.length], "SAMPLING", 16 + i % 3 * 8,
+                "AUDIO_LANGUAGE", LANGUAGES[i % LANGUAGES.length], "DATA_RATE", fluxRate(i, 1)));
+        insert("TEXT_FLUX", n, i -> Rows.row("FILE_ID", i + 1, "FLUX_ID", 3,
+                "TEXT_CODEC_NAME", TEXT_CODECS[i % TEXT_CODECS.length],
+                "TEXT_LANGUAGE", LANGUAGES[(i + 1) % LANGUAGES.length], "DATA_RATE", fluxRate(i, 2)));
+        insert("FILE_CONCERNE_FILM", n, i -> Rows.row("FILE_ID", i + 1,
+                "FILM_TITLE", filmRow(i).get("FILM_TITLE"), "FILM_YEAR", filmRow(i).get("FILM_YEAR")));
+        insert("FILE_CONCERNE_TRACK", n, i -> Rows.row("FILE_ID", n + i + 1, "ALBUM_ID", i % albumCount + 1, "TRACK_ID", i + 1));
+
+        insert("CLIENT", 3, i -> Rows.row("BRAND", "Brand", "MODEL", "Model " + i, "MAX_WIDTH", 640 << i, "MAX_HEIGHT", 360 << i));
+        insert("CLIENT_SUPPORTE_CODEC_VIDEO", 6, i -> Rows.row("BRAND", "Brand", "MODEL", "Model " + i / 2,
+                "VIDEO_CODEC_NAME", VIDEO_CODECS[(i / 2 + i % 2) % VIDEO_CODECS.length]));
+    }
+
+    /**
+     * Data rate of a flux: video, audio or text.
+     */
+    private static int fluxRate(int i, int kind) {
+        return kind == 0 ? 1000 + i % 5 * 1000 : kind == 1 ? 96 + i % 3 * 96 : 8;
+    }
+
+    private void insert(String table, int count, IntFunction<Map<String, Object>> rows) throws SQLException {
+        insert(connection, table, count, rows);
+    }
+
+    static void insert(Connection connection, String table, int count, IntFunction<Map<String, Object>> rows)
+            throws SQLException {
+        List<String> columns = new ArrayList<>(rows.apply(0).keySet());
+        String sql = "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES ("
+                + columns.stream().map(column -> "?").collect(Collectors.joining(", ")) + ")";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < count; i++) {
+                Map<String, Object> row = rows.apply(i);
+                for (int c = 0; c < columns.size(); c++)
+                    statement.setObject(c + 1, row.get(columns.get(c)));
+                statement.addBatch();
+                if ((i + 1) % BATCH_SIZE == 0)
+                    statement.executeBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+    // endregion
+}
@@ -0,0 +1,266 @@
+package benchmark;
+
+import database.OracleDB;
+import database.PageIndex;
+import database.StorageAccounts;
+import javafx.util.Pair;
+import model.Album;
+import model.Artist;
+import model.AudioCodec;
+import model.Film;
+import model.FilmCategory;
+import model.MusicCategory;
+import model.TextCodec;
+import model.Track;
+import model.User;
+import model.VideoCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import utils.RowSink;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The read methods of {@link OracleDB}. Methods reading one film, track, user or page move to the next one
+ * on each call, so the caches see the whole catalog.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dklex.migrate=false")
+@State(Scope.Thread)
+public class ListBenchmarks {
+
+    private final List<Film> films = new ArrayList<>();
+    private final List<Track> tracks = new ArrayList<>();
+    private final List<Object[]> userKeys = new ArrayList<>();
+    private final List<Object[]> filmKeys = new ArrayList<>();
+    private final List<Object[]> trackKeys = new ArrayList<>();
+    private PageIndex userPages;
+    private PageIndex filmPages;
+    private PageIndex trackPages;
+    private int next = 0;
+
+    @Setup(Level.Trial)
+    public void setUp(Catalog catalog) throws SQLException {
+        for (int i = 0; i < catalog.catalogSize; i++) {
+            films.add(catalog.film(i));
+            tracks.add(catalog.track(i));
+        }
+        for (int i = 0; i < Math.min(Catalog.PAGE_SIZE, catalog.catalogSize); i++) {
+            userKeys.add(new Object[]{catalog.user(i).getEmail()});
+            filmKeys.add(new Object[]{films.get(i).getTitle(), films.get(i).getYear()});
+            trackKeys.add(new Object[]{tracks.get(i).getAlbumId(), tracks.get(i).getId()});
+        }
+        userPages = OracleDB.listUserPageKeys(Catalog.PAGE_SIZE);
+        filmPages = OracleDB.listFilmPageKeys(Catalog.PAGE_SIZE);
+        trackPages = OracleDB.listTrackPageKeys(Catalog.PAGE_SIZE);
+    }
+
+    private int next(int bound) {
+        next = next + 1 < bound ? next + 1 : 0;
+        return next;
+    }
+
+    // region Users
+    @Benchmark
+    public List<User> listUsers() throws SQLException {
+        List<User> users = new ArrayList<>();
+        OracleDB.listUsers(RowSink.of(users));
+        return users;
+    }
+
+    @Benchmark
+    public PageIndex listUserPageKeys() throws SQLException {
+        return OracleDB.listUserPageKeys(Catalog.PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<User> listUsersPage() throws SQLException {
+        return OracleDB.listUsersPage(userPages.getFirstKey(next(userPages.getPageCount())), Catalog.PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<User> listUsersByKeys() throws SQLException {
+        return OracleDB.listUsersByKeys(userKeys);
+    }
+
+    @Benchmark
+    public User getUser() throws SQLException {
+        return OracleDB.getUser((String) userKeys.get(next(userKeys.size()))[0]);
+    }
+
+    @Benchmark
+    public StorageAccounts.Usage getStorageUsage() throws SQLException {
+        return OracleDB.getStorageUsage((String) userKeys.get(next(userKeys.size()))[0]);
+    }
+    // endregion
+
+    // region Films
+    @Benchmark
+    public List<Film> listFilms() throws SQLException {
+        List<Film> films = new ArrayList<>();
+        OracleDB.listFilms(RowSink.of(films));
+        return films;
+    }
+
+    @Benchmark
+    public PageIndex listFilmPageKeys() throws SQLException {
+        return OracleDB.listFilmPageKeys(Catalog.PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Film> listFilmsPage() throws SQLException {
+        return OracleDB.listFilmsPage(filmPages.getFirstKey(next(filmPages.getPageCount())), Catalog.PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Film> listFilmsByKeys() throws SQLException {
+        return OracleDB.listFilmsByKeys(filmKeys);
+    }
+
+    @Benchmark
+    public List<Artist> listFilmArtists() throws SQLException {
+        List<Artist> artists = new ArrayList<>();
+        OracleDB.listFilmArtists(films.get(next(films.size())), RowSink.of(artists));
+        return artists;
+    }
+
+    @Benchmark
+    public List<Artist> listFilmActors() throws SQLException {
+        List<Artist> actors = new ArrayList<>();
+        OracleDB.listFilmActors(films.get(next(films.size())), RowSink.of(actors));
+        return actors;
+    }
+
+    @Benchmark
+    public List<Film> listFilmsUser() throws SQLException {
+        int i = next(Catalog.CATEGORIES * Catalog.LANGUAGES.length);
+        List<Film> films = new ArrayList<>();
+        OracleDB.listFilmsUser(RowSink.of(films), new Pair<>(Catalog.filmCategoryName(i), (String) userKeys.get(i % userKeys.size())[0]));
+        return films;
+    }
+
+    @Benchmark
+    public List<Film> searchFilms() throws SQLException {
+        List<Film> films = new ArrayList<>();
+        OracleDB.searchFilms("film " + next(100), RowSink.of(films));
+        return films;
+    }
+    // endregion
+
+    // region Tracks
+    @Benchmark
+    public List<Track> listTracks() throws SQLException {
+        List<Track> tracks = new ArrayList<>();
+        OracleDB.listTracks(RowSink.of(tracks));
+        return tracks;
+    }
+
+    @Benchmark
+    public PageIndex listTrackPageKeys() throws SQLException {
+        return OracleDB.listTrackPageKeys(Catalog.PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Track> listTracksPage() throws SQLException {
+        return OracleDB.listTracksPage(trackPages.getFirstKey(next(trackPages.getPageCount())), Catalog.PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Track> listTracksByKeys() throws SQLException {
+        return OracleDB.listTracksByKeys(trackKeys);
+    }
+
+    @Benchmark
+    public List<Artist.Musician> listTrackArtists() throws SQLException {
+        List<Artist.Musician> musicians = new ArrayList<>();
+        OracleDB.listTrackArtists(tracks.get(next(tracks.size())), RowSink.of(musicians));
+        return musicians;
+    }
+
+    @Benchmark
+    public List<Track> listTracksUser() throws SQLException {
+        int i = next(Catalog.CATEGORIES * Catalog.LANGUAGES.length);
+        List<Track> tracks = new ArrayList<>();
+        OracleDB.listTracksUser(RowSink.of(tracks), new Pair<>(Catalog.musicCategoryName(i), (String) userKeys.get(i % userKeys.size())[0]));
+        return tracks;
+    }
+
+    @Benchmark
+    public List<Track> searchTracks() throws SQLException {
+        List<Track> tracks = new ArrayList<>();
+        OracleDB.searchTracks("track " + next(100), RowSink.of(tracks));
+        return tracks;
+    }
+
+    @Benchmark
+    public List<Album> listAlbum() throws SQLException {
+        List<Album> albums = new ArrayList<>();
+        OracleDB.listAlbum(RowSink.of(albums));
+        return albums;
+    }
+    // endregion
+
+    // region Reference data
+    @Benchmark
+    public List<Artist> listArtists() throws SQLException {
+        List<Artist> artists = new ArrayList<>();
+        OracleDB.listArtists(RowSink.of(artists));
+        return artists;
+    }
+
+    @Benchmark
+    public List<FilmCategory> listFilmCategories() throws SQLException {
+        List<FilmCategory> categories = new ArrayList<>();
+        OracleDB.listFilmCategories(RowSink.of(categories));
+        return categories;
+    }
+
+    @Benchmark
+    public List<MusicCategory> listMusicCategories() throws SQLException {
+        List<MusicCategory> categories = new ArrayList<>();
+        OracleDB.listMusicCategories(RowSink.of(categories));
+        return categories;
+    }
+
+    @Benchmark
+    public List<VideoCodec> listVideoCodecs() throws SQLException {
+        List<VideoCodec> codecs = new ArrayList<>();
+        OracleDB.listVideoCodecs(RowSink.of(codecs));
+        return codecs;
+    }
+
+    @Benchmark
+    public List<AudioCodec> listAudioCodecs() throws SQLException {
+        List<AudioCodec> codecs = new ArrayList<>();
+        OracleDB.listAudioCodecs(RowSink.of(codecs));
+        return codecs;
+    }
+
+    @Benchmark
+    public List<TextCodec> listTextCodecs() throws SQLException {
+        List<TextCodec> codecs = new ArrayList<>();
+        OracleDB.listTextCodecs(RowSink.of(codecs));
+        return codecs;
+    }
+
+    @Benchmark
+    public List<Integer> listPlayableFileIds() throws SQLException {
+        return OracleDB.listPlayableFileIds("Brand", "Model " + next(3));
+    }
+    // endregion
+}
@@ -0,0 +1,165 @@
+package benchmark;
+
+import model.Album;
+import model.AlbumCategory;
+import model.Artist;
+import model.AudioCodec;
+import model.AudioFlux;
+import model.Film;
+import model.FilmCategory;
+import model.Flux;
+import model.MediaFile;
+import model.Model;
+import model.MusicCategory;
+import model.TextCodec;
+import model.TextFlux;
+import model.Track;
+import model.User;
+import model.VideoCodec;
+import model.VideoFlux;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code loadFromResultSet} of each model, reading one row of its table. The rows come from scrollable result
+ * sets opened once, so a call only costs positioning on the next row and decoding it, not a query.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dklex.migrate=false")
+@State(Scope.Thread)
+public class LoadFromResultSetBenchmarks {
+
+    private static final String[] TABLES = {"ALBUM", "ALBUM_A_POUR_CAT", "ARTIST", "VIDEO_CODEC", "AUDIO_CODEC",
+            "TEXT_CODEC", "VIDEO_FLUX", "AUDIO_FLUX", "TEXT_FLUX", "FILM", "FILM_CATEGORY", "MEDIA_FILE",
+            "MUSIC_CATEGORY", "TRACK", "KLEX_USER"};
+
+    private final List<Statement> statements = new ArrayList<>();
+    private final List<ResultSet> resultSets = new ArrayList<>();
+    private final List<Integer> rowCounts = new ArrayList<>();
+    private int next = 0;
+
+    @Setup(Level.Trial)
+    public void setUp(Catalog catalog) throws SQLException {
+        for (String table : TABLES) {
+            Statement statement = catalog.getConnection()
+                    .createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+            ResultSet resultSet = statement.executeQuery("SELECT * FROM " + table);
+            resultSet.last();
+            statements.add(statement);
+            resultSets.add(resultSet);
+            rowCounts.add(resultSet.getRow());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        for (Statement statement : statements)
+            statement.close();
+    }
+
+    /**
+     * Loads the next row of the table into the model.
+     */
+    private <T> T load(int table, Model<T> model) throws SQLException {
+        ResultSet resultSet = resultSets.get(table);
+        next++;
+        resultSet.absolute(next % rowCounts.get(table) + 1);
+        return model.loadFromResultSet(resultSet);
+    }
+
+    @Benchmark
+    public Album album() throws SQLException {
+        return load(0, new Album());
+    }
+
+    @Benchmark
+    public AlbumCategory albumCategory() throws SQLException {
+        return load(1, new AlbumCategory());
+    }
+
+    @Benchmark
+    public Artist artist() throws SQLException {
+        return load(2, new Artist());
+    }
+
+    @Benchmark
+    public VideoCodec videoCodec() throws SQLException {
+        return load(3, new VideoCodec());
+    }
+
+    @Benchmark
+    public AudioCodec audioCodec() throws SQLException {
+        return load(4, new AudioCodec());
+    }
+
+    @Benchmark
+    public TextCodec textCodec() throws SQLException {
+        return load(5, new TextCodec());
+    }
+
+    @Benchmark
+    public Flux<VideoFlux> videoFlux() throws SQLException {
+        return load(6, new VideoFlux(Collections.emptyList()));
+    }
+
+    @Benchmark
+    public Flux<AudioFlux> audioFlux() throws SQLException {
+        return load(7, new AudioFlux(Collections.emptyList()));
+    }
+
+    @Benchmark
+    public Flux<TextFlux> textFlux() throws SQLException {
+        return load(8, new TextFlux(Collections.emptyList()));
+    }
+
+    @Benchmark
+    public Film film() throws SQLException {
+        return load(9, new Film());
+    }
+
+    @Benchmark
+    public FilmCategory filmCategory() throws SQLException {
+        return load(10, new FilmCategory());
+    }
+
+    @Benchmark
+    public MediaFile mediaFile() throws SQLException {
+        return load(11, new MediaFile());
+    }
+
+    @Benchmark
+    public MusicCategory musicCategory() throws SQLException {
+        return load(12, new MusicCategory());
+    }
+
+    @Benchmark
+    public Track track() throws SQLException {
+        return load(13, new Track());
+    }
+
+    @Benchmark
+    public User user() throws SQLException {
+        return load(14, new User());
+    }
+}
@@ -0,0 +1,171 @@
+package benchmark;
+
+import database.Query;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The film recommendation query before and after its rewrite with semi-joins, on {@code fileCount} media files.
+ * Each film has {@value #FILES_PER_FILM} files with an audio and a text flux, so the joins of the old query
+ * return a row per file and flux combination where the new one returns a row per film and category.
+ * <p>
+ * The row counts of both queries are printed when the catalog is set up, after checking they recommend the
+ * same films. Only the queries run: they read their rows, but no model is built from them.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class RecommendationBenchmarks {
+
+    private static final int FILES_PER_FILM = 4;
+    private static final int USERS = 100;
+
+    // LIST_FILMS_USER before the rewrite. Parameters: film category, user email three times
+    private static final String OLD_LIST_FILMS_USER = "SELECT film_cat_age.*" +
+            "FROM (SELECT FILM.* FROM FILM INNER JOIN FILM_A_POUR_CAT  ON FILM_A_POUR_CAT.film_title = FILM.film_title AND FILM_A_POUR_CAT.film_year = FILM.film_year " +
+            "WHERE FILM_CATEGORY_NAME = ? " +
+            "AND RECOMMENDED_AGE <= (SELECT age from KLEX_USER WHERE email = ?)) film_cat_age " +
+            "INNER JOIN FILE_CONCERNE_FILM  ON FILE_CONCERNE_FILM.film_year = film_cat_age.film_year AND  FILE_CONCERNE_FILM.film_title = film_cat_age.film_title " +
+            "LEFT JOIN MEDIA_FILE ON MEDIA_FILE.file_id = FILE_CONCERNE_FILM.file_id " +
+            "LEFT JOIN TEXT_FLUX ON TEXT_FLUX.file_id = MEDIA_FILE.file_id " +
+            "LEFT JOIN AUDIO_FLUX AF on FILE_CONCERNE_FILM.FILE_ID = AF.FILE_ID " +
+            "WHERE AF.AUDIO_LANGUAGE in (SELECT PREFERRED_LANGUAGE from KLEX_USER WHERE EMAIL = ?) OR " +
+            "TEXT_FLUX.text_language in (SELECT PREFERRED_LANGUAGE from KLEX_USER WHERE EMAIL = ?)";
+
+    /**
+     * Films with their files and flux only, in a database of their own so the size doesn't depend on the
+     * catalog of the other benchmarks.
+     */
+    @State(Scope.Benchmark)
+    public static class Files {
+
+        @Param({"10000", "100000", "1000000"})
+        public int fileCount;
+
+        private Connection connection;
+
+        @Setup(Level.Trial)
+        public void setUp() throws SQLException, IOException {
+            connection = DriverManager.getConnection("jdbc:h2:mem:recommendations" + fileCount + ";MODE=Oracle;DB_CLOSE_DELAY=-1", "sa", "");
+            Catalog.createSchema(connection);
+            int films = fileCount / FILES_PER_FILM;
+            Catalog.insert(connection, "KLEX_USER", USERS, Catalog::userRow);
+            Catalog.insert(connection, "FILM_CATEGORY", Catalog.CATEGORIES, i -> Catalog.filmCategoryRow(Catalog.filmCategoryName(i)));
+            Catalog.insert(connection, "FILM", films, Catalog::filmRow);
+            Catalog.insert(connection, "FILM_A_POUR_CAT", 2 * films, i -> {
+                String title = "Film " + i / 2;
+                return Rows.row("FILM_TITLE", title, "FILM_YEAR", Catalog.filmRow(i / 2).get("FILM_YEAR"),
+                        "FILM_CATEGORY_NAME", Catalog.filmCategoryName(i / 2 + i % 2 * 3));
+            });
+            Catalog.insert(connection, "MEDIA_FILE", fileCount, i -> Catalog.mediaFileRow(i + 1, (String) Catalog.userRow(i % USERS).get("EMAIL")));
+            Catalog.insert(connection, "FLUX", 2 * fileCount, i -> Rows.row("FILE_ID", i / 2 + 1, "FLUX_ID", i % 2 + 1, "DATA_RATE", 128));
+            Catalog.insert(connection, "AUDIO_FLUX", fileCount, i -> Rows.row("FILE_ID", i + 1, "FLUX_ID", 1,
+                    "AUDIO_CODEC_NAME", Catalog.AUDIO_CODECS[i % Catalog.AUDIO_CODECS.length], "SAMPLING", 16,
+                    "AUDIO_LANGUAGE", Catalog.LANGUAGES[i % Catalog.LANGUAGES.length], "DATA_RATE", 128));
+            Catalog.insert(connection, "TEXT_FLUX", fileCount, i -> Rows.row("FILE_ID", i + 1, "FLUX_ID", 2,
+                    "TEXT_CODEC_NAME", Catalog.TEXT_CODECS[i % Catalog.TEXT_CODECS.length],
+                    "TEXT_LANGUAGE", Catalog.LANGUAGES[(i + 1) % Catalog.LANGUAGES.length], "DATA_RATE", 128));
+            Catalog.insert(connection, "FILE_CONCERNE_FILM", fileCount, i -> Rows.row("FILE_ID", i + 1,
+                    "FILM_TITLE", "Film " + i / FILES_PER_FILM, "FILM_YEAR", Catalog.filmRow(i / FILES_PER_FILM).get("FILM_YEAR")));
+            compareQueries();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws SQLException {
+            connection.close();
+        }
+
+        /**
+         * Checks both queries recommend the same films to the first user, and prints how many rows each returns.
+         */
+        private void compareQueries() throws SQLException {
+            String category = Catalog.filmCategoryName(0);
+            String email = (String) Catalog.userRow(0).get("EMAIL");
+            Set<String> oldFilms = new TreeSet<>();
+            Set<String> newFilms = new TreeSet<>();
+            int oldRows = read(oldQuery(category, email), oldFilms);
+            int newRows = read(newQuery(category, email), newFilms);
+            if (!oldFilms.equals(newFilms))
+                throw new IllegalStateException("The queries recommend different films: "
+                        + oldFilms.size() + " before, " + newFilms.size() + " after the rewrite");
+            System.out.printf("%n%d files, %d films recommended: %d rows before the rewrite, %d after%n",
+                    fileCount, newFilms.size(), oldRows, newRows);
+        }
+
+        PreparedStatement oldQuery(String category, String email) throws SQLException {
+            PreparedStatement statement = connection.prepareStatement(OLD_LIST_FILMS_USER);
+            statement.setString(1, category);
+            statement.setString(2, email);
+            statement.setString(3, email);
+            statement.setString(4, email);
+            return statement;
+        }
+
+        PreparedStatement newQuery(String category, String email) throws SQLException {
+            PreparedStatement statement = connection.prepareStatement(Query.LIST_FILMS_USER.getSql());
+            statement.setString(1, email);
+            statement.setString(2, category);
+            return statement;
+        }
+    }
+
+    private int next = 0;
+
+    /**
+     * Reads every row of the query, adding the key of its film to {@code films} when given. Returns the row count.
+     */
+    private static int read(PreparedStatement statement, Set<String> films) throws SQLException {
+        int rows = 0;
+        try (statement; ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                String title = resultSet.getString("FILM_TITLE");
+                int year = resultSet.getInt("FILM_YEAR");
+                if (films != null)
+                    films.add(title + '\0' + year);
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    private int nextUser() {
+        next = next + 1 < USERS ? next + 1 : 0;
+        return next;
+    }
+
+    @Benchmark
+    public int oldListFilmsUser(Files files) throws SQLException {
+        int i = nextUser();
+        return read(files.oldQuery(Catalog.filmCategoryName(i), (String) Catalog.userRow(i).get("EMAIL")), null);
+    }
+
+    @Benchmark
+    public int newListFilmsUser(Files files) throws SQLException {
+        int i = nextUser();
+        return read(files.newQuery(Catalog.filmCategoryName(i), (String) Catalog.userRow(i).get("EMAIL")), null);
+    }
+}
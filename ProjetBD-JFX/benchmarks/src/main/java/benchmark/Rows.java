@@ -0,0 +1,64 @@
+package benchmark;
+
+import java.lang.reflect.Proxy;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Rows of the seeded catalog as column values, to insert them and to build the models the application would
+ * have read from them: the models are only filled by {@code loadFromResultSet}.
+ */
+final class Rows {
+
+    private Rows() {
+    }
+
+    /**
+     * Column names and values, in column order.
+     */
+    static Map<String, Object> row(Object... namesAndValues) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (int i = 0; i < namesAndValues.length; i += 2)
+            row.put((String) namesAndValues[i], namesAndValues[i + 1]);
+        return row;
+    }
+
+    /**
+     * The row seen as a positioned result set, read by column name.
+     */
+    static ResultSet of(Map<String, Object> row) {
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getString":
+                            return (String) row.get((String) args[0]);
+                        case "getInt":
+                            Object value = row.get((String) args[0]);
+                            return value == null ? 0 : ((Number) value).intValue();
+                        case "getLong":
+                            value = row.get((String) args[0]);
+                            return value == null ? 0L : ((Number) value).longValue();
+                        case "getDate":
+                            return (Date) row.get((String) args[0]);
+                        case "getObject":
+                            return row.get((String) args[0]);
+                        case "wasNull":
+                        case "isClosed":
+                            return false;
+                        case "close":
+                            return null;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return "Row" + row;
+                        default:
+                            throw new SQLFeatureNotSupportedException(method.getName());
+                    }
+                });
+    }
+}
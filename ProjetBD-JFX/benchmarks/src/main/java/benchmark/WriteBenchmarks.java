@@ -0,0 +1,378 @@
+package benchmark;
+
+import database.OracleDB;
+import model.Album;
+import model.Artist;
+import model.Film;
+import model.FilmCategory;
+import model.MediaFile;
+import model.MusicCategory;
+import model.Track;
+import model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The add, update and delete methods of {@link OracleDB}, in the transaction of the application, rolled back
+ * after each iteration so the catalog keeps its size.
+ * <p>
+ * The rows to add, and the rows to delete added beforehand, are prepared before each invocation so only the
+ * write is measured; the timestamps this takes are negligible next to a round trip to the database.
+ * Updates write the seeded rows with their own values.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dklex.migrate=false")
+@State(Scope.Thread)
+public class WriteBenchmarks {
+
+    private static final int DELETE_BATCH = 10;
+
+    private int next = 0;
+
+    @TearDown(Level.Iteration)
+    public void rollback() throws SQLException {
+        OracleDB.rollback();
+    }
+
+    private int next(Catalog catalog) {
+        next = next + 1 < catalog.catalogSize ? next + 1 : 0;
+        return next;
+    }
+
+    // region Rows to add
+    @State(Scope.Thread)
+    public static class NewUser {
+        User user;
+
+        @Setup(Level.Invocation)
+        public void setUp(Catalog catalog) throws SQLException {
+            user = catalog.newUser();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class NewMediaFile {
+        MediaFile file;
+
+        @Setup(Level.Invocation)
+        public void setUp(Catalog catalog) throws SQLException {
+            file = catalog.newMediaFile();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class NewArtist {
+        Artist artist;
+
+        @Setup(Level.Invocation)
+        public void setUp(Catalog catalog) throws SQLException {
+            artist = catalog.newArtist();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class NewCategories {
+        FilmCategory filmCategory;
+        MusicCategory musicCategory;
+
+        @Setup(Level.Invocation)
+        public void setUp(Catalog catalog) throws SQLException {
+            filmCategory = catalog.newFilmCategory();
+            musicCategory = catalog.newMusicCategory();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class NewFilm {
+        Film film;
+
+        @Setup(Level.Invocation)
+        public void setUp(Catalog catalog) throws SQLException {
+            film = catalog.newFilm();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class NewAlbum {
+        Album album;
+
+        @Setup(Level.Invocation)
+        public void setUp(Catalog catalog) throws SQLException {
+            album = catalog.newAlbum();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class NewTrack {
+        Track track;
+
+        @Setup(Level.Invocation)
+        public void setUp(Catalog catalog) throws SQLException {
+            track = catalog.newTrack();
+        }
+    }
+    // endregion
+
+    // region Rows to delete
+    @State(Scope.Thread)
+    public static class AddedUser {
+        User user;
+
+        @Setup(Level.Invocation)
+        public void setUp(Catalog catalog) throws SQLException {
+            user = catalog.newUser();
+            OracleDB.addUser(user);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class AddedMediaFile {
+        MediaFile file;
+
+        @Setup(Level.Invocation)
+        public void setUp(Catalog catalog) throws SQLException {
+            file = catalog.newMediaFile();
+            OracleDB.addMediaFile(file);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class AddedFilm {
+        Film film;
+
+        @Setup(Level.Invocation)
+        public void setUp(Catalog catalog) throws SQLException {
+            film = addFilm(catalog);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class AddedFilms {
+        final List<Film> films = new ArrayList<>();
+
+        @Setup(Level.Invocation)
+        public void setUp(Catalog catalog) throws SQLException {
+            films.clear();
+            for (int i = 0; i < DELETE_BATCH; i++)
+                films.add(addFilm(catalog));
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class AddedTrack {
+        Track track;
+
+        @Setup(Level.Invocation)
+        public void setUp(Catalog catalog) throws SQLException {
+            track = addTrack(catalog);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class AddedTracks {
+        final List<Track> tracks = new ArrayList<>();
+
+        @Setup(Level.Invocation)
+        public void setUp(Catalog catalog) throws SQLException {
+            tracks.clear();
+            for (int i = 0; i < DELETE_BATCH; i++)
+                tracks.add(addTrack(catalog));
+        }
+    }
+
+    /**
+     * A new film with one file, so the delete goes through the files too.
+     */
+    private static Film addFilm(Catalog catalog) throws SQLException {
+        Film film = catalog.newFilm();
+        OracleDB.addFilm(film);
+        MediaFile file = catalog.newMediaFile();
+        OracleDB.addMediaFile(file);
+        OracleDB.addFileToFilm(file, film);
+        return film;
+    }
+
+    private static Track addTrack(Catalog catalog) throws SQLException {
+        Track track = catalog.newTrack();
+        OracleDB.addTrack(track);
+        MediaFile file = catalog.newMediaFile();
+        OracleDB.addMediaFile(file);
+        OracleDB.addFileToTrack(file, track);
+        return track;
+    }
+    // endregion
+
+    // region Users and files
+    @Benchmark
+    public void addUser(NewUser row) throws SQLException {
+        OracleDB.addUser(row.user);
+    }
+
+    @Benchmark
+    public void updateUser(Catalog catalog) throws SQLException {
+        User user = catalog.user(next(catalog));
+        OracleDB.updateUser(user.getEmail(), user);
+    }
+
+    @Benchmark
+    public void deleteUser(AddedUser row) throws SQLException {
+        OracleDB.deleteUser(row.user);
+    }
+
+    @Benchmark
+    public void addMediaFile(NewMediaFile row) throws SQLException {
+        OracleDB.addMediaFile(row.file);
+    }
+
+    @Benchmark
+    public void updateMediaFile(Catalog catalog) throws SQLException {
+        MediaFile file = catalog.mediaFile(next(catalog));
+        OracleDB.updateMediaFile(file.getId(), file);
+    }
+
+    @Benchmark
+    public void deleteMediaFile(AddedMediaFile row) throws SQLException {
+        OracleDB.deleteMediaFile(row.file);
+    }
+    // endregion
+
+    // region Artists and categories
+    @Benchmark
+    public void addArtist(NewArtist row) throws SQLException {
+        OracleDB.addArtist(row.artist);
+    }
+
+    @Benchmark
+    public void updateArtist(Catalog catalog) throws SQLException {
+        Artist artist = catalog.artist(next(catalog));
+        OracleDB.updateArtist(artist.getId(), artist);
+    }
+
+    @Benchmark
+    public void addFilmCategory(NewCategories rows) throws SQLException {
+        OracleDB.addFilmCategory(rows.filmCategory);
+    }
+
+    @Benchmark
+    public void updateFilmCategory(Catalog catalog) throws SQLException {
+        FilmCategory category = catalog.filmCategory(next(catalog));
+        OracleDB.updateFilmCategory(category.getName(), category);
+    }
+
+    @Benchmark
+    public void addMusicCategory(NewCategories rows) throws SQLException {
+        OracleDB.addMusicCategory(rows.musicCategory);
+    }
+
+    @Benchmark
+    public void updateMusicCategory(Catalog catalog) throws SQLException {
+        MusicCategory category = catalog.musicCategory(next(catalog));
+        OracleDB.updateMusicCategory(category.getName(), category);
+    }
+    // endregion
+
+    // region Films
+    @Benchmark
+    public void addFilm(NewFilm row) throws SQLException {
+        OracleDB.addFilm(row.film);
+    }
+
+    @Benchmark
+    public void updateFilm(Catalog catalog) throws SQLException {
+        Film film = catalog.film(next(catalog));
+        OracleDB.updateFilm(film.getTitle(), film.getYear(), film);
+    }
+
+    @Benchmark
+    public void updateFilmCategories(Catalog catalog) throws SQLException {
+        OracleDB.updateFilmCategories(catalog.film(next(catalog)));
+    }
+
+    @Benchmark
+    public void updateFilmArtists(Catalog catalog) throws SQLException {
+        OracleDB.updateFilmArtists(catalog.film(next(catalog)));
+    }
+
+    @Benchmark
+    public void addFileToFilm(Catalog catalog, AddedMediaFile row) throws SQLException {
+        OracleDB.addFileToFilm(row.file, catalog.film(next(catalog)));
+    }
+
+    @Benchmark
+    public void deleteFilm(AddedFilm row) throws SQLException {
+        OracleDB.deleteFilm(row.film);
+    }
+
+    @Benchmark
+    public void deleteFilms(AddedFilms rows) throws SQLException {
+        OracleDB.deleteFilms(rows.films, null);
+    }
+    // endregion
+
+    // region Albums and tracks
+    @Benchmark
+    public void addAlbums(NewAlbum row) throws SQLException {
+        OracleDB.addAlbums(row.album);
+    }
+
+    @Benchmark
+    public void updateAlbum(Catalog catalog) throws SQLException {
+        Album album = catalog.album(next(catalog));
+        OracleDB.updateAlbum(album.getId(), album);
+    }
+
+    @Benchmark
+    public void addTrack(NewTrack row) throws SQLException {
+        OracleDB.addTrack(row.track);
+    }
+
+    @Benchmark
+    public void updateTrack(Catalog catalog) throws SQLException {
+        Track track = catalog.track(next(catalog));
+        OracleDB.updateTrack(track.getAlbumId(), track.getId(), track);
+    }
+
+    @Benchmark
+    public void updateTrackCategories(Catalog catalog) throws SQLException {
+        OracleDB.updateTrackCategories(catalog.track(next(catalog)));
+    }
+
+    @Benchmark
+    public void updateTrackArtists(Catalog catalog) throws SQLException {
+        OracleDB.updateTrackArtists(catalog.track(next(catalog)));
+    }
+
+    @Benchmark
+    public void addFileToTrack(Catalog catalog, AddedMediaFile row) throws SQLException {
+        OracleDB.addFileToTrack(row.file, catalog.track(next(catalog)));
+    }
+
+    @Benchmark
+    public void deleteTrack(AddedTrack row) throws SQLException {
+        OracleDB.deleteTrack(row.track);
+    }
+
+    @Benchmark
+    public void deleteTracks(AddedTracks rows) throws SQLException {
+        OracleDB.deleteTracks(rows.tracks, null);
+    }
+    // endregion
+}
@@ -0,0 +1,51 @@
+import database.CatalogExport;
+import database.ConnectionPool;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Command line entry point of {@link CatalogExport}, the password is read from KLEX_PASSWORD or asked for.
+ */
+public class Exporter {
+
+    private static final String USAGE = "Usage: Exporter <jdbc-url> <user> <directory> [--tables t1,t2...] [--readers n]";
+    private static final long POOL_MAX_WAIT_MILLIS = 10_000;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3 || args.length % 2 == 0) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        Path directory = Paths.get(args[2]);
+        List<CatalogExport.Table> tables = Arrays.asList(CatalogExport.Table.values());
+        int readers = 4;
+        for (int i = 3; i < args.length; i += 2) {
+            switch (args[i]) {
+                case "--tables":
+                    tables = Arrays.stream(args[i + 1].split(","))
+                            .map(table -> CatalogExport.Table.valueOf(table.trim().toUpperCase()))
+                            .collect(Collectors.toList());
+                    break;
+                case "--readers":
+                    readers = Integer.parseInt(args[i + 1]);
+                    break;
+                default:
+                    System.err.println(USAGE);
+                    System.exit(2);
+            }
+        }
+
+        String password = System.getenv("KLEX_PASSWORD");
+        if (password == null)
+            password = new String(System.console().readPassword("Password for %s: ", args[1]));
+
+        try (ConnectionPool pool = new ConnectionPool(args[0], args[1], password, readers, POOL_MAX_WAIT_MILLIS)) {
+            new CatalogExport(pool).setReaders(readers).run(directory, tables).forEach(System.out::println);
+            System.out.println("Connection pool: " + pool.getStatistics());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+import database.CatalogImport;
+import database.ConnectionPool;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Command line entry point of {@link CatalogImport}, the password is read from KLEX_PASSWORD or asked for.
+ */
+public class Importer {
+
+    private static final String USAGE = "Usage: Importer <jdbc-url> <user> <table> <file> "
+            + "[--format csv|ndjson] [--parsers n] [--writers n] [--batch n] [--commit n] [--rejects file]";
+    private static final long POOL_MAX_WAIT_MILLIS = 10_000;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 4 || args.length % 2 != 0) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        CatalogImport.Table table = CatalogImport.Table.valueOf(args[2].toUpperCase());
+        Path input = Paths.get(args[3]);
+        CatalogImport.Format format = args[3].toLowerCase().replaceFirst("\\.gz$", "").endsWith(".csv")
+                ? CatalogImport.Format.CSV
+                : CatalogImport.Format.NDJSON;
+        Path rejects = Paths.get(args[3] + ".rejects");
+        int parsers = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        int writers = 4;
+        int batchSize = 500;
+        int commitInterval = 5000;
+        for (int i = 4; i < args.length; i += 2) {
+            switch (args[i]) {
+                case "--format":
+                    format = CatalogImport.Format.valueOf(args[i + 1].toUpperCase());
+                    break;
+                case "--parsers":
+                    parsers = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--writers":
+                    writers = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--batch":
+                    batchSize = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--commit":
+                    commitInterval = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--rejects":
+                    rejects = Paths.get(args[i + 1]);
+                    break;
+                default:
+                    System.err.println(USAGE);
+                    System.exit(2);
+            }
+        }
+
+        String password = System.getenv("KLEX_PASSWORD");
+        if (password == null)
+            password = new String(System.console().readPassword("Password for %s: ", args[1]));
+
+        try (ConnectionPool pool = new ConnectionPool(args[0], args[1], password, writers, POOL_MAX_WAIT_MILLIS)) {
+            CatalogImport.Result result = new CatalogImport(pool, table, format)
+                    .setParsers(parsers)
+                    .setWriters(writers)
+                    .setBatchSize(batchSize)
+                    .setCommitInterval(commitInterval)
+                    .run(input, rejects);
+            System.out.println(table + ": " + result);
+            if (result.getRejected() > 0)
+                System.out.println("Rejected records written to " + rejects);
+            System.out.println("Connection pool: " + pool.getStatistics());
+        }
+    }
+}
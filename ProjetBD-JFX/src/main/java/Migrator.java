@@ -0,0 +1,42 @@
+import database.Query;
+import database.QueryPlans;
+import database.SchemaMigrations;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.List;
+
+/**
+ * Command line entry point of {@link SchemaMigrations}, the password is read from KLEX_PASSWORD or asked for.
+ * With --explain, prints the plans of every application query before and after the migrations.
+ */
+public class Migrator {
+
+    private static final String USAGE = "Usage: Migrator <jdbc-url> <user> [--explain]";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2 || args.length > 3 || (args.length == 3 && !args[2].equals("--explain"))) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        boolean explain = args.length == 3;
+
+        String password = System.getenv("KLEX_PASSWORD");
+        if (password == null)
+            password = new String(System.console().readPassword("Password for %s: ", args[1]));
+
+        try (Connection connection = DriverManager.getConnection(args[0], args[1], password)) {
+            SchemaMigrations migrations = new SchemaMigrations(connection);
+            List<SchemaMigrations.Migration> pending = migrations.getPending();
+            if (pending.isEmpty()) {
+                System.out.println("Schema is up to date");
+                return;
+            }
+            QueryPlans before = explain ? QueryPlans.explain(connection, Query.all()) : null;
+            for (SchemaMigrations.Migration migration : migrations.migrate())
+                System.out.println("Applied " + migration);
+            if (explain)
+                System.out.print(before.compareTo(QueryPlans.explain(connection, Query.all())));
+        }
+    }
+}
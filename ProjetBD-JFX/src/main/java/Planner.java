@@ -0,0 +1,62 @@
+import database.StreamPlanner;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Command line entry point of {@link StreamPlanner}, plans every session of a file against the catalog and prints
+ * the bandwidth they need. Sessions are tab separated lines, see {@link StreamPlanner.Session#parse}.
+ * The password is read from KLEX_PASSWORD or asked for.
+ */
+public class Planner {
+
+    private static final String USAGE = "Usage: Planner <jdbc-url> <user> <sessions-file> [--plans]";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3 || args.length > 4 || (args.length == 4 && !args[3].equals("--plans"))) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        boolean printPlans = args.length == 4;
+        List<StreamPlanner.Session> sessions;
+        try (Stream<String> lines = Files.lines(Paths.get(args[2]))) {
+            sessions = lines.filter(line -> !line.isBlank() && !line.startsWith("#"))
+                    .map(StreamPlanner.Session::parse)
+                    .collect(Collectors.toList());
+        }
+
+        String password = System.getenv("KLEX_PASSWORD");
+        if (password == null)
+            password = new String(System.console().readPassword("Password for %s: ", args[1]));
+
+        StreamPlanner planner;
+        long start = System.currentTimeMillis();
+        try (Connection connection = DriverManager.getConnection(args[0], args[1], password)) {
+            planner = StreamPlanner.load(connection);
+        }
+        long loaded = System.currentTimeMillis();
+        List<StreamPlanner.Plan> plans = planner.planAll(sessions);
+        long planned = System.currentTimeMillis();
+
+        long dataRate = 0;
+        int unplayable = 0;
+        for (int i = 0; i < plans.size(); i++) {
+            StreamPlanner.Plan plan = plans.get(i);
+            if (plan == null)
+                unplayable++;
+            else
+                dataRate += plan.getDataRate();
+            if (printPlans)
+                System.out.println((i + 1) + ": " + (plan == null ? "unplayable" : plan));
+        }
+        System.out.println("Catalog: " + planner.getStatistics() + " loaded in " + (loaded - start) + " ms");
+        System.out.println("Sessions: " + sessions.size() + " planned=" + (sessions.size() - unplayable)
+                + " unplayable=" + unplayable + " in " + (planned - loaded) + " ms");
+        System.out.println("Total data rate: " + dataRate);
+    }
+}
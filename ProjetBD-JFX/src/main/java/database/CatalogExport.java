@@ -0,0 +1,358 @@
+package database;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Dumps every table of the schema to gzipped NDJSON files, in the format read back by {@link CatalogImport}
+ * for the tables it imports.
+ * <p>
+ * Each table is split into ranges of its first key column, taken from the bounds of equal-sized buckets.
+ * Ranges are read in parallel with a large fetch size and streamed row by row into a gzip part file each,
+ * so memory doesn't depend on the size of the table. Parts are then appended in key order to the table file
+ * with {@link FileChannel#transferTo}, concatenated gzip members being a valid gzip file.
+ * <p>
+ * Every read is made {@code AS OF} the SCN of the start of the export, so the files are a consistent snapshot
+ * of the schema although each range is read by its own connection. Bounds are compared in the binary order
+ * the connections of the {@link ConnectionPool} sort in, so the ranges don't overlap nor leave rows out.
+ */
+public class CatalogExport {
+
+    private static final int FETCH_SIZE = 5000;
+    private static final int RANGES_PER_READER = 4;
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The tables of the schema with their key columns, in the order of their foreign keys.
+     * The categories of films and tracks are exported as a list in the rows of their film or track.
+     */
+    public enum Table {
+        KLEX_USER("EMAIL"),
+        VIDEO_CODEC("VIDEO_CODEC_NAME"),
+        AUDIO_CODEC("AUDIO_CODEC_NAME"),
+        TEXT_CODEC("TEXT_CODEC_NAME"),
+        CLIENT("BRAND, MODEL"),
+        CLIENT_SUPPORTE_CODEC_VIDEO("BRAND, MODEL, VIDEO_CODEC_NAME"),
+        CLIENT_SUPPORTE_CODEC_AUDIO("BRAND, MODEL, AUDIO_CODEC_NAME"),
+        CLIENT_SUPPORTE_CODEC_TEXTE("BRAND, MODEL, TEXT_CODEC_NAME"),
+        MEDIA_FILE("FILE_ID"),
+        VIDEO_FLUX("FILE_ID, FLUX_ID"),
+        AUDIO_FLUX("FILE_ID, FLUX_ID"),
+        TEXT_FLUX("FILE_ID, FLUX_ID"),
+        ARTIST("ARTIST_ID"),
+        FILM_CATEGORY("FILM_CATEGORY_NAME"),
+        FILM("FILM_TITLE, FILM_YEAR"),
+        FILM_PICTURE("FILM_TITLE, FILM_YEAR, FILM_PICTURE_URL"),
+        PARTICIPE_AU_FILM("ARTIST_ID, FILM_TITLE, FILM_YEAR"),
+        JOUE_ROLE("ARTIST_ID, FILM_TITLE, FILM_YEAR, CHARACTER_NAME"),
+        MUSIC_CATEGORY("MUSIC_CATEGORY_NAME"),
+        ALBUM("ALBUM_ID"),
+        ALBUM_A_POUR_CAT("ALBUM_ID, MUSIC_CATEGORY_NAME"),
+        TRACK("ALBUM_ID, TRACK_ID"),
+        JOUE_DANS("ARTIST_ID, TRACK_ID, INSTRUMENT_NAME"),
+        FILE_CONCERNE_FILM("FILE_ID, FILM_TITLE, FILM_YEAR"),
+        FILE_CONCERNE_TRACK("FILE_ID, ALBUM_ID, TRACK_ID");
+
+        private final String keyColumns;
+
+        Table(String keyColumns) {
+            this.keyColumns = keyColumns;
+        }
+    }
+
+    public static final class Result {
+        private final Table table;
+        private final long rows;
+        private final long bytes;
+        private final long elapsedMillis;
+
+        private Result(Table table, long rows, long bytes, long elapsedMillis) {
+            this.table = table;
+            this.rows = rows;
+            this.bytes = bytes;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public Table getTable() {
+            return table;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: rows=%d size=%dkB in %.1fs", table, rows, bytes / 1024, elapsedMillis / 1000.0);
+        }
+    }
+
+    private final ConnectionPool pool;
+    private int readers = 4;
+
+    /**
+     * The pool must allow one connection per reader.
+     */
+    public CatalogExport(ConnectionPool pool) {
+        this.pool = pool;
+    }
+
+    public CatalogExport setReaders(int readers) {
+        this.readers = readers;
+        return this;
+    }
+
+    /**
+     * Writes each table to {@code <TABLE>.ndjson.gz} in the directory.
+     */
+    public List<Result> run(Path directory, List<Table> tables) throws IOException, SQLException, InterruptedException {
+        Files.createDirectories(directory);
+        long scn = currentScn();
+        List<Result> results = new ArrayList<>();
+        ExecutorService threads = Executors.newFixedThreadPool(readers);
+        try {
+            for (Table table : tables)
+                results.add(export(threads, table, scn, directory.resolve(table + ".ndjson.gz")));
+        } finally {
+            threads.shutdownNow();
+        }
+        return results;
+    }
+
+    /**
+     * System change number of the last commit, which every read of the export is made as of.
+     */
+    private long currentScn() throws SQLException {
+        Connection connection = pool.checkout();
+        try (StatementCache cache = new StatementCache(connection);
+             ResultSet resultSet = cache.prepare(Query.register("EXPORT_SCN",
+                     "SELECT DBMS_FLASHBACK.GET_SYSTEM_CHANGE_NUMBER FROM DUAL")).executeQuery()) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        } finally {
+            pool.release(connection);
+        }
+    }
+
+    private Result export(ExecutorService threads, Table table, long scn, Path target)
+            throws IOException, SQLException, InterruptedException {
+        long start = System.currentTimeMillis();
+        String source = source(table);
+        String key = table.keyColumns.split(",")[0];
+        Query bounds = Query.register("EXPORT_BOUNDS_" + table,
+                "SELECT MIN(" + key + ") FROM (SELECT " + key + ", NTILE(?) OVER (ORDER BY " + key + ") BUCKET " +
+                        "FROM " + table + " AS OF SCN ?) GROUP BY BUCKET ORDER BY 1");
+        Query range = Query.register("EXPORT_RANGE_" + table,
+                "SELECT * FROM (" + source + ") WHERE " + key + " >= ? AND " + key + " < ? ORDER BY " + table.keyColumns);
+        Query tail = Query.register("EXPORT_TAIL_" + table,
+                "SELECT * FROM (" + source + ") WHERE " + key + " >= ? ORDER BY " + table.keyColumns);
+        // the source reads each of its tables as of the SCN
+        int snapshots = source.split("AS OF SCN \\?", -1).length - 1;
+
+        List<Object> lowerBounds = new ArrayList<>();
+        Connection connection = pool.checkout();
+        try (StatementCache cache = new StatementCache(connection)) {
+            PreparedStatement statement = cache.prepare(bounds);
+            statement.setInt(1, readers * RANGES_PER_READER);
+            statement.setLong(2, scn);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    Object bound = resultSet.getObject(1);
+                    // a key spanning several buckets gives the same bound twice
+                    if (lowerBounds.isEmpty() || !lowerBounds.get(lowerBounds.size() - 1).equals(bound))
+                        lowerBounds.add(bound);
+                }
+            }
+        } finally {
+            pool.release(connection);
+        }
+
+        List<Path> parts = new ArrayList<>();
+        List<Future<Long>> reads = new ArrayList<>();
+        for (int i = 0; i < lowerBounds.size(); i++) {
+            Path part = target.resolveSibling(target.getFileName() + ".part" + i);
+            parts.add(part);
+            Object lower = lowerBounds.get(i);
+            Object upper = i + 1 < lowerBounds.size() ? lowerBounds.get(i + 1) : null;
+            reads.add(threads.submit(() -> upper == null
+                    ? exportRange(tail, part, scn, snapshots, lower)
+                    : exportRange(range, part, scn, snapshots, lower, upper)));
+        }
+
+        long rows = 0;
+        try {
+            for (Future<Long> read : reads)
+                rows += read.get();
+            try (FileChannel out = FileChannel.open(target,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                if (parts.isEmpty())
+                    new GZIPOutputStream(Channels.newOutputStream(out)).finish();
+                for (Path part : parts) {
+                    try (FileChannel in = FileChannel.open(part, StandardOpenOption.READ)) {
+                        long position = 0;
+                        long size = in.size();
+                        while (position < size)
+                            position += in.transferTo(position, size - position, out);
+                    }
+                }
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException)
+                throw (SQLException) cause;
+            if (cause instanceof IOException)
+                throw (IOException) cause;
+            throw new IllegalStateException("Export of " + table + " failed", cause);
+        } finally {
+            reads.forEach(read -> read.cancel(true));
+            for (Path part : parts)
+                Files.deleteIfExists(part);
+        }
+        return new Result(table, rows, Files.size(target), System.currentTimeMillis() - start);
+    }
+
+    private long exportRange(Query query, Path part, long scn, int snapshots, Object... bounds) throws SQLException, IOException {
+        Connection connection = pool.checkout();
+        try (StatementCache cache = new StatementCache(connection);
+             FileChannel channel = FileChannel.open(part,
+                     StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             Writer writer = new BufferedWriter(new OutputStreamWriter(
+                     new GZIPOutputStream(Channels.newOutputStream(channel), WRITE_BUFFER_SIZE), StandardCharsets.UTF_8),
+                     WRITE_BUFFER_SIZE)) {
+            PreparedStatement statement = cache.prepare(query);
+            statement.setFetchSize(FETCH_SIZE);
+            for (int i = 0; i < snapshots; i++)
+                statement.setLong(i + 1, scn);
+            for (int i = 0; i < bounds.length; i++)
+                statement.setObject(snapshots + i + 1, bounds[i]);
+            long rows = 0;
+            StringBuilder line = new StringBuilder();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                ResultSetMetaData metaData = resultSet.getMetaData();
+                while (resultSet.next()) {
+                    line.setLength(0);
+                    appendRow(line, resultSet, metaData);
+                    writer.append(line).append('\n');
+                    rows++;
+                }
+            }
+            return rows;
+        } finally {
+            pool.release(connection);
+        }
+    }
+
+    private static void appendRow(StringBuilder line, ResultSet resultSet, ResultSetMetaData metaData) throws SQLException {
+        line.append('{');
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            if (i > 1)
+                line.append(", ");
+            appendString(line, metaData.getColumnLabel(i).toUpperCase());
+            line.append(": ");
+            switch (metaData.getColumnType(i)) {
+                case Types.NUMERIC:
+                case Types.DECIMAL:
+                case Types.INTEGER:
+                case Types.BIGINT:
+                case Types.SMALLINT:
+                    BigDecimal number = resultSet.getBigDecimal(i);
+                    line.append(number == null ? "null" : number.toPlainString());
+                    break;
+                case Types.DATE:
+                case Types.TIMESTAMP:
+                    Date date = resultSet.getDate(i);
+                    if (date == null)
+                        line.append("null");
+                    else
+                        appendString(line, date.toString());
+                    break;
+                default:
+                    String value = resultSet.getString(i);
+                    if (value == null)
+                        line.append("null");
+                    else
+                        appendString(line, value);
+            }
+        }
+        line.append('}');
+    }
+
+    private static void appendString(StringBuilder line, String value) {
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    line.append("\\\"");
+                    break;
+                case '\\':
+                    line.append("\\\\");
+                    break;
+                case '\n':
+                    line.append("\\n");
+                    break;
+                case '\r':
+                    line.append("\\r");
+                    break;
+                case '\t':
+                    line.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20)
+                        line.append(String.format("\\u%04x", (int) c));
+                    else
+                        line.append(c);
+            }
+        }
+        line.append('"');
+    }
+
+    /**
+     * The rows of a table as of the SCN, with the columns expected by the import, categories included as a list.
+     */
+    private static String source(Table table) {
+        switch (table) {
+            case FILM:
+                return "SELECT F.*, (SELECT LISTAGG(C.FILM_CATEGORY_NAME, ';') WITHIN GROUP (ORDER BY C.FILM_CATEGORY_NAME) " +
+                        "FROM FILM_A_POUR_CAT AS OF SCN ? C WHERE C.FILM_TITLE = F.FILM_TITLE AND C.FILM_YEAR = F.FILM_YEAR) FILM_CATEGORY_NAME " +
+                        "FROM FILM AS OF SCN ? F";
+            case TRACK:
+                return "SELECT T.*, (SELECT LISTAGG(C.MUSIC_CATEGORY_NAME, ';') WITHIN GROUP (ORDER BY C.MUSIC_CATEGORY_NAME) " +
+                        "FROM TRACK_A_POUR_CAT AS OF SCN ? C WHERE C.ALBUM_ID = T.ALBUM_ID AND C.TRACK_ID = T.TRACK_ID) MUSIC_CATEGORY_NAME " +
+                        "FROM TRACK AS OF SCN ? T";
+            default:
+                return "SELECT * FROM " + table + " AS OF SCN ?";
+        }
+    }
+}
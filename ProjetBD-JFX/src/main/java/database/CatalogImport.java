@@ -0,0 +1,791 @@
+package database;
+
+import model.*;
+import utils.ValidationError;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Headless import of one table from a CSV file with a header line, or from NDJSON with one flat object per line.
+ * Column names are the ones of the table, categories of films and tracks are given as a list separated by ';'
+ * in FILM_CATEGORY_NAME or MUSIC_CATEGORY_NAME.
+ * <p>
+ * Records go through three stages connected by bounded queues: one reader, parsers validating them with the rules
+ * of the models, and writers each owning a connection and a partition of the keys. Writers send JDBC batches and
+ * commit every few records; when a batch fails, its uncommitted records are replayed one by one so only the
+ * faulty ones are rejected. Rejected records are written to a side file with their line and the reason.
+ */
+public class CatalogImport {
+
+    private static final int CHUNK_SIZE = 1000;
+    private static final int QUEUED_CHUNKS_PER_WORKER = 4;
+    private static final long POLL_MILLIS = 100;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    public enum Table {
+        MEDIA_FILE(Query.ADD_MEDIA_FILE) {
+            @Override
+            Object parse(ResultSet row) throws SQLException {
+                return new MediaFile().loadFromResultSet(row);
+            }
+
+            @Override
+            Object key(Object record) {
+                return ((MediaFile) record).getId();
+            }
+
+            @Override
+            String sequence() {
+                return IdAllocator.MEDIA_FILE;
+            }
+
+            @Override
+            void add(Object record, StatementBatch batch, PreparedStatement... statements) throws SQLException {
+                OracleDB.loadMediaFileParameters(statements[0], (MediaFile) record);
+                batch.add(statements[0]);
+            }
+        },
+        VIDEO_FLUX(Query.ADD_FLUX, Query.ADD_VIDEO_FLUX) {
+            @Override
+            Object parse(ResultSet row) throws SQLException {
+                return new VideoFlux(Collections.emptyList()).loadFromResultSet(row);
+            }
+
+            @Override
+            void add(Object record, StatementBatch batch, PreparedStatement... statements) throws SQLException {
+                VideoFlux flux = (VideoFlux) record;
+                OracleDB.addFlux(batch, statements[0], statements[1], null, null, flux.getFileId(), flux);
+            }
+        },
+        AUDIO_FLUX(Query.ADD_FLUX, Query.ADD_AUDIO_FLUX) {
+            @Override
+            Object parse(ResultSet row) throws SQLException {
+                return new AudioFlux(Collections.emptyList()).loadFromResultSet(row);
+            }
+
+            @Override
+            void add(Object record, StatementBatch batch, PreparedStatement... statements) throws SQLException {
+                AudioFlux flux = (AudioFlux) record;
+                OracleDB.addFlux(batch, statements[0], null, statements[1], null, flux.getFileId(), flux);
+            }
+        },
+        TEXT_FLUX(Query.ADD_FLUX, Query.ADD_TEXT_FLUX) {
+            @Override
+            Object parse(ResultSet row) throws SQLException {
+                return new TextFlux(Collections.emptyList()).loadFromResultSet(row);
+            }
+
+            @Override
+            void add(Object record, StatementBatch batch, PreparedStatement... statements) throws SQLException {
+                TextFlux flux = (TextFlux) record;
+                OracleDB.addFlux(batch, statements[0], null, null, statements[1], flux.getFileId(), flux);
+            }
+        },
+        ALBUM(Query.ADD_ALBUM) {
+            @Override
+            Object parse(ResultSet row) throws SQLException {
+                return new Album().loadFromResultSet(row);
+            }
+
+            @Override
+            Object key(Object record) {
+                return ((Album) record).getId();
+            }
+
+            @Override
+            String sequence() {
+                return IdAllocator.ALBUM;
+            }
+
+            @Override
+            int id(Object record) {
+                return ((Album) record).getId();
+            }
+
+            @Override
+            void add(Object record, StatementBatch batch, PreparedStatement... statements) throws SQLException {
+                OracleDB.loadAlbumParameters(statements[0], (Album) record);
+                batch.add(statements[0]);
+            }
+        },
+        FILM(Query.ADD_FILM, Query.ADD_CATEGORY_TO_FILM) {
+            @Override
+            Object parse(ResultSet row) throws SQLException {
+                Film film = new Film().loadFromResultSet(row);
+                for (String name : names(row.getString("FILM_CATEGORY_NAME")))
+                    film.getFilmCategories().add(new FilmCategory().loadFromResultSet(RowView.of(column -> name)));
+                return film;
+            }
+
+            @Override
+            Object key(Object record) {
+                return ((Film) record).getTitle();
+            }
+
+            @Override
+            void add(Object record, StatementBatch batch, PreparedStatement... statements) throws SQLException {
+                Film film = (Film) record;
+                OracleDB.loadFilmParameters(statements[0], film);
+                batch.add(statements[0]);
+                for (FilmCategory filmCategory : film.getFilmCategories()) {
+                    statements[1].setString(1, film.getTitle());
+                    statements[1].setInt(2, film.getYear());
+                    statements[1].setString(3, filmCategory.getName());
+                    batch.add(statements[1]);
+                }
+            }
+        },
+        TRACK(Query.ADD_TRACK, Query.ADD_CATEGORY_TO_TRACK) {
+            @Override
+            Object parse(ResultSet row) throws SQLException {
+                Track track = new Track().loadFromResultSet(row);
+                for (String name : names(row.getString("MUSIC_CATEGORY_NAME")))
+                    track.getTrackCategories().add(new MusicCategory().loadFromResultSet(RowView.of(column -> name)));
+                return track;
+            }
+
+            @Override
+            Object key(Object record) {
+                return ((Track) record).getAlbumId();
+            }
+
+            @Override
+            String sequence() {
+                return IdAllocator.TRACK;
+            }
+
+            @Override
+            int id(Object record) {
+                return ((Track) record).getId();
+            }
+
+            @Override
+            void add(Object record, StatementBatch batch, PreparedStatement... statements) throws SQLException {
+                Track track = (Track) record;
+                OracleDB.loadTrackParameters(statements[0], track);
+                batch.add(statements[0]);
+                for (MusicCategory musicCategory : track.getTrackCategories()) {
+                    statements[1].setInt(1, track.getAlbumId());
+                    statements[1].setInt(2, track.getId());
+                    statements[1].setString(3, musicCategory.getName());
+                    batch.add(statements[1]);
+                }
+            }
+        },
+        FILE_CONCERNE_FILM(Query.ADD_FILE_TO_FILM) {
+            @Override
+            Object parse(ResultSet row) throws SQLException {
+                return new Object[]{row.getInt("FILE_ID"), row.getString("FILM_TITLE"), row.getInt("FILM_YEAR")};
+            }
+
+            @Override
+            List<ValidationError> validate(Object record) {
+                List<ValidationError> errors = super.validate(record);
+                Object[] link = (Object[]) record;
+                if (link[1] == null || ((String) link[1]).isBlank())
+                    errors.add(new ValidationError("Film title", "Cannot be blank"));
+                return errors;
+            }
+
+            @Override
+            void add(Object record, StatementBatch batch, PreparedStatement... statements) throws SQLException {
+                Object[] link = (Object[]) record;
+                statements[0].setInt(1, (Integer) link[0]);
+                statements[0].setString(2, (String) link[1]);
+                statements[0].setInt(3, (Integer) link[2]);
+                batch.add(statements[0]);
+            }
+        },
+        FILE_CONCERNE_TRACK(Query.ADD_FILE_TO_TRACK) {
+            @Override
+            Object parse(ResultSet row) throws SQLException {
+                return new Object[]{row.getInt("FILE_ID"), row.getInt("ALBUM_ID"), row.getInt("TRACK_ID")};
+            }
+
+            @Override
+            List<ValidationError> validate(Object record) {
+                List<ValidationError> errors = super.validate(record);
+                Object[] link = (Object[]) record;
+                if ((Integer) link[1] < 0 || (Integer) link[2] < 0)
+                    errors.add(new ValidationError("Track", "IDs must be positive"));
+                return errors;
+            }
+
+            @Override
+            void add(Object record, StatementBatch batch, PreparedStatement... statements) throws SQLException {
+                Object[] link = (Object[]) record;
+                for (int i = 0; i < link.length; i++)
+                    statements[0].setInt(i + 1, (Integer) link[i]);
+                batch.add(statements[0]);
+            }
+        };
+
+        private final Query[] queries;
+
+        Table(Query... queriesInDependencyOrder) {
+            this.queries = queriesInDependencyOrder;
+        }
+
+        abstract Object parse(ResultSet row) throws SQLException;
+
+        /**
+         * Validates a model with the rules of its edit dialog, or the file ID of a link.
+         */
+        List<ValidationError> validate(Object record) {
+            if (record instanceof EditableModel)
+                return ((EditableModel<?>) record).getValidationErrors();
+            List<ValidationError> errors = new ArrayList<>();
+            if ((Integer) ((Object[]) record)[0] < 0)
+                errors.add(new ValidationError("File ID", "Must be positive"));
+            return errors;
+        }
+
+        /**
+         * The key deciding which writer inserts the record: flux and links of a file, tracks of an album,
+         * all go through the same connection.
+         */
+        Object key(Object record) {
+            if (record instanceof Flux)
+                return ((Flux<?>) record).getFileId();
+            return ((Object[]) record)[0];
+        }
+
+        abstract void add(Object record, StatementBatch batch, PreparedStatement... statements) throws SQLException;
+
+        /**
+         * The sequence allocating the IDs of the table, moved past the imported IDs once the import is done.
+         */
+        String sequence() {
+            return null;
+        }
+
+        int id(Object record) {
+            return (Integer) key(record);
+        }
+
+        private static List<String> names(String list) {
+            if (list == null)
+                return Collections.emptyList();
+            return Arrays.stream(list.split(";")).map(String::trim).filter(name -> !name.isEmpty())
+                    .collect(Collectors.toList());
+        }
+    }
+
+    public static final class Result {
+        private final long read;
+        private final long imported;
+        private final long rejected;
+        private final long elapsedMillis;
+
+        private Result(long read, long imported, long rejected, long elapsedMillis) {
+            this.read = read;
+            this.imported = imported;
+            this.rejected = rejected;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public long getRead() {
+            return read;
+        }
+
+        public long getImported() {
+            return imported;
+        }
+
+        public long getRejected() {
+            return rejected;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("read=%d imported=%d rejected=%d in %.1fs (%.0f records/s)",
+                    read, imported, rejected, elapsedMillis / 1000.0,
+                    elapsedMillis == 0 ? 0 : read * 1000.0 / elapsedMillis);
+        }
+    }
+
+    private static final class Row {
+        private final long line;
+        private final String raw;
+        private Object record;
+
+        private Row(long line, String raw) {
+            this.line = line;
+            this.raw = raw;
+        }
+    }
+
+    private static final List<Row> END = Collections.emptyList();
+
+    private final ConnectionPool pool;
+    private final Table table;
+    private final Format format;
+    private int parsers = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    private int writers = 4;
+    private int batchSize = 500;
+    private int commitInterval = 5000;
+
+    private final LongAdder read = new LongAdder();
+    private final LongAdder imported = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAccumulator maxId = new LongAccumulator(Math::max, Integer.MIN_VALUE);
+    private final AtomicReference<Exception> failure = new AtomicReference<>();
+    private List<String> header;
+    private BufferedWriter rejects;
+
+    /**
+     * The pool must allow one connection per writer.
+     */
+    public CatalogImport(ConnectionPool pool, Table table, Format format) {
+        this.pool = pool;
+        this.table = table;
+        this.format = format;
+    }
+
+    public CatalogImport setParsers(int parsers) {
+        this.parsers = parsers;
+        return this;
+    }
+
+    public CatalogImport setWriters(int writers) {
+        this.writers = writers;
+        return this;
+    }
+
+    public CatalogImport setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * Number of records inserted by a writer between two commits.
+     */
+    public CatalogImport setCommitInterval(int commitInterval) {
+        this.commitInterval = commitInterval;
+        return this;
+    }
+
+    public Result run(Path input, Path rejectFile) throws IOException, SQLException, InterruptedException {
+        long start = System.currentTimeMillis();
+        BlockingQueue<List<Row>> chunks = new ArrayBlockingQueue<>(parsers * QUEUED_CHUNKS_PER_WORKER);
+        List<BlockingQueue<List<Row>>> partitions = new ArrayList<>();
+        for (int i = 0; i < writers; i++)
+            partitions.add(new ArrayBlockingQueue<>(QUEUED_CHUNKS_PER_WORKER));
+
+        ExecutorService threads = Executors.newFixedThreadPool(parsers + writers);
+        try (BufferedReader reader = open(input);
+             BufferedWriter rejectWriter = Files.newBufferedWriter(rejectFile, StandardCharsets.UTF_8)) {
+            rejects = rejectWriter;
+            List<Future<?>> writing = new ArrayList<>();
+            for (BlockingQueue<List<Row>> partition : partitions)
+                writing.add(submit(threads, () -> write(partition)));
+            List<Future<?>> parsing = new ArrayList<>();
+            for (int i = 0; i < parsers; i++)
+                parsing.add(submit(threads, () -> parse(chunks, partitions)));
+            try {
+                readChunks(reader, chunks);
+                for (int i = 0; i < parsers; i++)
+                    put(chunks, END);
+                await(parsing);
+                for (BlockingQueue<List<Row>> partition : partitions)
+                    put(partition, END);
+                await(writing);
+            } catch (IOException | InterruptedException e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                threads.shutdownNow();
+                threads.awaitTermination(POLL_MILLIS * 10, TimeUnit.MILLISECONDS);
+            }
+        }
+        Exception e = failure.get();
+        if (e instanceof IOException)
+            throw (IOException) e;
+        if (e instanceof SQLException)
+            throw (SQLException) e;
+        if (e instanceof InterruptedException)
+            throw (InterruptedException) e;
+        if (e != null)
+            throw new IllegalStateException("Import failed", e);
+        if (table.sequence() != null && maxId.get() > Integer.MIN_VALUE) {
+            Connection connection = pool.checkout();
+            try {
+                IdAllocator.advancePast(connection, table.sequence(), (int) maxId.get());
+            } finally {
+                pool.release(connection);
+            }
+        }
+        return new Result(read.sum(), imported.sum(), rejected.sum(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Opens the input, gunzipped when its name ends with .gz like the files of {@link CatalogExport}.
+     */
+    private static BufferedReader open(Path input) throws IOException {
+        if (!input.getFileName().toString().endsWith(".gz"))
+            return Files.newBufferedReader(input, StandardCharsets.UTF_8);
+        return new BufferedReader(new InputStreamReader(new GZIPInputStream(Files.newInputStream(input)), StandardCharsets.UTF_8));
+    }
+
+    private void readChunks(BufferedReader reader, BlockingQueue<List<Row>> chunks) throws IOException, InterruptedException {
+        long line = 0;
+        if (format == Format.CSV) {
+            String headerLine = reader.readLine();
+            if (headerLine == null)
+                return;
+            line++;
+            header = splitCsv(headerLine).stream().map(column -> column.trim().toUpperCase()).collect(Collectors.toList());
+        }
+        List<Row> chunk = new ArrayList<>(CHUNK_SIZE);
+        String text;
+        while ((text = reader.readLine()) != null) {
+            Row row = new Row(++line, text);
+            // a quoted CSV field may hold line breaks, read on until its quote is closed
+            if (format == Format.CSV) {
+                StringBuilder record = null;
+                while (quotes(text) % 2 != 0 && (text = reader.readLine()) != null) {
+                    line++;
+                    if (record == null)
+                        record = new StringBuilder(row.raw);
+                    record.append('\n').append(text);
+                    text = record.toString();
+                }
+                if (record != null)
+                    row = new Row(row.line, record.toString());
+            }
+            if (row.raw.isBlank())
+                continue;
+            chunk.add(row);
+            read.increment();
+            if (chunk.size() == CHUNK_SIZE) {
+                put(chunks, chunk);
+                chunk = new ArrayList<>(CHUNK_SIZE);
+            }
+        }
+        if (!chunk.isEmpty())
+            put(chunks, chunk);
+    }
+
+    private void parse(BlockingQueue<List<Row>> chunks, List<BlockingQueue<List<Row>>> partitions) throws IOException, InterruptedException {
+        List<Row> chunk;
+        while ((chunk = take(chunks)) != END) {
+            List<List<Row>> routed = new ArrayList<>();
+            for (int i = 0; i < partitions.size(); i++)
+                routed.add(new ArrayList<>());
+            for (Row row : chunk) {
+                try {
+                    Map<String, String> fields = format == Format.CSV ? csvFields(row.raw) : jsonFields(row.raw);
+                    row.record = table.parse(RowView.of(column -> fields.get(column.toUpperCase())));
+                    List<ValidationError> errors = table.validate(row.record);
+                    if (!errors.isEmpty()) {
+                        reject(row, errors.stream().map(ValidationError::toString).collect(Collectors.joining(", ")));
+                        continue;
+                    }
+                    if (table.sequence() != null)
+                        maxId.accumulate(table.id(row.record));
+                    routed.get(Math.floorMod(table.key(row.record).hashCode(), partitions.size())).add(row);
+                } catch (SQLException | RuntimeException e) {
+                    reject(row, e.toString());
+                }
+            }
+            for (int i = 0; i < routed.size(); i++) {
+                if (!routed.get(i).isEmpty())
+                    put(partitions.get(i), routed.get(i));
+            }
+        }
+    }
+
+    private void write(BlockingQueue<List<Row>> partition) throws SQLException, IOException, InterruptedException {
+        Connection connection = pool.checkout();
+        StatementCache cache = new StatementCache(connection);
+        try {
+            connection.setAutoCommit(false);
+            PreparedStatement[] statements = new PreparedStatement[table.queries.length];
+            for (int i = 0; i < statements.length; i++)
+                statements[i] = cache.prepare(table.queries[i]);
+            StatementBatch batch = new StatementBatch(batchSize, statements);
+            List<Row> uncommitted = new ArrayList<>();
+            List<Row> rows;
+            while ((rows = take(partition)) != END) {
+                for (Row row : rows) {
+                    uncommitted.add(row);
+                    try {
+                        table.add(row.record, batch, statements);
+                        batch.flushIfFull();
+                        if (uncommitted.size() >= commitInterval)
+                            commit(connection, batch, uncommitted);
+                    } catch (SQLException e) {
+                        replay(connection, batch, statements, uncommitted);
+                    }
+                }
+            }
+            try {
+                commit(connection, batch, uncommitted);
+            } catch (SQLException e) {
+                replay(connection, batch, statements, uncommitted);
+            }
+        } finally {
+            cache.close();
+            pool.release(connection);
+        }
+    }
+
+    private void commit(Connection connection, StatementBatch batch, List<Row> uncommitted) throws SQLException {
+        batch.flush();
+        connection.commit();
+        imported.add(uncommitted.size());
+        uncommitted.clear();
+    }
+
+    /**
+     * Rolls back a failed batch and inserts its records again one at a time, rejecting the ones the server refuses.
+     */
+    private void replay(Connection connection, StatementBatch batch, PreparedStatement[] statements, List<Row> uncommitted)
+            throws SQLException, IOException {
+        batch.clear();
+        connection.rollback();
+        for (Row row : uncommitted) {
+            try {
+                table.add(row.record, batch, statements);
+                batch.flush();
+                connection.commit();
+                imported.increment();
+            } catch (SQLException e) {
+                batch.clear();
+                connection.rollback();
+                if (!connection.isValid(VALIDATION_TIMEOUT_SECONDS))
+                    throw e;
+                reject(row, e.getMessage().trim());
+            }
+        }
+        uncommitted.clear();
+    }
+
+    private void reject(Row row, String reason) throws IOException {
+        rejected.increment();
+        String line = row.line + "\t" + reason.replace('\t', ' ').replace('\n', ' ') + "\t" + row.raw.replace("\n", "\\n");
+        synchronized (rejects) {
+            rejects.write(line);
+            rejects.newLine();
+        }
+    }
+
+    private <T> void put(BlockingQueue<T> queue, T item) throws InterruptedException {
+        while (!queue.offer(item, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (failure.get() != null)
+                throw new InterruptedException("Import aborted");
+        }
+    }
+
+    private <T> T take(BlockingQueue<T> queue) throws InterruptedException {
+        T item;
+        while ((item = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+            if (failure.get() != null)
+                throw new InterruptedException("Import aborted");
+        }
+        return item;
+    }
+
+    private interface Worker {
+        void run() throws Exception;
+    }
+
+    /**
+     * Runs a worker, keeping its failure so every stage stops instead of waiting on its queues.
+     */
+    private Future<?> submit(ExecutorService threads, Worker worker) {
+        return threads.submit(() -> {
+            try {
+                worker.run();
+            } catch (Exception e) {
+                failure.compareAndSet(null, e);
+            } catch (Error e) {
+                failure.compareAndSet(null, new IllegalStateException(e));
+                throw e;
+            }
+        });
+    }
+
+    private void await(List<Future<?>> futures) throws InterruptedException {
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                failure.compareAndSet(null, new IllegalStateException(e.getCause()));
+            }
+        }
+        if (failure.get() != null)
+            throw new InterruptedException("Import aborted");
+    }
+
+    private Map<String, String> csvFields(String record) {
+        List<String> values = splitCsv(record);
+        if (values.size() != header.size())
+            throw new IllegalArgumentException("Expected " + header.size() + " fields, found " + values.size());
+        Map<String, String> fields = new HashMap<>();
+        for (int i = 0; i < values.size(); i++)
+            fields.put(header.get(i), values.get(i).isEmpty() ? null : values.get(i));
+        return fields;
+    }
+
+    private static int quotes(String text) {
+        int count = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '"')
+                count++;
+        }
+        return count;
+    }
+
+    /**
+     * Splits a CSV record on commas outside quotes, a doubled quote inside quotes standing for one quote.
+     */
+    static List<String> splitCsv(String record) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < record.length(); i++) {
+            char c = record.charAt(i);
+            if (quoted) {
+                if (c != '"')
+                    value.append(c);
+                else if (i + 1 < record.length() && record.charAt(i + 1) == '"')
+                    value.append(record.charAt(++i));
+                else
+                    quoted = false;
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    /**
+     * Reads a flat JSON object. Values are kept as text, they are converted when the model reads its columns.
+     */
+    static Map<String, String> jsonFields(String record) {
+        Map<String, String> fields = new HashMap<>();
+        int[] position = {skipSpaces(record, 0)};
+        expect(record, position, '{');
+        if (peek(record, position) == '}')
+            return fields;
+        while (true) {
+            String name = jsonString(record, position);
+            expect(record, position, ':');
+            position[0] = skipSpaces(record, position[0]);
+            String value;
+            if (peek(record, position) == '"') {
+                value = jsonString(record, position);
+            } else {
+                int start = position[0];
+                while (position[0] < record.length() && ",} \t".indexOf(record.charAt(position[0])) < 0)
+                    position[0]++;
+                value = record.substring(start, position[0]);
+                if (value.equals("null"))
+                    value = null;
+            }
+            fields.put(name.toUpperCase(), value);
+            char next = peek(record, position);
+            position[0]++;
+            if (next == '}')
+                return fields;
+            if (next != ',')
+                throw new IllegalArgumentException("Expected ',' or '}' at " + (position[0] - 1));
+        }
+    }
+
+    private static String jsonString(String record, int[] position) {
+        expect(record, position, '"');
+        StringBuilder value = new StringBuilder();
+        while (true) {
+            if (position[0] >= record.length())
+                throw new IllegalArgumentException("Unterminated string");
+            char c = record.charAt(position[0]++);
+            if (c == '"')
+                return value.toString();
+            if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+            char escaped = record.charAt(position[0]++);
+            switch (escaped) {
+                case 'n':
+                    value.append('\n');
+                    break;
+                case 't':
+                    value.append('\t');
+                    break;
+                case 'r':
+                    value.append('\r');
+                    break;
+                case 'b':
+                    value.append('\b');
+                    break;
+                case 'f':
+                    value.append('\f');
+                    break;
+                case 'u':
+                    value.append((char) Integer.parseInt(record.substring(position[0], position[0] + 4), 16));
+                    position[0] += 4;
+                    break;
+                default:
+                    value.append(escaped);
+            }
+        }
+    }
+
+    private static char peek(String record, int[] position) {
+        position[0] = skipSpaces(record, position[0]);
+        if (position[0] >= record.length())
+            throw new IllegalArgumentException("Unexpected end of object");
+        return record.charAt(position[0]);
+    }
+
+    private static void expect(String record, int[] position, char expected) {
+        if (peek(record, position) != expected)
+            throw new IllegalArgumentException("Expected '" + expected + "' at " + position[0]);
+        position[0]++;
+    }
+
+    private static int skipSpaces(String record, int position) {
+        while (position < record.length() && Character.isWhitespace(record.charAt(position)))
+            position++;
+        return position;
+    }
+}
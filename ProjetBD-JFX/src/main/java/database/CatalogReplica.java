@@ -0,0 +1,441 @@
+package database;
+
+import model.Album;
+import model.AlbumCategory;
+import model.Artist;
+import model.Film;
+import model.FilmCategory;
+import model.MusicCategory;
+import model.Track;
+import utils.SQLConsumer;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import static database.ColumnTable.Type.CODES;
+import static database.ColumnTable.Type.DATE;
+import static database.ColumnTable.Type.INT;
+import static database.ColumnTable.Type.STRING;
+
+/**
+ * In-memory copy of the catalog (films, albums, tracks and artists) stored in {@link ColumnTable}s,
+ * answering the list, page and by-key reads without a round trip.
+ * <p>
+ * Loaded once, then brought up to date before every read from the {@link ChangeJournal}: only the rows written
+ * since the previous read are read again. Only committed rows are replicated. Not enabled by default,
+ * see {@code -Dklex.replica=true}.
+ */
+final class CatalogReplica {
+
+    private static final String MUSICIANS = "MUSICIANS";
+    private static final Comparator<Object[]> FILM_ORDER =
+            Comparator.<Object[], String>comparing(key -> (String) key[0]).thenComparing(key -> (Integer) key[1]);
+    private static final SQLConsumer<PreparedStatement> NO_PARAMETERS = statement -> {};
+
+    private static final LongAdder loads = new LongAdder();
+    private static final LongAdder refreshedRows = new LongAdder();
+
+    private final ColumnTable.Dictionary dictionary = new ColumnTable.Dictionary();
+    private final ColumnTable films = new ColumnTable("FILM", dictionary)
+            .column("FILM_TITLE", STRING)
+            .column("FILM_YEAR", INT)
+            .column("ABSTRACT", STRING)
+            .column("RECOMMENDED_AGE", INT)
+            .column("POSTER_URL", STRING)
+            .column("FILM_CATEGORY_NAME", CODES);
+    private final ColumnTable artists = new ColumnTable("ARTIST", dictionary)
+            .column("ARTIST_ID", INT)
+            .column("NAME", STRING)
+            .column("PICTURE_URL", STRING)
+            .column("MAIN_SPECIALTY", STRING)
+            .column("BIRTH_DATE", DATE)
+            .column("BIOGRAPHY", STRING);
+    private final ColumnTable albums = new ColumnTable("ALBUM", dictionary)
+            .column("ALBUM_ID", INT)
+            .column("ALBUM_TITLE", STRING)
+            .column("RELEASE_DATE", DATE)
+            .column("COVER_URL", STRING)
+            .column("ARTIST_NAME", STRING)
+            .column("MUSIC_CATEGORY_NAME", CODES);
+    // MUSICIANS holds pairs of artist id and instrument name code
+    private final ColumnTable tracks = new ColumnTable("TRACK", dictionary)
+            .column("ALBUM_ID", INT)
+            .column("TRACK_ID", INT)
+            .column("TRACK_TITLE", STRING)
+            .column("LENGTH", INT)
+            .column("MUSIC_CATEGORY_NAME", CODES)
+            .column(MUSICIANS, CODES);
+
+    private final TreeMap<Object[], Integer> filmRows = new TreeMap<>(FILM_ORDER);
+    private final TreeMap<Integer, Integer> artistRows = new TreeMap<>();
+    private final TreeMap<Integer, Integer> albumRows = new TreeMap<>();
+    private final TreeMap<Long, Integer> trackRows = new TreeMap<>();
+
+    private long sequence;
+
+    private CatalogReplica() {}
+
+    static CatalogReplica load(Connection connection, ChangeJournal journal) throws SQLException {
+        CatalogReplica replica = new CatalogReplica();
+        // Changes committed while loading are read again by the next refresh
+        replica.sequence = journal.getLastSequence();
+        replica.loadAll(connection);
+        loads.increment();
+        return replica;
+    }
+
+    private void loadAll(Connection connection) throws SQLException {
+        try (ResultSet resultSet = execute(connection, Query.LIST_ARTISTS, NO_PARAMETERS)) {
+            while (resultSet.next()) {
+                artistRows.put(resultSet.getInt("ARTIST_ID"), artists.append(resultSet));
+            }
+        }
+        try (ResultSet resultSet = execute(connection, Query.LIST_ALBUMS, NO_PARAMETERS)) {
+            while (resultSet.next()) {
+                albumRows.put(resultSet.getInt("ALBUM_ID"), albums.append(resultSet));
+            }
+        }
+        try (ResultSet resultSet = execute(connection, Query.LIST_ALBUM_CATEGORIES, NO_PARAMETERS)) {
+            while (resultSet.next()) {
+                Integer row = albumRows.get(resultSet.getInt("ALBUM_ID"));
+                if (row != null)
+                    albums.addCodes(row, "MUSIC_CATEGORY_NAME", dictionary.encode(resultSet.getString("MUSIC_CATEGORY_NAME")));
+            }
+        }
+        try (ResultSet resultSet = execute(connection, Query.LIST_FILM_ROWS, NO_PARAMETERS)) {
+            while (resultSet.next()) {
+                Object[] key = {resultSet.getString("FILM_TITLE"), resultSet.getInt("FILM_YEAR")};
+                filmRows.put(key, films.append(resultSet));
+            }
+        }
+        try (ResultSet resultSet = execute(connection, Query.LIST_FILM_CATEGORY_LINKS, NO_PARAMETERS)) {
+            while (resultSet.next()) {
+                Integer row = filmRows.get(new Object[]{resultSet.getString("FILM_TITLE"), resultSet.getInt("FILM_YEAR")});
+                if (row != null)
+                    films.addCodes(row, "FILM_CATEGORY_NAME", dictionary.encode(resultSet.getString("FILM_CATEGORY_NAME")));
+            }
+        }
+        try (ResultSet resultSet = execute(connection, Query.LIST_TRACKS, NO_PARAMETERS)) {
+            while (resultSet.next()) {
+                long key = TrackLoader.key(resultSet.getInt("ALBUM_ID"), resultSet.getInt("TRACK_ID"));
+                trackRows.put(key, tracks.append(resultSet));
+            }
+        }
+        try (ResultSet resultSet = execute(connection, Query.LIST_TRACK_CATEGORIES, NO_PARAMETERS)) {
+            while (resultSet.next()) {
+                Integer row = trackRows.get(TrackLoader.key(resultSet.getInt("ALBUM_ID"), resultSet.getInt("TRACK_ID")));
+                if (row != null)
+                    tracks.addCodes(row, "MUSIC_CATEGORY_NAME", dictionary.encode(resultSet.getString("MUSIC_CATEGORY_NAME")));
+            }
+        }
+        try (ResultSet resultSet = execute(connection, Query.LIST_MUSICIANS, NO_PARAMETERS)) {
+            while (resultSet.next()) {
+                Integer row = trackRows.get(TrackLoader.key(resultSet.getInt("ALBUM_ID"), resultSet.getInt("TRACK_ID")));
+                if (row != null)
+                    tracks.addCodes(row, MUSICIANS, resultSet.getInt("ARTIST_ID"), dictionary.encode(resultSet.getString("INSTRUMENT_NAME")));
+            }
+        }
+    }
+
+    /**
+     * Reads again the rows changed since the last refresh and returns the replica to use from now on:
+     * this one, or a new one when the journal no longer has every change or a category was renamed.
+     */
+    synchronized CatalogReplica refresh(Connection connection, ChangeJournal journal) throws SQLException {
+        List<ChangeJournal.Change> changes = journal.since(sequence);
+        if (changes == null)
+            return load(connection, journal);
+        Set<List<Object>> refreshed = new HashSet<>();
+        for (ChangeJournal.Change change : changes) {
+            Object[] key = change.getKey();
+            List<Object> id = new ArrayList<>(Arrays.asList(key));
+            id.add(change.getEntity());
+            if (!refreshed.add(id))
+                continue;
+            switch (change.getEntity()) {
+                case FILM_CATEGORY:
+                case MUSIC_CATEGORY:
+                    return load(connection, journal);
+                case ARTIST:
+                    refreshArtist(connection, (Integer) key[0]);
+                    break;
+                case ALBUM:
+                    refreshAlbum(connection, (Integer) key[0]);
+                    break;
+                case FILM:
+                    refreshFilm(connection, (String) key[0], (Integer) key[1]);
+                    break;
+                case TRACK:
+                    refreshTrack(connection, (Integer) key[0], (Integer) key[1]);
+                    break;
+                default:
+                    continue;
+            }
+            refreshedRows.increment();
+        }
+        if (!changes.isEmpty())
+            sequence = changes.get(changes.size() - 1).getSequence();
+        return this;
+    }
+
+    private void refreshArtist(Connection connection, int artistId) throws SQLException {
+        upsert(connection, artists, artistRows, artistId, Query.GET_ARTIST, statement -> statement.setInt(1, artistId));
+    }
+
+    private void refreshAlbum(Connection connection, int albumId) throws SQLException {
+        SQLConsumer<PreparedStatement> parameters = statement -> statement.setInt(1, albumId);
+        Integer row = upsert(connection, albums, albumRows, albumId, Query.GET_ALBUM, parameters);
+        if (row != null)
+            albums.setCodes(row, "MUSIC_CATEGORY_NAME", readCodes(connection, Query.LIST_CATEGORIES_OF_ALBUM, parameters, "MUSIC_CATEGORY_NAME"));
+    }
+
+    private void refreshFilm(Connection connection, String title, int year) throws SQLException {
+        SQLConsumer<PreparedStatement> parameters = statement -> {
+            statement.setString(1, title);
+            statement.setInt(2, year);
+        };
+        Integer row = upsert(connection, films, filmRows, new Object[]{title, year}, Query.GET_FILM, parameters);
+        if (row != null)
+            films.setCodes(row, "FILM_CATEGORY_NAME", readCodes(connection, Query.LIST_CATEGORIES_OF_FILM, parameters, "FILM_CATEGORY_NAME"));
+    }
+
+    private void refreshTrack(Connection connection, int albumId, int trackId) throws SQLException {
+        SQLConsumer<PreparedStatement> parameters = statement -> {
+            statement.setInt(1, albumId);
+            statement.setInt(2, trackId);
+        };
+        Integer row = upsert(connection, tracks, trackRows, TrackLoader.key(albumId, trackId), Query.GET_TRACK, parameters);
+        if (row == null)
+            return;
+        tracks.setCodes(row, "MUSIC_CATEGORY_NAME", readCodes(connection, Query.LIST_CATEGORIES_OF_TRACK, parameters, "MUSIC_CATEGORY_NAME"));
+        List<Integer> musicians = new ArrayList<>();
+        try (ResultSet resultSet = execute(connection, Query.LIST_TRACK_MUSICIANS, parameters)) {
+            while (resultSet.next()) {
+                musicians.add(resultSet.getInt("ARTIST_ID"));
+                musicians.add(dictionary.encode(resultSet.getString("INSTRUMENT_NAME")));
+            }
+        }
+        tracks.setCodes(row, MUSICIANS, musicians.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * Reads the row with this key again into its slot, appends it if it is new or deletes it if it is gone.
+     * Returns the slot of the row, or null if it was deleted.
+     */
+    private <K> Integer upsert(Connection connection, ColumnTable table, Map<K, Integer> rows, K key,
+                               Query query, SQLConsumer<PreparedStatement> parameters) throws SQLException {
+        Integer row = rows.get(key);
+        try (ResultSet resultSet = execute(connection, query, parameters)) {
+            if (!resultSet.next()) {
+                if (row != null) {
+                    table.delete(row);
+                    rows.remove(key);
+                }
+                return null;
+            }
+            if (row == null) {
+                row = table.append(resultSet);
+                rows.put(key, row);
+            } else {
+                table.read(row, resultSet);
+            }
+        }
+        return row;
+    }
+
+    private int[] readCodes(Connection connection, Query query, SQLConsumer<PreparedStatement> parameters, String column) throws SQLException {
+        List<Integer> codes = new ArrayList<>();
+        try (ResultSet resultSet = execute(connection, query, parameters)) {
+            while (resultSet.next()) {
+                codes.add(dictionary.encode(resultSet.getString(column)));
+            }
+        }
+        return codes.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static ResultSet execute(Connection connection, Query query, SQLConsumer<PreparedStatement> parameters) throws SQLException {
+        PreparedStatement statement = OracleDB.prepare(connection, query);
+        parameters.accept(statement);
+        return statement.executeQuery();
+    }
+
+    synchronized List<Film> films() throws SQLException {
+        return films(filmRows.values());
+    }
+
+    synchronized PageIndex filmPageKeys(int pageSize) {
+        return pageKeys(filmRows.keySet(), pageSize, key -> key);
+    }
+
+    synchronized List<Film> filmsPage(PageIndex.Key first, int pageSize) throws SQLException {
+        Object[] from = {first.getString(0), first.getInt(1)};
+        return films(limit(filmRows.tailMap(from, true).values(), pageSize));
+    }
+
+    synchronized List<Film> filmsByKeys(List<Object[]> keys) throws SQLException {
+        List<Integer> rows = new ArrayList<>(keys.size());
+        for (Object[] key : keys) {
+            Integer row = filmRows.get(key);
+            if (row != null)
+                rows.add(row);
+        }
+        return films(rows);
+    }
+
+    synchronized List<Track> tracks(IdentityMap identities) throws SQLException {
+        return tracks(trackRows.values(), identities);
+    }
+
+    synchronized PageIndex trackPageKeys(int pageSize) {
+        return pageKeys(trackRows.keySet(), pageSize, key -> new Object[]{(int) (key >>> 32), (int) (long) key});
+    }
+
+    synchronized List<Track> tracksPage(PageIndex.Key first, int pageSize, IdentityMap identities) throws SQLException {
+        long from = TrackLoader.key(first.getInt(0), first.getInt(1));
+        return tracks(limit(trackRows.tailMap(from, true).values(), pageSize), identities);
+    }
+
+    synchronized List<Track> tracksByKeys(List<Object[]> keys, IdentityMap identities) throws SQLException {
+        List<Integer> rows = new ArrayList<>(keys.size());
+        for (Object[] key : keys) {
+            Integer row = trackRows.get(TrackLoader.key((Integer) key[0], (Integer) key[1]));
+            if (row != null)
+                rows.add(row);
+        }
+        return tracks(rows, identities);
+    }
+
+    synchronized List<Album> albums(IdentityMap identities) throws SQLException {
+        List<Album> result = new ArrayList<>(albumRows.size());
+        for (int albumId : albumRows.keySet()) {
+            Album album = album(albumId, identities);
+            if (album != null)
+                result.add(album);
+        }
+        return result;
+    }
+
+    synchronized List<Artist> artists(IdentityMap identities) throws SQLException {
+        List<Artist> result = new ArrayList<>(artistRows.size());
+        for (int artistId : artistRows.keySet()) {
+            Artist artist = artist(artistId, identities);
+            if (artist != null)
+                result.add(artist);
+        }
+        return result;
+    }
+
+    private List<Film> films(Collection<Integer> rows) throws SQLException {
+        List<Film> result = new ArrayList<>(rows.size());
+        for (int row : rows) {
+            Film film = new Film().loadFromResultSet(films.row(row));
+            if (film == null)
+                continue;
+            for (int code : films.getCodes(row, "FILM_CATEGORY_NAME")) {
+                FilmCategory category = new FilmCategory().loadFromResultSet(value("FILM_CATEGORY_NAME", dictionary.decode(code)));
+                if (category != null)
+                    film.getFilmCategories().add(category);
+            }
+            result.add(film);
+        }
+        return result;
+    }
+
+    private List<Track> tracks(Collection<Integer> rows, IdentityMap identities) throws SQLException {
+        List<Track> result = new ArrayList<>(rows.size());
+        for (int row : rows) {
+            Track track = new Track().loadFromResultSet(tracks.row(row));
+            if (track == null)
+                continue;
+            track.setAlbum(album(track.getAlbumId(), identities));
+            for (int code : tracks.getCodes(row, "MUSIC_CATEGORY_NAME")) {
+                MusicCategory category = new MusicCategory().loadFromResultSet(value("MUSIC_CATEGORY_NAME", dictionary.decode(code)));
+                if (category != null)
+                    track.getTrackCategories().add(category);
+            }
+            int[] musicians = tracks.getCodes(row, MUSICIANS);
+            for (int i = 0; i < musicians.length; i += 2) {
+                Artist artist = artist(musicians[i], identities);
+                if (artist != null)
+                    track.getArtistsList().add(new Artist.Musician(artist, dictionary.decode(musicians[i + 1])));
+            }
+            result.add(track);
+        }
+        return result;
+    }
+
+    private Album album(int albumId, IdentityMap identities) throws SQLException {
+        Integer row = albumRows.get(albumId);
+        if (row == null)
+            return null;
+        return identities.resolve(Album.class, albumId, () -> {
+            Album album = new Album().loadFromResultSet(albums.row(row));
+            if (album == null)
+                return null;
+            for (int code : albums.getCodes(row, "MUSIC_CATEGORY_NAME")) {
+                AlbumCategory category = new AlbumCategory().loadFromResultSet(value("MUSIC_CATEGORY_NAME", dictionary.decode(code)));
+                if (category != null)
+                    album.getAlbumCatgeories().add(category);
+            }
+            return album;
+        });
+    }
+
+    private Artist artist(int artistId, IdentityMap identities) throws SQLException {
+        Integer row = artistRows.get(artistId);
+        if (row == null)
+            return null;
+        return identities.resolve(Artist.class, artistId, () -> new Artist().loadFromResultSet(artists.row(row)));
+    }
+
+    private static ResultSet value(String column, String value) {
+        return RowView.of(name -> name.equalsIgnoreCase(column) ? value : null);
+    }
+
+    private static <K> PageIndex pageKeys(Collection<K> keys, int pageSize, Function<K, Object[]> values) {
+        List<PageIndex.Key> firstKeys = new ArrayList<>();
+        int position = 0;
+        for (K key : keys) {
+            if (position++ % pageSize == 0)
+                firstKeys.add(new PageIndex.Key(values.apply(key)));
+        }
+        return new PageIndex(pageSize, keys.size(), firstKeys);
+    }
+
+    private static List<Integer> limit(Collection<Integer> rows, int size) {
+        List<Integer> limited = new ArrayList<>(Math.min(rows.size(), size));
+        for (int row : rows) {
+            if (limited.size() == size)
+                break;
+            limited.add(row);
+        }
+        return limited;
+    }
+
+    /**
+     * Rows and approximate heap size per row of every table. The dictionary is shared by all of them.
+     */
+    synchronized String getStatistics() {
+        StringBuilder s = new StringBuilder();
+        for (ColumnTable table : List.of(films, artists, albums, tracks)) {
+            int rows = table.getLiveRows();
+            s.append(String.format("%-32s rows=%d bytes/row=%d%n", table.getName(), rows, table.bytes() / Math.max(rows, 1)));
+        }
+        s.append(String.format("%-32s strings=%d bytes=%d%n", "dictionary", dictionary.size(), dictionary.bytes()));
+        s.append(String.format("%-32s loads=%d refreshed rows=%d%n", "refresh", loads.sum(), refreshedRows.sum()));
+        return s.toString();
+    }
+}
@@ -0,0 +1,120 @@
+package database;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Rows written by the application, in commit order. Changes are held back until the transaction commits
+ * and dropped if it rolls back, so readers only ever see committed changes.
+ * Only the last {@link #CAPACITY} changes are kept: readers that fell further behind must reload everything.
+ */
+public final class ChangeJournal {
+
+    public static final int CAPACITY = 10_000;
+
+    public enum Entity {
+        USER, MEDIA_FILE, ARTIST, FILM_CATEGORY, FILM, ALBUM, MUSIC_CATEGORY, TRACK
+    }
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    public static final class Change {
+        private final long sequence;
+        private final Entity entity;
+        private final Object[] key;
+        private final Type type;
+
+        private Change(long sequence, Entity entity, Object[] key, Type type) {
+            this.sequence = sequence;
+            this.entity = entity;
+            this.key = key;
+            this.type = type;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public Entity getEntity() {
+            return entity;
+        }
+
+        /**
+         * Primary key of the row, in the column order of its table.
+         */
+        public Object[] getKey() {
+            return key.clone();
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        public boolean isDeleted() {
+            return type == Type.DELETED;
+        }
+
+        @Override
+        public String toString() {
+            return sequence + " " + entity + Arrays.toString(key) + " " + type.name().toLowerCase();
+        }
+    }
+
+    private final List<Object[]> pending = new ArrayList<>();
+    private final Deque<Change> committed = new ArrayDeque<>();
+    private long lastSequence = 0;
+
+    synchronized void record(Entity entity, Type type, Object... key) {
+        pending.add(new Object[]{entity, key, type});
+    }
+
+    /**
+     * Records an update of the row that had the previous key: a row whose key changed is seen as deleted then created.
+     */
+    synchronized void recordUpdate(Entity entity, Object[] previousKey, Object... key) {
+        if (Arrays.equals(previousKey, key)) {
+            record(entity, Type.UPDATED, key);
+        } else {
+            record(entity, Type.DELETED, previousKey);
+            record(entity, Type.CREATED, key);
+        }
+    }
+
+    synchronized void commit() {
+        for (Object[] change : pending) {
+            committed.addLast(new Change(++lastSequence, (Entity) change[0], (Object[]) change[1], (Type) change[2]));
+            if (committed.size() > CAPACITY)
+                committed.removeFirst();
+        }
+        pending.clear();
+    }
+
+    synchronized void rollback() {
+        pending.clear();
+    }
+
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Committed changes with a sequence greater than the given one, or null if some of them were already discarded.
+     */
+    public synchronized List<Change> since(long sequence) {
+        if (sequence >= lastSequence)
+            return new ArrayList<>();
+        if (committed.isEmpty() || committed.getFirst().sequence > sequence + 1)
+            return null;
+        List<Change> changes = new ArrayList<>();
+        for (Change change : committed) {
+            if (change.sequence > sequence)
+                changes.add(change);
+        }
+        return changes;
+    }
+}
@@ -0,0 +1,215 @@
+package database;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rows of a table stored column by column in int arrays: strings are codes of a shared {@link Dictionary},
+ * dates are epoch days. A {@link Type#CODES} column holds a list of ints per row, for rows of a child table.
+ * Deleted rows are only marked as such, their slot isn't reused.
+ */
+final class ColumnTable {
+
+    static final int NULL = Integer.MIN_VALUE;
+    private static final int INITIAL_CAPACITY = 64;
+
+    enum Type {
+        INT, STRING, DATE, CODES
+    }
+
+    /**
+     * Strings of every table, each one stored once and identified by its code.
+     */
+    static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+        private long chars = 0;
+
+        int encode(String string) {
+            if (string == null)
+                return NULL;
+            Integer code = codes.get(string);
+            if (code == null) {
+                code = strings.size();
+                codes.put(string, code);
+                strings.add(string);
+                chars += string.length();
+            }
+            return code;
+        }
+
+        String decode(int code) {
+            return code == NULL ? null : strings.get(code);
+        }
+
+        int size() {
+            return strings.size();
+        }
+
+        /**
+         * Approximate heap size: the strings, their map entry and their list slot.
+         */
+        long bytes() {
+            return chars + strings.size() * (40L + 48L + 8L);
+        }
+    }
+
+    private final String name;
+    private final Dictionary dictionary;
+    private final Map<String, Integer> columnIndexes = new LinkedHashMap<>();
+    private final List<Type> types = new ArrayList<>();
+    private int[][] values = new int[0][];
+    private int[][][] lists = new int[0][][];
+    private final BitSet deleted = new BitSet();
+    private int capacity = INITIAL_CAPACITY;
+    private int size = 0;
+
+    ColumnTable(String name, Dictionary dictionary) {
+        this.name = name;
+        this.dictionary = dictionary;
+    }
+
+    ColumnTable column(String column, Type type) {
+        columnIndexes.put(column, types.size());
+        types.add(type);
+        values = Arrays.copyOf(values, types.size());
+        lists = Arrays.copyOf(lists, types.size());
+        if (type == Type.CODES)
+            lists[types.size() - 1] = new int[capacity][];
+        else
+            values[types.size() - 1] = new int[capacity];
+        return this;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    /**
+     * Appends a row read from the current row of the result set and returns its index.
+     */
+    int append(ResultSet resultSet) throws SQLException {
+        if (size == capacity) {
+            capacity *= 2;
+            for (int i = 0; i < types.size(); i++) {
+                if (types.get(i) == Type.CODES)
+                    lists[i] = Arrays.copyOf(lists[i], capacity);
+                else
+                    values[i] = Arrays.copyOf(values[i], capacity);
+            }
+        }
+        int row = size++;
+        read(row, resultSet);
+        return row;
+    }
+
+    /**
+     * Overwrites the scalar columns of a row with the current row of the result set.
+     */
+    void read(int row, ResultSet resultSet) throws SQLException {
+        for (Map.Entry<String, Integer> column : columnIndexes.entrySet()) {
+            int i = column.getValue();
+            switch (types.get(i)) {
+                case INT:
+                    int value = resultSet.getInt(column.getKey());
+                    values[i][row] = resultSet.wasNull() ? NULL : value;
+                    break;
+                case STRING:
+                    values[i][row] = dictionary.encode(resultSet.getString(column.getKey()));
+                    break;
+                case DATE:
+                    Date date = resultSet.getDate(column.getKey());
+                    values[i][row] = date == null ? NULL : (int) date.toLocalDate().toEpochDay();
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    void delete(int row) {
+        deleted.set(row);
+        for (int i = 0; i < types.size(); i++) {
+            if (types.get(i) == Type.CODES)
+                lists[i][row] = null;
+        }
+    }
+
+    int getInt(int row, String column) {
+        return values[columnIndexes.get(column)][row];
+    }
+
+    String getString(int row, String column) {
+        return dictionary.decode(values[columnIndexes.get(column)][row]);
+    }
+
+    int[] getCodes(int row, String column) {
+        int[] codes = lists[columnIndexes.get(column)][row];
+        return codes == null ? new int[0] : codes;
+    }
+
+    void setCodes(int row, String column, int[] codes) {
+        lists[columnIndexes.get(column)][row] = codes.length == 0 ? null : codes;
+    }
+
+    void addCodes(int row, String column, int... codes) {
+        int[] previous = getCodes(row, column);
+        int[] all = Arrays.copyOf(previous, previous.length + codes.length);
+        System.arraycopy(codes, 0, all, previous.length, codes.length);
+        setCodes(row, column, all);
+    }
+
+    /**
+     * The scalar columns of a row, seen as the current row of a result set so models can load themselves from it.
+     */
+    ResultSet row(int row) {
+        return RowView.of(column -> {
+            Integer i = columnIndexes.get(column.toUpperCase());
+            if (i == null)
+                throw new SQLException("No column " + column + " in " + name);
+            int value = values[i][row];
+            if (value == NULL)
+                return null;
+            switch (types.get(i)) {
+                case STRING:
+                    return dictionary.decode(value);
+                case DATE:
+                    return Date.valueOf(LocalDate.ofEpochDay(value));
+                default:
+                    return value;
+            }
+        });
+    }
+
+    int getLiveRows() {
+        return size - deleted.cardinality();
+    }
+
+    /**
+     * Approximate heap size of the columns, without the strings of the dictionary.
+     */
+    long bytes() {
+        long bytes = deleted.size() / 8;
+        for (int i = 0; i < types.size(); i++) {
+            if (types.get(i) != Type.CODES) {
+                bytes += 4L * capacity;
+                continue;
+            }
+            bytes += 8L * capacity;
+            for (int row = 0; row < size; row++) {
+                if (lists[i][row] != null)
+                    bytes += 16 + 4L * lists[i][row].length;
+            }
+        }
+        return bytes;
+    }
+}
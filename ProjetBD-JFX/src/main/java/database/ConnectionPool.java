@@ -0,0 +1,218 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Bounded pool of physical Oracle connections.
+ * Connections are validated when checked out and replaced transparently when the server dropped them.
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    private static final String BINARY_SESSION = "ALTER SESSION SET NLS_SORT = BINARY NLS_COMP = BINARY";
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int maxSize;
+    private final long maxWaitMillis;
+
+    private final BlockingDeque<Connection> idle = new LinkedBlockingDeque<>();
+    private final Semaphore permits;
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger opened = new AtomicInteger();
+    private final AtomicLong checkouts = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong longestWaitNanos = new AtomicLong();
+    private final AtomicLong discarded = new AtomicLong();
+
+    private Consumer<Connection> discardListener = connection -> {};
+    private volatile boolean closed = false;
+
+    public ConnectionPool(String url, String username, String password, int maxSize, long maxWaitMillis) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.maxWaitMillis = maxWaitMillis;
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    /**
+     * Opens connections until the pool is full, so the first queries of every tab don't pay the login cost.
+     * Fails with the driver exception if the credentials are wrong.
+     */
+    public void prewarm() throws SQLException {
+        while (opened.get() < maxSize) {
+            idle.offer(open());
+        }
+    }
+
+    public Connection checkout() throws SQLException {
+        if (closed)
+            throw new SQLException("Connection pool is closed");
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS))
+                throw new SQLTimeoutException("No connection available after " + maxWaitMillis + " ms (" + getStatistics() + ")");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection", e);
+        }
+        long waited = System.nanoTime() - start;
+        totalWaitNanos.addAndGet(waited);
+        longestWaitNanos.accumulateAndGet(waited, Math::max);
+        checkouts.incrementAndGet();
+
+        try {
+            Connection connection;
+            while ((connection = idle.pollFirst()) != null) {
+                if (isValid(connection))
+                    break;
+                discard(connection);
+            }
+            if (connection == null)
+                connection = open();
+            active.incrementAndGet();
+            return connection;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public void release(Connection connection) {
+        if (connection == null)
+            return;
+        active.decrementAndGet();
+        try {
+            if (closed || connection.isClosed()) {
+                discard(connection);
+            } else {
+                if (!connection.getAutoCommit()) {
+                    connection.rollback();
+                    connection.setAutoCommit(true);
+                }
+                idle.offerFirst(connection);
+            }
+        } catch (SQLException e) {
+            discard(connection);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Takes a connection out of the pool for good, eg. for a long-lived transaction.
+     * The permit is kept until {@link #release(Connection)} is called.
+     */
+    public Connection checkoutPinned() throws SQLException {
+        Connection connection = checkout();
+        connection.setAutoCommit(false);
+        return connection;
+    }
+
+    /**
+     * The thin driver derives NLS_SORT from the JVM locale, which makes ORDER BY linguistic under eg. a French
+     * locale while {@code <} and {@code >} stay binary. Keyset pages and export ranges need both to agree with
+     * each other and with {@link String} order, so every session sorts and compares in binary.
+     */
+    private Connection open() throws SQLException {
+        Connection connection = DriverManager.getConnection(url, username, password);
+        if ("Oracle".equals(connection.getMetaData().getDatabaseProductName())) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(BINARY_SESSION);
+            } catch (SQLException e) {
+                connection.close();
+                throw e;
+            }
+        }
+        opened.incrementAndGet();
+        return connection;
+    }
+
+    private boolean isValid(Connection connection) {
+        try {
+            return connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void discard(Connection connection) {
+        discarded.incrementAndGet();
+        opened.decrementAndGet();
+        discardListener.accept(connection);
+        try {
+            connection.close();
+        } catch (SQLException ignored) {}
+    }
+
+    /**
+     * Called with every connection right before it is closed by the pool.
+     */
+    public void setDiscardListener(Consumer<Connection> discardListener) {
+        this.discardListener = discardListener;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Connection connection;
+        while ((connection = idle.poll()) != null) {
+            discard(connection);
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getOpenedCount() {
+        return opened.get();
+    }
+
+    public long getCheckoutCount() {
+        return checkouts.get();
+    }
+
+    public double getAverageWaitMillis() {
+        long count = checkouts.get();
+        return count == 0 ? 0 : totalWaitNanos.get() / 1e6 / count;
+    }
+
+    public double getLongestWaitMillis() {
+        return longestWaitNanos.get() / 1e6;
+    }
+
+    public String getStatistics() {
+        return String.format(
+                "size=%d/%d active=%d idle=%d checkouts=%d avgWait=%.2fms maxWait=%.2fms discarded=%d",
+                opened.get(), maxSize, active.get(), idle.size(), checkouts.get(),
+                getAverageWaitMillis(), getLongestWaitMillis(), discarded.get()
+        );
+    }
+}
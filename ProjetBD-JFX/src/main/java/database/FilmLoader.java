@@ -0,0 +1,99 @@
+package database;
+
+import model.Film;
+import model.FilmCategory;
+import utils.SQLConsumer;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads films together with their categories in a fixed number of queries, whatever the number of films.
+ */
+class FilmLoader {
+
+    private static final SQLConsumer<PreparedStatement> NO_PARAMETERS = statement -> {};
+
+    private final Connection connection;
+    private int roundTrips = 0;
+
+    FilmLoader(Connection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * Loads films from a query returning the FILM columns joined with FILM_A_POUR_CAT.FILM_CATEGORY_NAME,
+     * one row per film and category (or a single row with a null category).
+     */
+    List<Film> loadJoined(Query query, SQLConsumer<PreparedStatement> parameters) throws SQLException {
+        Map<String, Film> films = new LinkedHashMap<>();
+        try (ResultSet resultSet = execute(query, parameters)) {
+            while (resultSet.next()) {
+                String key = key(resultSet.getString("FILM_TITLE"), resultSet.getInt("FILM_YEAR"));
+                Film film = films.get(key);
+                if (film == null) {
+                    film = new Film().loadFromResultSet(resultSet);
+                    films.put(key, film);
+                }
+                if (resultSet.getString("FILM_CATEGORY_NAME") != null)
+                    film.getFilmCategories().add(new FilmCategory().loadFromResultSet(resultSet));
+            }
+        }
+        return new ArrayList<>(films.values());
+    }
+
+    List<Film> loadJoined(Query query) throws SQLException {
+        return loadJoined(query, NO_PARAMETERS);
+    }
+
+    /**
+     * Reader grouping the rows of a query like {@link #loadJoined}, which must be ordered by film.
+     * A film is only returned once all its rows were read.
+     */
+    static RowStream.RowReader<Film> joinedReader() {
+        return new RowStream.RowReader<>() {
+            private Film current;
+            private String currentKey;
+
+            @Override
+            public Film read(ResultSet resultSet) throws SQLException {
+                String key = key(resultSet.getString("FILM_TITLE"), resultSet.getInt("FILM_YEAR"));
+                Film complete = null;
+                if (!key.equals(currentKey)) {
+                    complete = current;
+                    current = new Film().loadFromResultSet(resultSet);
+                    currentKey = key;
+                }
+                if (resultSet.getString("FILM_CATEGORY_NAME") != null)
+                    current.getFilmCategories().add(new FilmCategory().loadFromResultSet(resultSet));
+                return complete;
+            }
+
+            @Override
+            public Film finish() {
+                return current;
+            }
+        };
+    }
+
+    private ResultSet execute(Query query, SQLConsumer<PreparedStatement> parameters) throws SQLException {
+        PreparedStatement statement = OracleDB.prepare(connection, query);
+        parameters.accept(statement);
+        roundTrips++;
+        return statement.executeQuery();
+    }
+
+    int getRoundTrips() {
+        return roundTrips;
+    }
+
+    static String key(String title, int year) {
+        return title + '\u0000' + year;
+    }
+}
@@ -0,0 +1,102 @@
+package database;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.collections.ObservableList;
+
+import utils.RowSink;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sink filled by a background task and published to an observable list on the JavaFX thread.
+ * Rows added in between are coalesced into a single {@code addAll}, at most once per pulse.
+ */
+class FxCollector<T> implements RowSink<T> {
+
+    private static final LongAdder publishedRows = new LongAdder();
+    private static final LongAdder publishedEvents = new LongAdder();
+
+    private final ObservableList<? super T> target;
+    private final AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            publish();
+        }
+    };
+
+    private List<T> pending = new ArrayList<>();
+    private boolean scheduled = false;
+    private boolean completed = false;
+    private Runnable then;
+
+    FxCollector(ObservableList<? super T> target) {
+        this.target = target;
+    }
+
+    @Override
+    public synchronized void add(T item) {
+        pending.add(item);
+        schedule();
+    }
+
+    @Override
+    public synchronized void addAll(Collection<? extends T> items) {
+        if (items.isEmpty())
+            return;
+        pending.addAll(items);
+        schedule();
+    }
+
+    /**
+     * Marks the collector as complete: {@code then} runs on the JavaFX thread right after the last rows are published.
+     */
+    synchronized void complete(Runnable then) {
+        this.completed = true;
+        this.then = then;
+        schedule();
+    }
+
+    private void schedule() {
+        if (!scheduled) {
+            scheduled = true;
+            Platform.runLater(timer::start);
+        }
+    }
+
+    private void publish() {
+        List<T> chunk;
+        boolean done;
+        synchronized (this) {
+            chunk = pending;
+            pending = new ArrayList<>();
+            done = completed;
+            if (done || chunk.isEmpty()) {
+                timer.stop();
+                scheduled = false;
+            }
+        }
+        if (!chunk.isEmpty()) {
+            target.addAll(chunk);
+            publishedRows.add(chunk.size());
+            publishedEvents.increment();
+        }
+        if (done && then != null)
+            then.run();
+    }
+
+    /**
+     * Rows published so far and the change events they cost. Adding rows one by one costs one event per row.
+     */
+    static String getStatistics() {
+        long rows = publishedRows.sum();
+        long events = publishedEvents.sum();
+        return String.format(
+                "rows=%d events=%d (%.1f rows per event, %d events saved)",
+                rows, events, events == 0 ? 0D : (double) rows / events, rows - events
+        );
+    }
+}
@@ -0,0 +1,96 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * IDs handed out from memory in blocks reserved on the server: the sequence is incremented by the block size,
+ * so each NEXTVAL is the first ID of a block no other client gets. IDs of a block dropped when the application
+ * stops or of a cancelled dialog are lost, IDs are unique but not contiguous.
+ */
+final class IdAllocator {
+
+    static final String MEDIA_FILE = "MEDIA_FILE_ID_SEQ";
+    static final String ARTIST = "ARTIST_ID_SEQ";
+    static final String ALBUM = "ALBUM_ID_SEQ";
+    static final String TRACK = "TRACK_ID_SEQ";
+
+    private final String sequence;
+    private final Query nextBlock;
+    private final LongAdder blocks = new LongAdder();
+    private final LongAdder ids = new LongAdder();
+    private int blockSize = 0;
+    private int next = 0;
+    private int end = 0;
+
+    IdAllocator(String sequence) {
+        this.sequence = sequence;
+        this.nextBlock = nextBlock(sequence);
+    }
+
+    /**
+     * Returns the next ID, only reaching the server once the current block is used up.
+     */
+    synchronized int next(Connection connection) throws SQLException {
+        if (next == end) {
+            if (blockSize == 0)
+                blockSize = blockSize(connection, sequence);
+            next = nextValue(connection, nextBlock);
+            end = next + blockSize;
+            blocks.increment();
+        }
+        ids.increment();
+        return next++;
+    }
+
+    String getStatistics() {
+        return sequence + ": ids=" + ids.sum() + " blocks=" + blocks.sum() + " blockSize=" + blockSize;
+    }
+
+    /**
+     * Moves the sequence past IDs inserted without it, eg. by a bulk import keeping the IDs of its source.
+     * Temporarily increments it by a whole gap, at least a block so concurrent clients still get disjoint blocks.
+     */
+    static void advancePast(Connection connection, String sequence, int maxId) throws SQLException {
+        int blockSize = blockSize(connection, sequence);
+        Query nextBlock = nextBlock(sequence);
+        int following = nextValue(connection, nextBlock) + blockSize;
+        if (following > maxId)
+            return;
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER SEQUENCE " + sequence + " INCREMENT BY " + Math.max(blockSize, maxId + 1 - following));
+            try {
+                nextValue(connection, nextBlock);
+            } finally {
+                statement.execute("ALTER SEQUENCE " + sequence + " INCREMENT BY " + blockSize);
+            }
+        }
+    }
+
+    private static Query nextBlock(String sequence) {
+        return Query.register("NEXT_" + sequence, "SELECT " + sequence + ".NEXTVAL FROM DUAL");
+    }
+
+    private static int blockSize(Connection connection, String sequence) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(Query.GET_SEQUENCE_INCREMENT.getSql())) {
+            statement.setString(1, sequence);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (!resultSet.next())
+                    throw new SQLException("Sequence " + sequence + " doesn't exist, is the schema migrated?");
+                return resultSet.getInt(1);
+            }
+        }
+    }
+
+    private static int nextValue(Connection connection, Query nextBlock) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(nextBlock.getSql());
+             ResultSet resultSet = statement.executeQuery()) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+}
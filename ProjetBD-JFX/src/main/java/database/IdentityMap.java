@@ -0,0 +1,49 @@
+package database;
+
+import utils.SQLSupplier;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rows already materialized during a unit of work, by type and primary key.
+ * A row shared by many results is built once and the same instance is returned every time.
+ * Not thread-safe: each task has its own map.
+ */
+class IdentityMap {
+
+    private static final LongAdder materialized = new LongAdder();
+    private static final LongAdder reused = new LongAdder();
+
+    private final Map<Class<?>, Map<Object, Object>> instances = new HashMap<>();
+
+    /**
+     * Returns the instance of the given type with this key, materializing it if it wasn't seen yet.
+     * Materializers may return null to skip a row, in which case nothing is remembered.
+     */
+    <T> T resolve(Class<T> type, Object key, SQLSupplier<T> materializer) throws SQLException {
+        Map<Object, Object> ofType = instances.computeIfAbsent(type, t -> new HashMap<>());
+        Object instance = ofType.get(key);
+        if (instance != null) {
+            reused.increment();
+            return type.cast(instance);
+        }
+        T created = materializer.get();
+        if (created != null) {
+            materialized.increment();
+            ofType.put(key, created);
+        }
+        return created;
+    }
+
+    boolean contains(Class<?> type, Object key) {
+        Map<Object, Object> ofType = instances.get(type);
+        return ofType != null && ofType.containsKey(key);
+    }
+
+    static String getStatistics() {
+        return String.format("materialized=%d reused=%d", materialized.sum(), reused.sum());
+    }
+}
@@ -0,0 +1,306 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * In-memory inverted index of the films and tracks available in each language, with their categories and
+ * the recommended age of films, so the recommendation filters are answered with bitmap intersections.
+ * <p>
+ * Films and tracks are numbered with dense ordinals. A film is available in a language when one of its files has
+ * an audio or text flux in it, a track when one of its files has an audio flux in it. Each language keeps
+ * a count per ordinal of the files providing it, so deleting a file only clears the bits it was the last to provide.
+ */
+class LanguageIndex {
+
+    private static final class Bitmap {
+        private final BitSet bits = new BitSet();
+        private int[] counts = new int[64];
+
+        void increment(int ordinal) {
+            if (ordinal >= counts.length)
+                counts = Arrays.copyOf(counts, Math.max(ordinal + 1, counts.length * 2));
+            if (counts[ordinal]++ == 0)
+                bits.set(ordinal);
+        }
+
+        void decrement(int ordinal) {
+            if (ordinal < counts.length && counts[ordinal] > 0 && --counts[ordinal] == 0)
+                bits.clear(ordinal);
+        }
+    }
+
+    private static final class FileEntry {
+        private final Set<String> audioLanguages = new HashSet<>(2);
+        private final Set<String> textLanguages = new HashSet<>(2);
+        private final List<Integer> films = new ArrayList<>(1);
+        private final List<Integer> tracks = new ArrayList<>(1);
+
+        Set<String> filmLanguages() {
+            Set<String> languages = new HashSet<>(audioLanguages);
+            languages.addAll(textLanguages);
+            return languages;
+        }
+    }
+
+    private final Map<String, Integer> filmOrdinals = new HashMap<>();
+    private final List<String> filmTitles = new ArrayList<>();
+    private final List<Integer> filmYears = new ArrayList<>();
+    private final Map<Long, Integer> trackOrdinals = new HashMap<>();
+    private final List<Long> trackKeys = new ArrayList<>();
+
+    private final Map<Integer, FileEntry> files = new HashMap<>();
+    private final Map<String, Bitmap> filmLanguages = new HashMap<>();
+    private final Map<String, Bitmap> trackLanguages = new HashMap<>();
+    private final Map<String, BitSet> filmCategories = new HashMap<>();
+    private final Map<String, BitSet> trackCategories = new HashMap<>();
+    private final TreeMap<Integer, BitSet> filmsByAge = new TreeMap<>();
+    private final Map<Integer, Integer> filmAges = new HashMap<>();
+
+    /**
+     * Builds the index from the tables. The connection must see the uncommitted writes of the application,
+     * which are indexed as they happen.
+     */
+    static LanguageIndex build(Connection connection) throws SQLException {
+        LanguageIndex index = new LanguageIndex();
+        try (ResultSet resultSet = OracleDB.prepare(connection, Query.LIST_FILM_AGES).executeQuery()) {
+            while (resultSet.next()) {
+                int film = index.filmOrdinal(resultSet.getString("FILM_TITLE"), resultSet.getInt("FILM_YEAR"));
+                index.setFilmAge(film, resultSet.getInt("RECOMMENDED_AGE"));
+            }
+        }
+        try (ResultSet resultSet = OracleDB.prepare(connection, Query.LIST_FILM_CATEGORY_LINKS).executeQuery()) {
+            while (resultSet.next()) {
+                int film = index.filmOrdinal(resultSet.getString("FILM_TITLE"), resultSet.getInt("FILM_YEAR"));
+                index.filmCategories.computeIfAbsent(resultSet.getString("FILM_CATEGORY_NAME"), c -> new BitSet()).set(film);
+            }
+        }
+        try (ResultSet resultSet = OracleDB.prepare(connection, Query.LIST_TRACK_CATEGORIES).executeQuery()) {
+            while (resultSet.next()) {
+                int track = index.trackOrdinal(resultSet.getInt("ALBUM_ID"), resultSet.getInt("TRACK_ID"));
+                index.trackCategories.computeIfAbsent(resultSet.getString("MUSIC_CATEGORY_NAME"), c -> new BitSet()).set(track);
+            }
+        }
+        try (ResultSet resultSet = OracleDB.prepare(connection, Query.LIST_FILE_LANGUAGES).executeQuery()) {
+            while (resultSet.next()) {
+                FileEntry file = index.files.computeIfAbsent(resultSet.getInt("FILE_ID"), id -> new FileEntry());
+                if ("A".equals(resultSet.getString("KIND")))
+                    file.audioLanguages.add(resultSet.getString("LANGUAGE"));
+                else
+                    file.textLanguages.add(resultSet.getString("LANGUAGE"));
+            }
+        }
+        try (ResultSet resultSet = OracleDB.prepare(connection, Query.LIST_FILM_FILE_LINKS).executeQuery()) {
+            while (resultSet.next()) {
+                index.linkFileToFilm(resultSet.getInt("FILE_ID"), resultSet.getString("FILM_TITLE"), resultSet.getInt("FILM_YEAR"));
+            }
+        }
+        try (ResultSet resultSet = OracleDB.prepare(connection, Query.LIST_TRACK_FILE_LINKS).executeQuery()) {
+            while (resultSet.next()) {
+                index.linkFileToTrack(resultSet.getInt("FILE_ID"), resultSet.getInt("ALBUM_ID"), resultSet.getInt("TRACK_ID"));
+            }
+        }
+        return index;
+    }
+
+    // region Queries
+    /**
+     * Films of the category, available in the language and whose recommended age is at most {@code maxAge},
+     * ordered by title and year.
+     */
+    synchronized List<Object[]> findFilms(String language, String category, int maxAge) {
+        Bitmap available = filmLanguages.get(language);
+        BitSet inCategory = filmCategories.get(category);
+        if (available == null || inCategory == null)
+            return new ArrayList<>();
+        BitSet matches = (BitSet) available.bits.clone();
+        matches.and(inCategory);
+        BitSet allowed = new BitSet();
+        filmsByAge.headMap(maxAge, true).values().forEach(allowed::or);
+        matches.and(allowed);
+
+        List<Object[]> keys = new ArrayList<>(matches.cardinality());
+        matches.stream().forEach(film -> keys.add(new Object[]{filmTitles.get(film), filmYears.get(film)}));
+        keys.sort(Comparator.<Object[], String>comparing(key -> (String) key[0]).thenComparing(key -> (Integer) key[1]));
+        return keys;
+    }
+
+    /**
+     * Tracks of the category with an audio flux in the language, as {@code (album id, track id)}, in key order.
+     */
+    synchronized List<Object[]> findTracks(String language, String category) {
+        Bitmap available = trackLanguages.get(language);
+        BitSet inCategory = trackCategories.get(category);
+        if (available == null || inCategory == null)
+            return new ArrayList<>();
+        BitSet matches = (BitSet) available.bits.clone();
+        matches.and(inCategory);
+
+        List<Object[]> keys = new ArrayList<>(matches.cardinality());
+        matches.stream().mapToObj(trackKeys::get).sorted().forEach(key -> keys.add(new Object[]{(int) (key >>> 32), (int) (long) key}));
+        return keys;
+    }
+
+    synchronized Set<String> getLanguages() {
+        Set<String> languages = new HashSet<>(filmLanguages.keySet());
+        languages.addAll(trackLanguages.keySet());
+        return languages;
+    }
+    // endregion
+
+    // region Maintenance
+    synchronized void addFile(int fileId, Collection<String> audioLanguages, Collection<String> textLanguages) {
+        FileEntry file = files.computeIfAbsent(fileId, id -> new FileEntry());
+        Set<String> previousFilmLanguages = file.filmLanguages();
+        Set<String> previousTrackLanguages = new HashSet<>(file.audioLanguages);
+        file.audioLanguages.addAll(audioLanguages);
+        file.textLanguages.addAll(textLanguages);
+        for (String language : file.filmLanguages()) {
+            if (!previousFilmLanguages.contains(language))
+                file.films.forEach(film -> filmLanguages.computeIfAbsent(language, l -> new Bitmap()).increment(film));
+        }
+        for (String language : file.audioLanguages) {
+            if (!previousTrackLanguages.contains(language))
+                file.tracks.forEach(track -> trackLanguages.computeIfAbsent(language, l -> new Bitmap()).increment(track));
+        }
+    }
+
+    synchronized void renameFile(int previousId, int fileId) {
+        FileEntry file = files.remove(previousId);
+        if (file != null)
+            files.put(fileId, file);
+    }
+
+    synchronized void removeFile(int fileId) {
+        FileEntry file = files.remove(fileId);
+        if (file == null)
+            return;
+        for (String language : file.filmLanguages()) {
+            Bitmap bitmap = filmLanguages.get(language);
+            if (bitmap != null)
+                file.films.forEach(bitmap::decrement);
+        }
+        for (String language : file.audioLanguages) {
+            Bitmap bitmap = trackLanguages.get(language);
+            if (bitmap != null)
+                file.tracks.forEach(bitmap::decrement);
+        }
+    }
+
+    synchronized void linkFileToFilm(int fileId, String title, int year) {
+        FileEntry file = files.computeIfAbsent(fileId, id -> new FileEntry());
+        int film = filmOrdinal(title, year);
+        file.films.add(film);
+        for (String language : file.filmLanguages()) {
+            filmLanguages.computeIfAbsent(language, l -> new Bitmap()).increment(film);
+        }
+    }
+
+    synchronized void linkFileToTrack(int fileId, int albumId, int trackId) {
+        FileEntry file = files.computeIfAbsent(fileId, id -> new FileEntry());
+        int track = trackOrdinal(albumId, trackId);
+        file.tracks.add(track);
+        for (String language : file.audioLanguages) {
+            trackLanguages.computeIfAbsent(language, l -> new Bitmap()).increment(track);
+        }
+    }
+
+    /**
+     * Sets the recommended age and the categories of a film, adding it if needed.
+     */
+    synchronized void putFilm(String title, int year, int recommendedAge, Collection<String> categories) {
+        int film = filmOrdinal(title, year);
+        setFilmAge(film, recommendedAge);
+        filmCategories.values().forEach(films -> films.clear(film));
+        for (String category : categories) {
+            filmCategories.computeIfAbsent(category, c -> new BitSet()).set(film);
+        }
+    }
+
+    synchronized void renameFilm(String previousTitle, int previousYear, String title, int year) {
+        Integer film = filmOrdinals.remove(FilmLoader.key(previousTitle, previousYear));
+        if (film == null)
+            return;
+        filmOrdinals.put(FilmLoader.key(title, year), film);
+        filmTitles.set(film, title);
+        filmYears.set(film, year);
+    }
+
+    synchronized void removeFilm(String title, int year) {
+        Integer film = filmOrdinals.remove(FilmLoader.key(title, year));
+        if (film == null)
+            return;
+        // The ordinal is not reused, its files were deleted with the film
+        filmCategories.values().forEach(films -> films.clear(film));
+        filmsByAge.values().forEach(films -> films.clear(film));
+        filmAges.remove(film);
+        filmLanguages.values().forEach(bitmap -> bitmap.bits.clear(film));
+    }
+
+    synchronized void putTrack(int albumId, int trackId, Collection<String> categories) {
+        int track = trackOrdinal(albumId, trackId);
+        trackCategories.values().forEach(tracks -> tracks.clear(track));
+        for (String category : categories) {
+            trackCategories.computeIfAbsent(category, c -> new BitSet()).set(track);
+        }
+    }
+
+    synchronized void renameTrack(int previousAlbumId, int previousTrackId, int albumId, int trackId) {
+        Integer track = trackOrdinals.remove(TrackLoader.key(previousAlbumId, previousTrackId));
+        if (track == null)
+            return;
+        trackOrdinals.put(TrackLoader.key(albumId, trackId), track);
+        trackKeys.set(track, TrackLoader.key(albumId, trackId));
+    }
+
+    synchronized void removeTrack(int albumId, int trackId) {
+        Integer track = trackOrdinals.remove(TrackLoader.key(albumId, trackId));
+        if (track == null)
+            return;
+        trackCategories.values().forEach(tracks -> tracks.clear(track));
+        trackLanguages.values().forEach(bitmap -> bitmap.bits.clear(track));
+    }
+    // endregion
+
+    private int filmOrdinal(String title, int year) {
+        return filmOrdinals.computeIfAbsent(FilmLoader.key(title, year), key -> {
+            filmTitles.add(title);
+            filmYears.add(year);
+            return filmTitles.size() - 1;
+        });
+    }
+
+    private int trackOrdinal(int albumId, int trackId) {
+        long key = TrackLoader.key(albumId, trackId);
+        return trackOrdinals.computeIfAbsent(key, k -> {
+            trackKeys.add(key);
+            return trackKeys.size() - 1;
+        });
+    }
+
+    private void setFilmAge(int film, int age) {
+        Integer previous = filmAges.put(film, age);
+        if (previous != null)
+            filmsByAge.get(previous).clear(film);
+        filmsByAge.computeIfAbsent(age, a -> new BitSet()).set(film);
+    }
+
+    synchronized String getStatistics() {
+        return String.format(
+                "languages=%d films=%d tracks=%d files=%d",
+                getLanguages().size(), filmOrdinals.size(), trackOrdinals.size(), files.size()
+        );
+    }
+}
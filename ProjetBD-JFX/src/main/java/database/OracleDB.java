@@ -7,21 +7,69 @@ import javafx.collections.ObservableList;
 import javafx.util.Pair;
 import model.*;
 import oracle.jdbc.driver.OracleDriver;
+import utils.RowSink;
+import utils.SQLConsumer;
+import utils.SQLFunction;
 import utils.SQLRunnable;
 
+import java.io.IOException;
 import java.sql.*;
 import java.sql.Date;
 import java.util.*;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 public class OracleDB {
 
-    private static final ExecutorService executor = Executors.newFixedThreadPool(5);
-    private static Connection connection;
+    private static final int EXECUTOR_THREADS = 5;
+    private static final long POOL_MAX_WAIT_MILLIS = 10_000;
+    private static final int BATCH_SIZE = 500;
+
+    private static final ExecutorService executor = Executors.newFixedThreadPool(EXECUTOR_THREADS);
+    private static final ThreadLocal<Task> currentTask = new ThreadLocal<>();
+    private static final ReentrantLock transactionLock = new ReentrantLock();
+    private static ConnectionPool pool;
+    private static Connection transaction;
+    // Counts the writes, pending until the transaction commits or rolls back
+    private static final AtomicLong writes = new AtomicLong();
+    private static volatile boolean pendingWrites = false;
+    private static final Map<Connection, StatementCache> statementCaches = new ConcurrentHashMap<>();
+
+    private static final ReferenceCache<VideoCodec> videoCodecsCache = new ReferenceCache<>("VIDEO_CODEC", OracleDB::loadVideoCodecs);
+    private static final ReferenceCache<AudioCodec> audioCodecsCache = new ReferenceCache<>("AUDIO_CODEC", OracleDB::loadAudioCodecs);
+    private static final ReferenceCache<TextCodec> textCodecsCache = new ReferenceCache<>("TEXT_CODEC", OracleDB::loadTextCodecs);
+    private static final ReferenceCache<FilmCategory> filmCategoriesCache = new ReferenceCache<>("FILM_CATEGORY", OracleDB::loadFilmCategories);
+    private static final ReferenceCache<MusicCategory> musicCategoriesCache = new ReferenceCache<>("MUSIC_CATEGORY", OracleDB::loadMusicCategories);
+    private static final boolean LANGUAGE_INDEX_ENABLED = !"false".equals(System.getProperty("klex.languageIndex"));
+    private static volatile LanguageIndex languageIndex;
+    private static volatile SearchIndex searchIndex;
+    private static volatile PlayabilityIndex playabilityIndex;
+    private static volatile StorageAccounts storageAccounts;
+    // Bytes each user may add, unlimited when 0
+    private static final long STORAGE_QUOTA = Long.getLong("klex.storageQuota", 0);
+    private static final int SEARCH_LIMIT = 200;
+    private static final boolean REPLICA_ENABLED = "true".equals(System.getProperty("klex.replica"));
+    private static final boolean STATISTICS_ENABLED = "true".equals(System.getProperty("klex.statistics"));
+    // Migrating needs DDL rights, which clients don't have: the schema is normally migrated with the Migrator
+    private static final boolean MIGRATIONS_ENABLED = "true".equals(System.getProperty("klex.migrate"));
+    private static volatile CatalogReplica replica;
+    private static final ChangeJournal journal = new ChangeJournal();
+    private static final IdAllocator mediaFileIds = new IdAllocator(IdAllocator.MEDIA_FILE);
+    private static final IdAllocator artistIds = new IdAllocator(IdAllocator.ARTIST);
+    private static final IdAllocator albumIds = new IdAllocator(IdAllocator.ALBUM);
+    private static final IdAllocator trackIds = new IdAllocator(IdAllocator.TRACK);
+    private static final List<ReferenceCache<?>> referenceCaches = List.of(
+            videoCodecsCache, audioCodecsCache, textCodecsCache, filmCategoriesCache, musicCategoriesCache
+    );
 
     public static boolean checkForOracleDriver() {
         try {
@@ -35,12 +83,16 @@ public class OracleDB {
         }
     }
 
+    public static ConnectionPool createPool(String url, String username, String password) {
+        // one connection per executor thread, plus the one pinned for the transaction
+        return new ConnectionPool(url, username, password, EXECUTOR_THREADS + 1, POOL_MAX_WAIT_MILLIS);
+    }
+
     public static boolean attemptConnect() {
-        Optional<Connection> oConnection = new OracleConnectDialog().showAndWait();
-        if (oConnection.isPresent()) {
-            connection = oConnection.get();
+        Optional<ConnectionPool> oPool = new OracleConnectDialog().showAndWait();
+        if (oPool.isPresent()) {
             try {
-                connection.setAutoCommit(false);
+                connect(oPool.get());
                 return true;
             } catch (SQLException throwables) {
                 new ExceptionAlert(throwables).showAndWait();
@@ -53,34 +105,379 @@ public class OracleDB {
         }
     }
 
+    public static void connect(ConnectionPool connectionPool) throws SQLException {
+        pool = connectionPool;
+        pool.setDiscardListener(connection -> {
+            StatementCache cache = statementCaches.remove(connection);
+            if (cache != null)
+                cache.close();
+        });
+        if (MIGRATIONS_ENABLED)
+            migrate();
+        transaction = pool.checkoutPinned();
+    }
+
+    /**
+     * Brings the schema to the latest version before anything else runs, with {@code -Dklex.migrate=true}.
+     */
+    private static void migrate() throws SQLException {
+        Connection connection = pool.checkout();
+        try {
+            for (SchemaMigrations.Migration migration : new SchemaMigrations(connection).migrate())
+                System.out.println("Schema migrated to " + migration);
+        } catch (IOException e) {
+            throw new SQLException("Cannot read the schema migrations", e);
+        } finally {
+            pool.release(connection);
+        }
+    }
+
     public static void cleanup() {
-        if (connection != null) {
+        statementCaches.values().forEach(StatementCache::close);
+        statementCaches.clear();
+        if (transaction != null) {
             try {
-                connection.rollback();
-                connection.close();
+                transaction.rollback();
             } catch (SQLException ignored) {}
+            pool.release(transaction);
+            transaction = null;
+        }
+        if (pool != null) {
+            if (STATISTICS_ENABLED)
+                System.out.print(getStatistics());
+            pool.close();
         }
         executor.shutdownNow();
     }
 
+    /**
+     * Usage of the pool, caches and indexes since the connection, printed on exit with {@code -Dklex.statistics=true}.
+     */
+    public static String getStatistics() {
+        StringBuilder statistics = new StringBuilder();
+        statistics.append("Connection pool: ").append(pool.getStatistics()).append('\n');
+        statistics.append("Statement cache:\n").append(Query.getStatistics());
+        statistics.append("List population: ").append(FxCollector.getStatistics()).append('\n');
+        statistics.append("Reference data:\n");
+        referenceCaches.forEach(cache -> statistics.append(cache.getStatistics()).append('\n'));
+        statistics.append("Identity maps: ").append(IdentityMap.getStatistics()).append('\n');
+        statistics.append("ID allocation:\n");
+        for (IdAllocator allocator : List.of(mediaFileIds, artistIds, albumIds, trackIds))
+            statistics.append(allocator.getStatistics()).append('\n');
+        if (languageIndex != null)
+            statistics.append("Language index: ").append(languageIndex.getStatistics()).append('\n');
+        if (searchIndex != null)
+            statistics.append("Search index: ").append(searchIndex.getStatistics()).append('\n');
+        if (playabilityIndex != null)
+            statistics.append("Playability index: ").append(playabilityIndex.getStatistics()).append('\n');
+        if (storageAccounts != null)
+            statistics.append("Storage accounts: ").append(storageAccounts.getStatistics()).append('\n');
+        if (replica != null)
+            statistics.append("Catalog replica:\n").append(replica.getStatistics());
+        statistics.append("Read paths:\n").append(QueryTimings.getStatistics());
+        return statistics.toString();
+    }
+
     public static void commit() throws SQLException {
-        connection.commit();
+        transactionLock.lock();
+        try {
+            transaction.commit();
+            pendingWrites = false;
+            journal.commit();
+        } finally {
+            transactionLock.unlock();
+        }
     }
 
     public static void rollback() throws SQLException {
-        connection.rollback();
+        transactionLock.lock();
+        try {
+            // Rows written through the caches may be gone
+            referenceCaches.forEach(ReferenceCache::invalidate);
+            languageIndex = null;
+            searchIndex = null;
+            playabilityIndex = null;
+            storageAccounts = null;
+            journal.rollback();
+            transaction.rollback();
+            pendingWrites = false;
+        } finally {
+            transactionLock.unlock();
+        }
     }
 
-    public static void listUsers(List<User> users) throws SQLException {
-        Statement statement = connection.createStatement();
-        ResultSet resultSet = statement.executeQuery("SELECT * FROM KLEX_USER");
-        while (resultSet.next()) {
-            User user = new User().loadFromResultSet(resultSet);
-            if (user != null)
-                users.add(user);
+    /**
+     * Connection to use for reads: a pooled connection checked out for the duration of the current task,
+     * so concurrent tasks don't serialize on the same connection.
+     */
+    private static Connection connection() throws SQLException {
+        Task task = currentTask.get();
+        if (task == null)
+            return transaction;
+        if (task.lease == null)
+            task.lease = pool.checkout();
+        return task.lease;
+    }
+
+    /**
+     * Connection holding the pending transaction, used for every write.
+     * The current task keeps it locked until it ends so statements of concurrent tasks don't interleave.
+     */
+    private static Connection transaction() {
+        Connection connection = lockTransaction();
+        Task task = currentTask.get();
+        if (task != null)
+            // Rows materialized before a write may be stale
+            task.identities = null;
+        pendingWrites = true;
+        writes.incrementAndGet();
+        return connection;
+    }
+
+    /**
+     * Connection holding the pending transaction, locked for the current task like {@link #transaction()}
+     * but to read the pending writes rather than to write.
+     */
+    private static Connection lockTransaction() {
+        Task task = currentTask.get();
+        if (task != null && !task.holdsTransaction) {
+            transactionLock.lock();
+            task.holdsTransaction = true;
+        }
+        return transaction;
+    }
+
+    /**
+     * Identity map of the current unit of work: the current task, or a single call outside of any task.
+     */
+    static IdentityMap identities() {
+        Task task = currentTask.get();
+        if (task == null)
+            return new IdentityMap();
+        if (task.identities == null)
+            task.identities = new IdentityMap();
+        return task.identities;
+    }
+
+    private static <R> R runTask(Callable<R> callable) throws Exception {
+        if (currentTask.get() != null)
+            return callable.call();
+        Task task = new Task();
+        currentTask.set(task);
+        try {
+            return callable.call();
+        } finally {
+            currentTask.remove();
+            if (task.lease != null)
+                pool.release(task.lease);
+            if (task.holdsTransaction)
+                transactionLock.unlock();
         }
     }
 
+    /**
+     * Returns the cached prepared statement of the query for this connection, with its parameters cleared.
+     * Cached statements must not be closed by the caller.
+     */
+    static PreparedStatement prepare(Connection connection, Query query) throws SQLException {
+        return statementCaches.computeIfAbsent(connection, StatementCache::new).prepare(query);
+    }
+
+    /**
+     * Returns the current index, building and publishing it when there is none.
+     * The index must include the pending writes, which only the transaction sees: while there are none it is
+     * built from a pooled connection without locking the transaction, and published only if no write started
+     * in the meantime, since that write found no index to update. Otherwise it is built from the transaction,
+     * waiting for the task writing to end.
+     */
+    private static <T> T buildIndex(Supplier<T> current, SQLFunction<Connection, T> build, Consumer<T> publish) throws SQLException {
+        T index = current.get();
+        if (index != null)
+            return index;
+        long writesBefore = writes.get();
+        if (!pendingWrites) {
+            T built = build.apply(connection());
+            synchronized (OracleDB.class) {
+                index = current.get();
+                if (index == null && writes.get() == writesBefore) {
+                    publish.accept(built);
+                    index = built;
+                }
+            }
+            if (index != null)
+                return index;
+        }
+        Connection connection = lockTransaction();
+        synchronized (OracleDB.class) {
+            index = current.get();
+            if (index == null) {
+                index = build.apply(connection);
+                publish.accept(index);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Language index, built on first use and then kept up to date as writes happen. Dropped on rollback.
+     */
+    private static LanguageIndex languageIndex() throws SQLException {
+        return buildIndex(() -> languageIndex, LanguageIndex::build, built -> languageIndex = built);
+    }
+
+    /**
+     * Catalog replica brought up to date with the committed changes, or null when it is disabled.
+     * Built on first use from a pooled connection, so it never sees pending writes.
+     */
+    private static CatalogReplica replica() throws SQLException {
+        if (!REPLICA_ENABLED)
+            return null;
+        Connection connection = connection();
+        synchronized (OracleDB.class) {
+            CatalogReplica current = replica;
+            current = current == null ? CatalogReplica.load(connection, journal) : current.refresh(connection, journal);
+            replica = current;
+            return current;
+        }
+    }
+
+    /**
+     * Rows written by committed transactions, most recent last.
+     */
+    public static ChangeJournal getJournal() {
+        return journal;
+    }
+
+    private static void updateLanguageIndex(Consumer<LanguageIndex> update) {
+        LanguageIndex index = languageIndex;
+        if (index != null)
+            update.accept(index);
+    }
+
+    /**
+     * Search index, built and maintained like the {@link #languageIndex() language index}.
+     */
+    private static SearchIndex searchIndex() throws SQLException {
+        return buildIndex(() -> searchIndex, SearchIndex::build, built -> searchIndex = built);
+    }
+
+    private static void updateSearchIndex(Consumer<SearchIndex> update) {
+        SearchIndex index = searchIndex;
+        if (index != null)
+            update.accept(index);
+    }
+
+    /**
+     * Playability index, built and maintained like the {@link #languageIndex() language index}.
+     */
+    private static PlayabilityIndex playabilityIndex() throws SQLException {
+        return buildIndex(() -> playabilityIndex, PlayabilityIndex::build, built -> playabilityIndex = built);
+    }
+
+    private static void updatePlayabilityIndex(Consumer<PlayabilityIndex> update) {
+        PlayabilityIndex index = playabilityIndex;
+        if (index != null)
+            update.accept(index);
+    }
+
+    /**
+     * Storage used by each user, built and maintained like the {@link #languageIndex() language index}.
+     */
+    private static StorageAccounts storageAccounts() throws SQLException {
+        return buildIndex(() -> storageAccounts, StorageAccounts::build, built -> storageAccounts = built);
+    }
+
+    private static void updateStorageAccounts(Consumer<StorageAccounts> update) {
+        StorageAccounts accounts = storageAccounts;
+        if (accounts != null)
+            update.accept(accounts);
+    }
+
+    public static StorageAccounts.Usage getStorageUsage(String userEmail) throws SQLException {
+        return storageAccounts().getUsage(userEmail);
+    }
+
+    private static void loadStorageUsage(List<User> users) throws SQLException {
+        StorageAccounts accounts = storageAccounts();
+        for (User user : users)
+            user.setStorageUsage(accounts.getUsage(user.getEmail()));
+    }
+
+    /**
+     * Fails when adding {@code bytes} to the storage of the user would exceed {@code -Dklex.storageQuota}.
+     */
+    private static void checkStorageQuota(String userEmail, long bytes) throws SQLException {
+        if (STORAGE_QUOTA > 0 && bytes > 0 && !storageAccounts().fits(userEmail, bytes, STORAGE_QUOTA))
+            throw new SQLException("Storage quota of " + STORAGE_QUOTA + " bytes exceeded for " + userEmail);
+    }
+
+    /**
+     * Binds a batch of two-column keys to a query using {@link Query#KEY_BATCH} key slots.
+     */
+    private static void bindKeys(PreparedStatement statement, List<Object[]> keys) throws SQLException {
+        for (int i = 0; i < Query.KEY_BATCH; i++) {
+            Object[] key = keys.get(Math.min(i, keys.size() - 1));
+            statement.setObject(2 * i + 1, key[0]);
+            statement.setObject(2 * i + 2, key[1]);
+        }
+    }
+
+    public static ConnectionPool getPool() {
+        return pool;
+    }
+
+    public static void listUsers(RowSink<User> users) throws SQLException {
+        try (ResultSet resultSet = prepare(connection(), Query.LIST_USERS).executeQuery()) {
+            while (resultSet.next()) {
+                User user = new User().loadFromResultSet(resultSet);
+                if (user != null)
+                    users.add(user);
+            }
+        }
+    }
+
+    /**
+     * Reads the first key of every page of {@code pageSize} rows from a query returning the key columns
+     * followed by the total row count, see {@link Query#LIST_USER_PAGE_KEYS}.
+     */
+    private static PageIndex listPageKeys(Query query, int pageSize, int keyColumns) throws SQLException {
+        PreparedStatement statement = prepare(connection(), query);
+        statement.setInt(1, pageSize);
+        List<PageIndex.Key> firstKeys = new ArrayList<>();
+        int size = 0;
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                Object[] key = new Object[keyColumns];
+                for (int i = 0; i < keyColumns; i++) {
+                    key[i] = resultSet.getObject(i + 1);
+                }
+                firstKeys.add(new PageIndex.Key(key));
+                size = resultSet.getInt(keyColumns + 1);
+            }
+        }
+        return new PageIndex(pageSize, size, firstKeys);
+    }
+
+    public static PageIndex listUserPageKeys(int pageSize) throws SQLException {
+        return listPageKeys(Query.LIST_USER_PAGE_KEYS, pageSize, 1);
+    }
+
+    public static List<User> listUsersPage(PageIndex.Key first, int pageSize) throws SQLException {
+        PreparedStatement statement = prepare(connection(), Query.LIST_USERS_PAGE);
+        statement.setString(1, first.getString(0));
+        statement.setInt(2, pageSize);
+        List<User> users = new ArrayList<>();
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                User user = new User().loadFromResultSet(resultSet);
+                if (user != null)
+                    users.add(user);
+            }
+        }
+        loadStorageUsage(users);
+        return users;
+    }
+
     private static void loadUserParameters(PreparedStatement statement, User user) throws SQLException {
         statement.setString(1, user.getEmail());
         statement.setString(2, user.getFirstName());
@@ -91,162 +488,272 @@ public class OracleDB {
     }
 
     public static void addUser(User user) throws SQLException {
-        PreparedStatement statement = connection.prepareStatement(
-                "INSERT INTO KLEX_USER VALUES (?, ?, ?, ?, ?, ?)"
-        );
+        PreparedStatement statement = prepare(transaction(), Query.ADD_USER);
         loadUserParameters(statement, user);
         statement.executeUpdate();
+        journal.record(ChangeJournal.Entity.USER, ChangeJournal.Type.CREATED, user.getEmail());
     }
 
     public static void updateUser(String previousEmail, User user) throws SQLException {
-        PreparedStatement statement = connection.prepareStatement(
-                "UPDATE KLEX_USER SET EMAIL = ?, FIRST_NAME = ?, LAST_NAME = ?, AGE = ?, ACCESS_CODE = ?, PREFERRED_LANGUAGE = ? WHERE EMAIL = ?"
-        );
+        PreparedStatement statement = prepare(transaction(), Query.UPDATE_USER);
         loadUserParameters(statement, user);
         statement.setString(7, previousEmail);
         statement.executeUpdate();
+        journal.recordUpdate(ChangeJournal.Entity.USER, new Object[]{previousEmail}, user.getEmail());
     }
 
     public static void deleteUser(User user) throws SQLException {
-        PreparedStatement statement = connection.prepareStatement(
-                "DELETE KLEX_USER WHERE EMAIL = ?"
-        );
+        PreparedStatement statement = prepare(transaction(), Query.DELETE_USER);
         statement.setString(1, user.getEmail());
         statement.executeUpdate();
+        journal.record(ChangeJournal.Entity.USER, ChangeJournal.Type.DELETED, user.getEmail());
     }
 
-    public static void listFilmCategories(List<FilmCategory> filmCategories) throws SQLException {
-        Statement statement = connection.createStatement();
-        ResultSet resultSet = statement.executeQuery("SELECT * FROM FILM_CATEGORY");
-        while (resultSet.next()) {
-            FilmCategory filmCategory = new FilmCategory().loadFromResultSet(resultSet);
-            if (filmCategory != null)
-                filmCategories.add(filmCategory);
-        }
+    public static void listFilmCategories(RowSink<FilmCategory> filmCategories) throws SQLException {
+        filmCategories.addAll(filmCategoriesCache.get());
     }
 
-    public static void listFilmCategories(Film film) throws SQLException {
-        PreparedStatement statement = connection.prepareStatement(
-                "SELECT * FROM FILM_A_POUR_CAT WHERE FILM_TITLE = ? AND FILM_YEAR = ?"
-        );
-        statement.setString(1, film.getTitle());
-        statement.setInt(2, film.getYear());
-        ResultSet resultSet = statement.executeQuery();
-        while (resultSet.next()) {
-            FilmCategory filmCategory = new FilmCategory().loadFromResultSet(resultSet);
-            if (filmCategory != null)
-                film.getFilmCategories().add(filmCategory);
+    private static void loadFilmCategories(List<FilmCategory> filmCategories) throws SQLException {
+        try (ResultSet resultSet = prepare(connection(), Query.LIST_FILM_CATEGORIES).executeQuery()) {
+            while (resultSet.next()) {
+                FilmCategory filmCategory = new FilmCategory().loadFromResultSet(resultSet);
+                if (filmCategory != null)
+                    filmCategories.add(filmCategory);
+            }
         }
     }
 
-    private static void loadMediaFileParameters(PreparedStatement statement, MediaFile file) throws SQLException {
+    static void loadMediaFileParameters(PreparedStatement statement, MediaFile file) throws SQLException {
         statement.setInt(1, file.getId());
         statement.setInt(2, file.getSize());
         statement.setDate(3, file.getAddedDate());
         statement.setString(4, file.getUserEmail());
     }
-    
+
     public static void addMediaFile(MediaFile file) throws SQLException {
-        PreparedStatement statement = connection.prepareStatement(
-                "INSERT INTO MEDIA_FILE VALUES (?, ?, ?, ?)"
-        );
-        loadMediaFileParameters(statement, file);
-        statement.executeUpdate();
-        for (Flux<?> flux : file.getFlux()) {
-            statement = connection.prepareStatement("INSERT INTO FLUX VALUES (?, ?, ?)");
-            statement.setInt(1, file.getId());
-            statement.setInt(2, flux.getFluxId());
-            statement.setInt(3, flux.getDataRate());
-            statement.executeUpdate();
-            if (flux instanceof VideoFlux) {
-                VideoFlux videoFlux = (VideoFlux) flux;
-                statement = connection.prepareStatement("INSERT INTO VIDEO_FLUX VALUES (?, ?, ?, ?, ?, ?)");
-                statement.setInt(1, file.getId());
-                statement.setInt(2, videoFlux.getFluxId());
-                statement.setString(3, videoFlux.getVideoCodecName());
-                statement.setInt(4, videoFlux.getWidth());
-                statement.setInt(5, videoFlux.getHeight());
-                statement.setInt(6, videoFlux.getDataRate());
-                statement.executeUpdate();
-            } else if (flux instanceof AudioFlux) {
-                AudioFlux audioFlux = (AudioFlux) flux;
-                statement = connection.prepareStatement("INSERT INTO AUDIO_FLUX VALUES (?, ?, ?, ?, ?, ?)");
-                statement.setInt(1, file.getId());
-                statement.setInt(2, audioFlux.getFluxId());
-                statement.setString(3, audioFlux.getAudioCodecName());
-                statement.setInt(4, audioFlux.getSampling());
-                statement.setString(5, audioFlux.getLanguage());
-                statement.setInt(6, audioFlux.getDataRate());
-                statement.executeUpdate();
-            } else if (flux instanceof TextFlux) {
-                TextFlux textFlux = (TextFlux) flux;
-                statement = connection.prepareStatement("INSERT INTO TEXT_FLUX VALUES (?, ?, ?, ?, ?)");
-                statement.setInt(1, file.getId());
-                statement.setInt(2, textFlux.getFluxId());
-                statement.setString(3, textFlux.getTextCodecName());
-                statement.setString(4, textFlux.getLanguage());
-                statement.setInt(5, textFlux.getDataRate());
-                statement.executeUpdate();
+        addMediaFiles(Collections.singletonList(file));
+    }
+
+    public static int nextMediaFileId() throws SQLException {
+        return mediaFileIds.next(connection());
+    }
+
+    /**
+     * Inserts the files and all their flux with one JDBC batch per table, flushed every {@link #BATCH_SIZE} rows.
+     * Returns the number of round trips used.
+     */
+    public static int addMediaFiles(Collection<MediaFile> files) throws SQLException {
+        if (STORAGE_QUOTA > 0) {
+            Map<String, Long> added = new HashMap<>();
+            files.forEach(file -> added.merge(file.getUserEmail(), (long) file.getSize(), Long::sum));
+            for (Map.Entry<String, Long> entry : added.entrySet())
+                checkStorageQuota(entry.getKey(), entry.getValue());
+        }
+        Connection connection = transaction();
+        PreparedStatement fileStatement = prepare(connection, Query.ADD_MEDIA_FILE);
+        PreparedStatement fluxStatement = prepare(connection, Query.ADD_FLUX);
+        PreparedStatement videoStatement = prepare(connection, Query.ADD_VIDEO_FLUX);
+        PreparedStatement audioStatement = prepare(connection, Query.ADD_AUDIO_FLUX);
+        PreparedStatement textStatement = prepare(connection, Query.ADD_TEXT_FLUX);
+        StatementBatch batch = new StatementBatch(BATCH_SIZE,
+                fileStatement, fluxStatement, videoStatement, audioStatement, textStatement);
+        try {
+            for (MediaFile file : files) {
+                loadMediaFileParameters(fileStatement, file);
+                batch.add(fileStatement);
+                if (file.getFlux() != null) {
+                    for (Flux<?> flux : file.getFlux())
+                        addFlux(batch, fluxStatement, videoStatement, audioStatement, textStatement, file.getId(), flux);
+                }
+                batch.flushIfFull();
             }
+            batch.flush();
+        } catch (SQLException | RuntimeException e) {
+            batch.clear();
+            throw e;
+        }
+        for (MediaFile file : files) {
+            journal.record(ChangeJournal.Entity.MEDIA_FILE, ChangeJournal.Type.CREATED, file.getId());
+        }
+        updateLanguageIndex(index -> {
+            for (MediaFile file : files) {
+                List<String> audioLanguages = new ArrayList<>();
+                List<String> textLanguages = new ArrayList<>();
+                if (file.getFlux() != null) {
+                    for (Flux<?> flux : file.getFlux()) {
+                        if (flux instanceof AudioFlux)
+                            audioLanguages.add(((AudioFlux) flux).getLanguage());
+                        else if (flux instanceof TextFlux)
+                            textLanguages.add(((TextFlux) flux).getLanguage());
+                    }
+                }
+                index.addFile(file.getId(), audioLanguages, textLanguages);
+            }
+        });
+        updateStorageAccounts(accounts -> files.forEach(file -> accounts.addFile(file.getId(), file.getUserEmail(), file.getSize())));
+        updatePlayabilityIndex(index -> {
+            for (MediaFile file : files) {
+                index.addFile(file.getId());
+                if (file.getFlux() == null)
+                    continue;
+                for (Flux<?> flux : file.getFlux()) {
+                    if (flux instanceof VideoFlux) {
+                        VideoFlux videoFlux = (VideoFlux) flux;
+                        index.addVideoFlux(file.getId(), videoFlux.getVideoCodecName(), videoFlux.getWidth(), videoFlux.getHeight());
+                    }
+                }
+            }
+        });
+        return batch.getRoundTrips();
+    }
+
+    /**
+     * Adds a flux to the batch: its row in FLUX, then in the table of its kind.
+     */
+    static void addFlux(StatementBatch batch, PreparedStatement fluxStatement, PreparedStatement videoStatement,
+                        PreparedStatement audioStatement, PreparedStatement textStatement,
+                        int fileId, Flux<?> flux) throws SQLException {
+        fluxStatement.setInt(1, fileId);
+        fluxStatement.setInt(2, flux.getFluxId());
+        fluxStatement.setInt(3, flux.getDataRate());
+        batch.add(fluxStatement);
+        if (flux instanceof VideoFlux) {
+            VideoFlux videoFlux = (VideoFlux) flux;
+            videoStatement.setInt(1, fileId);
+            videoStatement.setInt(2, videoFlux.getFluxId());
+            videoStatement.setString(3, videoFlux.getVideoCodecName());
+            videoStatement.setInt(4, videoFlux.getWidth());
+            videoStatement.setInt(5, videoFlux.getHeight());
+            videoStatement.setInt(6, videoFlux.getDataRate());
+            batch.add(videoStatement);
+        } else if (flux instanceof AudioFlux) {
+            AudioFlux audioFlux = (AudioFlux) flux;
+            audioStatement.setInt(1, fileId);
+            audioStatement.setInt(2, audioFlux.getFluxId());
+            audioStatement.setString(3, audioFlux.getAudioCodecName());
+            audioStatement.setInt(4, audioFlux.getSampling());
+            audioStatement.setString(5, audioFlux.getLanguage());
+            audioStatement.setInt(6, audioFlux.getDataRate());
+            batch.add(audioStatement);
+        } else if (flux instanceof TextFlux) {
+            TextFlux textFlux = (TextFlux) flux;
+            textStatement.setInt(1, fileId);
+            textStatement.setInt(2, textFlux.getFluxId());
+            textStatement.setString(3, textFlux.getTextCodecName());
+            textStatement.setString(4, textFlux.getLanguage());
+            textStatement.setInt(5, textFlux.getDataRate());
+            batch.add(textStatement);
         }
     }
 
     public static void updateMediaFile(int previousId, MediaFile file) throws SQLException {
-        PreparedStatement statement = connection.prepareStatement(
-                "UPDATE MEDIA_FILE SET FILE_ID = ?, FILE_SIZE = ?, ADDED_DATE = ?, USER_EMAIL = ? WHERE FILE_ID = ?"
-        );
+        if (STORAGE_QUOTA > 0)
+            checkStorageQuota(file.getUserEmail(), file.getSize() - storageAccounts().getFileBytes(previousId, file.getUserEmail()));
+        PreparedStatement statement = prepare(transaction(), Query.UPDATE_MEDIA_FILE);
         loadMediaFileParameters(statement, file);
         statement.setInt(5, previousId);
         statement.executeUpdate();
+        journal.recordUpdate(ChangeJournal.Entity.MEDIA_FILE, new Object[]{previousId}, file.getId());
+        updateStorageAccounts(accounts -> accounts.updateFile(previousId, file.getId(), file.getUserEmail(), file.getSize()));
+        if (previousId != file.getId()) {
+            updateLanguageIndex(index -> index.renameFile(previousId, file.getId()));
+            updatePlayabilityIndex(index -> index.renameFile(previousId, file.getId()));
+        }
     }
 
     public static void deleteMediaFile(MediaFile file) throws SQLException {
-        PreparedStatement statement = connection.prepareStatement(
-                "DELETE MEDIA_FILE WHERE FILE_ID = ?"
-        );
+        PreparedStatement statement = prepare(transaction(), Query.DELETE_MEDIA_FILE);
         statement.setInt(1, file.getId());
         statement.executeUpdate();
-    }
-
-    public static void listFilms(List<Film> films) throws SQLException {
-        Statement statement = connection.createStatement();
-        ResultSet resultSet = statement.executeQuery("SELECT * FROM FILM");
-        while (resultSet.next()) {
-            Film film = new Film().loadFromResultSet(resultSet);
-            if (film != null)
-                films.add(film);
+        journal.record(ChangeJournal.Entity.MEDIA_FILE, ChangeJournal.Type.DELETED, file.getId());
+        updateLanguageIndex(index -> index.removeFile(file.getId()));
+        updatePlayabilityIndex(index -> index.removeFile(file.getId()));
+        updateStorageAccounts(accounts -> accounts.removeFile(file.getId()));
+    }
+
+    /**
+     * Snapshot of the committed flux for stream planning, it doesn't follow later changes.
+     */
+    public static StreamPlanner loadStreamPlanner() throws SQLException {
+        return StreamPlanner.load(connection());
+    }
+
+    /**
+     * IDs of the media files the client of the brand and model can play, in ascending order,
+     * from the playability index. Empty when there is no such client.
+     */
+    public static List<Integer> listPlayableFileIds(String brand, String model) throws SQLException {
+        PlayabilityIndex index = playabilityIndex();
+        return QueryTimings.time("LIST_PLAYABLE_FILES index", () -> index.findPlayableFiles(brand, model));
+    }
+
+    /**
+     * Loads every film with its categories in a single query. Returns the number of round trips used.
+     */
+    public static int listFilms(RowSink<Film> films) throws SQLException {
+        CatalogReplica replica = replica();
+        if (replica != null) {
+            films.addAll(QueryTimings.time("LIST_FILMS replica", replica::films));
+            return 0;
         }
-    }
-
-    public static void listFilmArtists(Film film, List<Artist> artists) throws SQLException {
-        PreparedStatement statement = connection.prepareStatement(
-                "SELECT ARTIST.* FROM PARTICIPE_AU_FILM PAF " +
-                        "INNER JOIN ARTIST on ARTIST.ARTIST_ID = PAF.ARTIST_ID " +
-                        "WHERE FILM_TITLE = ? AND FILM_YEAR = ?"
-        );
+        FilmLoader loader = new FilmLoader(connection());
+        films.addAll(QueryTimings.time("LIST_FILMS jdbc", () -> loader.loadJoined(Query.LIST_FILMS)));
+        return loader.getRoundTrips();
+    }
+
+    public static PageIndex listFilmPageKeys(int pageSize) throws SQLException {
+        CatalogReplica replica = replica();
+        if (replica != null)
+            return replica.filmPageKeys(pageSize);
+        return listPageKeys(Query.LIST_FILM_PAGE_KEYS, pageSize, 2);
+    }
+
+    public static List<Film> listFilmsPage(PageIndex.Key first, int pageSize) throws SQLException {
+        CatalogReplica replica = replica();
+        if (replica != null)
+            return QueryTimings.time("LIST_FILMS_PAGE replica", () -> replica.filmsPage(first, pageSize));
+        return QueryTimings.time("LIST_FILMS_PAGE jdbc", () -> new FilmLoader(connection()).loadJoined(Query.LIST_FILMS_PAGE, statement -> {
+            statement.setString(1, first.getString(0));
+            statement.setString(2, first.getString(0));
+            statement.setInt(3, first.getInt(1));
+            statement.setInt(4, pageSize);
+        }));
+    }
+
+    /**
+     * Streams every film with its categories into the list, see {@link RowStream}.
+     */
+    public static RowStream<Film> streamFilms(List<Film> films, Runnable then, Consumer<Exception> onError) {
+        if (REPLICA_ENABLED)
+            return stream(stream -> stream.readAll(replica().films()), films, then, onError);
+        return stream(Query.LIST_FILMS, statement -> {}, FilmLoader.joinedReader(), films, then, onError);
+    }
+
+    public static void listFilmArtists(Film film, RowSink<Artist> artists) throws SQLException {
+        IdentityMap identities = identities();
+        PreparedStatement statement = prepare(connection(), Query.LIST_FILM_ARTISTS);
         statement.setString(1, film.getTitle());
         statement.setInt(2, film.getYear());
-        ResultSet resultSet = statement.executeQuery();
-        while (resultSet.next()) {
-            Artist artist = new Artist().loadFromResultSet(resultSet);
-            if (artist != null)
-                artists.add(artist);
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                Artist artist = resolveArtist(identities, resultSet);
+                if (artist != null)
+                    artists.add(artist);
+            }
         }
     }
 
-    public static void listFilmActors(Film film, List<Artist> actors) throws SQLException {
-        PreparedStatement statement = connection.prepareStatement(
-                "SELECT ARTIST.*, JR.CHARACTER_NAME FROM JOUE_ROLE JR " +
-                        "INNER JOIN ARTIST on ARTIST.ARTIST_ID = JR.ARTIST_ID " +
-                        "WHERE FILM_TITLE = ? AND FILM_YEAR = ?"
-        );
+    public static void listFilmActors(Film film, RowSink<Artist> actors) throws SQLException {
+        IdentityMap identities = identities();
+        PreparedStatement statement = prepare(connection(), Query.LIST_FILM_ACTORS);
         statement.setString(1, film.getTitle());
         statement.setInt(2, film.getYear());
-        ResultSet resultSet = statement.executeQuery();
-        while (resultSet.next()) {
-            Artist.Actor actor = (Artist.Actor) new Artist.Actor(resultSet.getString("CHARACTER_NAME")).loadFromResultSet(resultSet);
-            if (actor != null)
-                actors.add(actor);
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                Artist artist = resolveArtist(identities, resultSet);
+                if (artist != null)
+                    actors.add(new Artist.Actor(artist, resultSet.getString("CHARACTER_NAME")));
+            }
         }
     }
 
@@ -259,51 +766,76 @@ public class OracleDB {
         statement.setString(6, artist.getBiography());
     }
 
-    public static void listArtists(List<Artist> artists) throws SQLException {
-        Statement statement = connection.createStatement();
-        ResultSet resultSet = statement.executeQuery("SELECT * FROM ARTIST");
-        while (resultSet.next()) {
-            Artist artist = new Artist().loadFromResultSet(resultSet);
-            if (artist != null)
-                artists.add(artist);
+    /**
+     * Returns the artist of the current row, materialized only once per unit of work.
+     */
+    static Artist resolveArtist(IdentityMap identities, ResultSet resultSet) throws SQLException {
+        return identities.resolve(Artist.class, resultSet.getInt("ARTIST_ID"), () -> new Artist().loadFromResultSet(resultSet));
+    }
+
+    public static void listArtists(RowSink<Artist> artists) throws SQLException {
+        IdentityMap identities = identities();
+        CatalogReplica replica = replica();
+        if (replica != null) {
+            artists.addAll(QueryTimings.time("LIST_ARTISTS replica", () -> replica.artists(identities)));
+            return;
         }
+        artists.addAll(QueryTimings.time("LIST_ARTISTS jdbc", () -> {
+            List<Artist> result = new ArrayList<>();
+            try (ResultSet resultSet = prepare(connection(), Query.LIST_ARTISTS).executeQuery()) {
+                while (resultSet.next()) {
+                    Artist artist = resolveArtist(identities, resultSet);
+                    if (artist != null)
+                        result.add(artist);
+                }
+            }
+            return result;
+        }));
+    }
+
+    public static int nextArtistId() throws SQLException {
+        return artistIds.next(connection());
     }
 
     public static void addArtist(Artist artist) throws SQLException {
-        PreparedStatement statement = connection.prepareStatement(
-                "INSERT INTO ARTIST VALUES (?, ?, ?, ?, ?, ?)"
-        );
+        PreparedStatement statement = prepare(transaction(), Query.ADD_ARTIST);
         loadArtistParameters(statement, artist);
         statement.executeUpdate();
+        journal.record(ChangeJournal.Entity.ARTIST, ChangeJournal.Type.CREATED, artist.getId());
+        updateSearchIndex(index -> index.putArtist(artist.getId(), artist.getName(), artist.getBiography()));
     }
 
     public static void updateArtist(int previousId, Artist artist) throws SQLException {
-        PreparedStatement statement = connection.prepareStatement(
-                "UPDATE ARTIST SET ARTIST_ID = ?, NAME = ?, PICTURE_URL = ?, MAIN_SPECIALTY = ?, BIRTH_DATE = ?, BIOGRAPHY = ? WHERE ARTIST_ID = ?"
-        );
+        PreparedStatement statement = prepare(transaction(), Query.UPDATE_ARTIST);
         loadArtistParameters(statement, artist);
         statement.setInt(7, previousId);
         statement.executeUpdate();
+        journal.recordUpdate(ChangeJournal.Entity.ARTIST, new Object[]{previousId}, artist.getId());
+        updateSearchIndex(index -> {
+            if (previousId != artist.getId())
+                index.removeArtist(previousId);
+            index.putArtist(artist.getId(), artist.getName(), artist.getBiography());
+        });
     }
 
     public static void addFilmCategory(FilmCategory filmCategory) throws SQLException {
-        PreparedStatement statement = connection.prepareStatement(
-                "INSERT INTO FILM_CATEGORY VALUES (?)"
-        );
+        PreparedStatement statement = prepare(transaction(), Query.ADD_FILM_CATEGORY);
         statement.setString(1, filmCategory.getName());
         statement.executeUpdate();
+        filmCategoriesCache.add(filmCategory);
+        journal.record(ChangeJournal.Entity.FILM_CATEGORY, ChangeJournal.Type.CREATED, filmCategory.getName());
     }
 
     public static void updateFilmCategory(String previousName, FilmCategory filmCategory) throws SQLException {
-        PreparedStatement statement = connection.prepareStatement(
-                "UPDATE FILM_CATEGORY SET FILM_CATEGORY_NAME = ? WHERE FILM_CATEGORY_NAME = ?"
-        );
+        PreparedStatement statement = prepare(transaction(), Query.UPDATE_FILM_CATEGORY);
         statement.setString(1, filmCategory.getName());
         statement.setString(2, previousName);
         statement.executeUpdate();
+        filmCategoriesCache.replace(category -> category.getName().equals(previousName), filmCategory);
+        journal.recordUpdate(ChangeJournal.Entity.FILM_CATEGORY, new Object[]{previousName}, filmCategory.getName());
     }
 
-    private static void loadFilmParameters(PreparedStatement statement, Film film) throws SQLException {
+    static void loadFilmParameters(PreparedStatement statement, Film film) throws SQLException {
         statement.setString(1, film.getTitle());
         statement.setInt(2, film.getYear());
         statement.setString(3, film.getAbstract());
@@ -312,57 +844,58 @@ public class OracleDB {
     }
 
     public static void addFilm(Film film) throws SQLException {
-        PreparedStatement statement = connection.prepareStatement(
-                "INSERT INTO FILM VALUES (?, ?, ?, ?, ?)"
-        );
+        PreparedStatement statement = prepare(transaction(), Query.ADD_FILM);
         loadFilmParameters(statement, film);
         statement.executeUpdate();
+        journal.record(ChangeJournal.Entity.FILM, ChangeJournal.Type.CREATED, film.getTitle(), film.getYear());
+        updateSearchIndex(index -> index.putFilm(film.getTitle(), film.getYear(), film.getAbstract()));
         updateFilmCategories(film);
         updateFilmArtists(film);
     }
 
     public static void updateFilmCategories(Film film) throws SQLException {
-        PreparedStatement statement = connection.prepareStatement(
-                "DELETE FILM_A_POUR_CAT WHERE FILM_TITLE = ? AND FILM_YEAR = ?"
-        );
+        PreparedStatement statement = prepare(transaction(), Query.DELETE_CATEGORIES_OF_FILM);
         statement.setString(1, film.getTitle());
         statement.setInt(2, film.getYear());
         statement.executeUpdate();
 
+        statement = prepare(transaction(), Query.ADD_CATEGORY_TO_FILM);
         for (FilmCategory filmCategory : film.getFilmCategories()) {
-            statement = connection.prepareStatement(
-                    "INSERT INTO FILM_A_POUR_CAT VALUES (?, ?, ?)"
-            );
             statement.setString(1, film.getTitle());
             statement.setInt(2, film.getYear());
             statement.setString(3, filmCategory.getName());
             statement.executeUpdate();
         }
+        journal.record(ChangeJournal.Entity.FILM, ChangeJournal.Type.UPDATED, film.getTitle(), film.getYear());
+        updateLanguageIndex(index -> index.putFilm(
+                film.getTitle(), film.getYear(), film.getRecommendedAge(),
+                film.getFilmCategories().stream().map(FilmCategory::getName).collect(Collectors.toList())
+        ));
     }
 
     public static void updateFilm(String previousTitle, int previousYear, Film film) throws SQLException {
-        PreparedStatement statement = connection.prepareStatement(
-                "UPDATE FILM SET FILM_TITLE = ?, FILM_YEAR = ?, ABSTRACT = ?, RECOMMENDED_AGE = ?, POSTER_URL = ? WHERE FILM_TITLE = ? AND FILM_YEAR = ?"
-        );
+        PreparedStatement statement = prepare(transaction(), Query.UPDATE_FILM);
         loadFilmParameters(statement, film);
         statement.setString(6, previousTitle);
         statement.setInt(7, previousYear);
         statement.executeUpdate();
+        journal.recordUpdate(ChangeJournal.Entity.FILM, new Object[]{previousTitle, previousYear}, film.getTitle(), film.getYear());
+        updateSearchIndex(index -> {
+            index.removeFilm(previousTitle, previousYear);
+            index.putFilm(film.getTitle(), film.getYear(), film.getAbstract());
+        });
+        updateLanguageIndex(index -> index.renameFilm(previousTitle, previousYear, film.getTitle(), film.getYear()));
         updateFilmCategories(film);
         updateFilmArtists(film);
     }
 
     public static void updateFilmArtists(Film film) throws SQLException {
-        PreparedStatement statement = connection.prepareStatement(
-                "DELETE JOUE_ROLE WHERE FILM_TITLE = ? AND FILM_YEAR = ?"
-        );
+        PreparedStatement statement = prepare(transaction(), Query.DELETE_FILM_ROLES);
         statement.setString(1, film.getTitle());
         statement.setInt(2, film.getYear());
         statement.executeUpdate();
 
-        statement = connection.prepareStatement(
-                "DELETE PARTICIPE_AU_FILM WHERE FILM_TITLE = ? AND FILM_YEAR = ?"
-        );
+        statement = prepare(transaction(), Query.DELETE_FILM_PARTICIPATIONS);
         statement.setString(1, film.getTitle());
         statement.setInt(2, film.getYear());
         statement.executeUpdate();
@@ -370,86 +903,137 @@ public class OracleDB {
         for (Artist artist : film.getArtists()) {
             if (artist instanceof Artist.Actor) {
                 Artist.Actor actor = (Artist.Actor) artist;
-                statement = connection.prepareStatement("INSERT INTO JOUE_ROLE VALUES (?, ?, ?, ?)");
+                statement = prepare(transaction(), Query.ADD_FILM_ROLE);
                 statement.setInt(1, actor.getId());
                 statement.setString(2, film.getTitle());
                 statement.setInt(3, film.getYear());
                 statement.setString(4, actor.getRoleName());
             } else {
-                statement = connection.prepareStatement("INSERT INTO PARTICIPE_AU_FILM VALUES (?, ?, ?)");
+                statement = prepare(transaction(), Query.ADD_FILM_PARTICIPATION);
                 statement.setInt(1, artist.getId());
                 statement.setString(2, film.getTitle());
                 statement.setInt(3, film.getYear());
             }
             statement.executeUpdate();
         }
+        journal.record(ChangeJournal.Entity.FILM, ChangeJournal.Type.UPDATED, film.getTitle(), film.getYear());
+        updateSearchIndex(index -> index.setFilmArtists(
+                film.getTitle(), film.getYear(), film.getArtists().stream().map(Artist::getId).collect(Collectors.toList())
+        ));
     }
 
     public static void addFileToFilm(MediaFile file, Film film) throws SQLException {
-        PreparedStatement statement = connection.prepareStatement(
-                "INSERT INTO FILE_CONCERNE_FILM VALUES (?, ?, ?)"
-        );
+        PreparedStatement statement = prepare(transaction(), Query.ADD_FILE_TO_FILM);
         statement.setInt(1, file.getId());
         statement.setString(2, film.getTitle());
         statement.setInt(3, film.getYear());
         statement.executeUpdate();
+        updateLanguageIndex(index -> index.linkFileToFilm(file.getId(), film.getTitle(), film.getYear()));
+        updateStorageAccounts(accounts -> accounts.linkFile(file.getId(), MediaFile.MediaType.FILM));
     }
 
     public static void deleteFilm(Film film) throws SQLException {
-        PreparedStatement statement = connection.prepareStatement(
-                "SELECT MF.* FROM FILM " +
-                        "INNER JOIN FILE_CONCERNE_FILM FCF on FILM.FILM_TITLE = FCF.FILM_TITLE and FILM.FILM_YEAR = FCF.FILM_YEAR " +
-                        "INNER JOIN MEDIA_FILE MF on FCF.FILE_ID = MF.FILE_ID " +
-                        "WHERE FCF.FILM_TITLE = ? AND FCF.FILM_YEAR = ?"
-        );
-        statement.setString(1, film.getTitle());
-        statement.setInt(2, film.getYear());
-        ResultSet resultSet = statement.executeQuery();
-        while (resultSet.next()) {
-            deleteMediaFile(new MediaFile().loadFromResultSet(resultSet));
+        deleteFilms(Collections.singletonList(film), null);
+    }
+
+    /**
+     * Deletes the films and their files with one statement per table for every {@link Query#KEY_BATCH} films.
+     * {@code progress}, if any, receives the number of films deleted so far after each batch.
+     */
+    public static void deleteFilms(List<Film> films, IntConsumer progress) throws SQLException {
+        List<Object[]> keys = films.stream().map(film -> new Object[]{film.getTitle(), film.getYear()}).collect(Collectors.toList());
+        deleteWithFiles(keys, Query.LIST_FILE_IDS_OF_FILMS, Query.DELETE_FILES_OF_FILMS, Query.DELETE_FILMS, progress, key -> {
+            String title = (String) key[0];
+            int year = (Integer) key[1];
+            journal.record(ChangeJournal.Entity.FILM, ChangeJournal.Type.DELETED, title, year);
+            updateSearchIndex(index -> index.removeFilm(title, year));
+            updateLanguageIndex(index -> index.removeFilm(title, year));
+        });
+    }
+
+    /**
+     * Deletes rows of two-column keys by batches: first the files linked to them, then the rows.
+     */
+    private static void deleteWithFiles(List<Object[]> keys, Query listFileIds, Query deleteFiles, Query delete,
+                                        IntConsumer progress, Consumer<Object[]> onDeleted) throws SQLException {
+        for (int from = 0; from < keys.size(); from += Query.KEY_BATCH) {
+            List<Object[]> batch = keys.subList(from, Math.min(from + Query.KEY_BATCH, keys.size()));
+            PreparedStatement statement = prepare(transaction(), listFileIds);
+            bindKeys(statement, batch);
+            List<Integer> fileIds = new ArrayList<>();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    fileIds.add(resultSet.getInt(1));
+                }
+            }
+            statement = prepare(transaction(), deleteFiles);
+            bindKeys(statement, batch);
+            statement.executeUpdate();
+            statement = prepare(transaction(), delete);
+            bindKeys(statement, batch);
+            statement.executeUpdate();
+
+            for (int fileId : fileIds) {
+                journal.record(ChangeJournal.Entity.MEDIA_FILE, ChangeJournal.Type.DELETED, fileId);
+                updateLanguageIndex(index -> index.removeFile(fileId));
+                updatePlayabilityIndex(index -> index.removeFile(fileId));
+                updateStorageAccounts(accounts -> accounts.removeFile(fileId));
+            }
+            batch.forEach(onDeleted);
+            if (progress != null)
+                progress.accept(from + batch.size());
         }
-        statement = connection.prepareStatement(
-                "DELETE FILM WHERE FILM_TITLE = ? AND FILM_YEAR = ?"
-        );
-        statement.setString(1, film.getTitle());
-        statement.setInt(2, film.getYear());
-        statement.executeUpdate();
     }
 
-    public static void listVideoCodecs(List<VideoCodec> videoCodecs) throws SQLException {
-        Statement statement = connection.createStatement();
-        ResultSet resultSet = statement.executeQuery("SELECT * FROM VIDEO_CODEC");
-        while (resultSet.next()) {
-            VideoCodec videoCodec = new VideoCodec().loadFromResultSet(resultSet);
-            if (videoCodec != null)
-                videoCodecs.add(videoCodec);
+    public static void listVideoCodecs(RowSink<VideoCodec> videoCodecs) throws SQLException {
+        videoCodecs.addAll(videoCodecsCache.get());
+    }
+
+    private static void loadVideoCodecs(List<VideoCodec> videoCodecs) throws SQLException {
+        try (ResultSet resultSet = prepare(connection(), Query.LIST_VIDEO_CODECS).executeQuery()) {
+            while (resultSet.next()) {
+                VideoCodec videoCodec = new VideoCodec().loadFromResultSet(resultSet);
+                if (videoCodec != null)
+                    videoCodecs.add(videoCodec);
+            }
         }
     }
 
-    public static void listAudioCodecs(List<AudioCodec> audioCodecs) throws SQLException {
-        Statement statement = connection.createStatement();
-        ResultSet resultSet = statement.executeQuery("SELECT * FROM AUDIO_CODEC");
-        while (resultSet.next()) {
-            AudioCodec audioCodec = new AudioCodec().loadFromResultSet(resultSet);
-            if (audioCodec != null)
-                audioCodecs.add(audioCodec);
+    public static void listAudioCodecs(RowSink<AudioCodec> audioCodecs) throws SQLException {
+        audioCodecs.addAll(audioCodecsCache.get());
+    }
+
+    private static void loadAudioCodecs(List<AudioCodec> audioCodecs) throws SQLException {
+        try (ResultSet resultSet = prepare(connection(), Query.LIST_AUDIO_CODECS).executeQuery()) {
+            while (resultSet.next()) {
+                AudioCodec audioCodec = new AudioCodec().loadFromResultSet(resultSet);
+                if (audioCodec != null)
+                    audioCodecs.add(audioCodec);
+            }
         }
     }
 
-    public static void listTextCodecs(List<TextCodec> textCodecs) throws SQLException {
-        Statement statement = connection.createStatement();
-        ResultSet resultSet = statement.executeQuery("SELECT * FROM TEXT_CODEC");
-        while (resultSet.next()) {
-            TextCodec textCodec = new TextCodec().loadFromResultSet(resultSet);
-            if (textCodec != null)
-                textCodecs.add(textCodec);
+    public static void listTextCodecs(RowSink<TextCodec> textCodecs) throws SQLException {
+        textCodecs.addAll(textCodecsCache.get());
+    }
+
+    private static void loadTextCodecs(List<TextCodec> textCodecs) throws SQLException {
+        try (ResultSet resultSet = prepare(connection(), Query.LIST_TEXT_CODECS).executeQuery()) {
+            while (resultSet.next()) {
+                TextCodec textCodec = new TextCodec().loadFromResultSet(resultSet);
+                if (textCodec != null)
+                    textCodecs.add(textCodec);
+            }
         }
     }
 
     public static void executeThen(SQLRunnable runnable, Runnable then, Consumer<Exception> onError) {
         executor.execute(() -> {
             try {
-                runnable.run();
+                runTask(() -> {
+                    runnable.run();
+                    return null;
+                });
                 if (then != null) {
                     Platform.runLater(then);
                 }
@@ -477,7 +1061,7 @@ public class OracleDB {
     public static <R> CompletableFuture<R> query(Callable<R> query, Consumer<Exception> onError) {
         return CompletableFuture.supplyAsync(() -> {
             try {
-                return query.call();
+                return runTask(query);
             } catch (Exception e) {
                 if (onError != null)
                     Platform.runLater(() -> onError.accept(e));
@@ -504,125 +1088,156 @@ public class OracleDB {
         queryThen(query, then, null);
     }
 
+    /**
+     * Runs the loader on the executor with a sink whose rows are appended to {@code target} on the JavaFX thread,
+     * in at most one {@code addAll} per pulse. {@code then} runs once every row was added.
+     */
+    public static <T> void collectThen(SQLConsumer<RowSink<T>> loader, ObservableList<? super T> target, Runnable then, Consumer<Exception> onError) {
+        FxCollector<T> collector = new FxCollector<>(target);
+        execute(() -> {
+            loader.accept(collector);
+            collector.complete(then);
+        }, onError);
+    }
+
+    public static <T> void collectThen(SQLConsumer<RowSink<T>> loader, ObservableList<? super T> target, Runnable then) {
+        collectThen(loader, target, then, null);
+    }
+
+    public static <T> void collect(SQLConsumer<RowSink<T>> loader, ObservableList<? super T> target) {
+        collectThen(loader, target, null, null);
+    }
+
+    /**
+     * Runs the query on the executor and appends its items to the list on the JavaFX thread as they are read.
+     * {@code then} runs once every item was added.
+     */
+    public static <T> RowStream<T> stream(Query query, SQLConsumer<PreparedStatement> parameters, RowStream.RowReader<T> reader,
+                                          List<? super T> target, Runnable then, Consumer<Exception> onError) {
+        return stream(stream -> stream.read(prepare(connection(), query), parameters, reader), target, then, onError);
+    }
+
+    private static <T> RowStream<T> stream(SQLConsumer<RowStream<T>> reader, List<? super T> target, Runnable then, Consumer<Exception> onError) {
+        RowStream<T> stream = new RowStream<>(target, then);
+        executor.execute(() -> {
+            try {
+                runTask(() -> {
+                    reader.accept(stream);
+                    return null;
+                });
+            } catch (Exception e) {
+                stream.fail(e, onError != null ? onError : error -> new ExceptionAlert(error).showAndWait());
+            }
+        });
+        return stream;
+    }
+
     public static ExecutorService getExecutor() {
         return executor;
     }
 
-
-    public static void listTracks(ObservableList<Track> tracks) throws SQLException {
-        Statement statement = connection.createStatement();
-        ResultSet resultSet = statement.executeQuery("SELECT * FROM TRACK");
-        while (resultSet.next()) {
-            Track track = new Track().loadFromResultSet(resultSet);
-            if (track != null)
-                tracks.add(track);
-        }
+    private static class Task {
+        private Connection lease;
+        private boolean holdsTransaction;
+        private IdentityMap identities;
     }
 
-    public static void setAlbum(Track track) throws SQLException {
-        PreparedStatement statement = connection.prepareStatement(
-                "SELECT * FROM ALBUM WHERE ALBUM_ID = ?"
-        );
-        statement.setInt(1, track.getAlbumId());
-        ResultSet resultSet = statement.executeQuery();
-        while (resultSet.next()) {
-            Album album = new Album().loadFromResultSet(resultSet);
-            if (album != null)
-                track.setAlbum(album);
-        }
+    public static void listTracks(RowSink<Track> tracks) throws SQLException {
+        IdentityMap identities = identities();
+        CatalogReplica replica = replica();
+        if (replica != null)
+            tracks.addAll(QueryTimings.time("LIST_TRACKS replica", () -> replica.tracks(identities)));
+        else
+            tracks.addAll(QueryTimings.time("LIST_TRACKS jdbc", () -> new TrackLoader(connection(), identities).load(TrackLoader.ALL)));
     }
 
-    public static void listAlbumCategory(Album album) throws SQLException {
-        PreparedStatement statement = connection.prepareStatement(
-                "SELECT * FROM ALBUM_A_POUR_CAT WHERE ALBUM_ID = ?"
-        );
-        statement.setInt(1, album.getId());
-        ResultSet resultSet = statement.executeQuery();
-        while (resultSet.next()) {
-            AlbumCategory album_cat = new AlbumCategory().loadFromResultSet(resultSet);
-            if (album_cat != null)
-                album.getAlbumCatgeories().add(album_cat);
-        }
+    public static PageIndex listTrackPageKeys(int pageSize) throws SQLException {
+        CatalogReplica replica = replica();
+        if (replica != null)
+            return replica.trackPageKeys(pageSize);
+        return listPageKeys(Query.LIST_TRACK_PAGE_KEYS, pageSize, 2);
     }
 
-    public static void setArtist(Track track) throws SQLException {
-        PreparedStatement statement = connection.prepareStatement(
-                "SELECT ARTIST.*, JD.INSTRUMENT_NAME FROM JOUE_DANS JD " +
-                        "INNER JOIN ARTIST on ARTIST.ARTIST_ID = JD.ARTIST_ID " +
-                        "WHERE ALBUM_ID = ? AND TRACK_ID = ?"
-        );
-        statement.setInt(1, track.getAlbumId());
-        statement.setInt(2, track.getId());
-        ResultSet resultSet = statement.executeQuery();
-        while (resultSet.next()) {
-            Artist.Musician musician = (Artist.Musician) new Artist.Musician(resultSet.getString("INSTRUMENT_NAME")).loadFromResultSet(resultSet);
-            if (musician != null)
-                track.getArtistsList().add(musician);
-        }
+    public static List<Track> listTracksPage(PageIndex.Key first, int pageSize) throws SQLException {
+        IdentityMap identities = identities();
+        CatalogReplica replica = replica();
+        if (replica != null)
+            return QueryTimings.time("LIST_TRACKS_PAGE replica", () -> replica.tracksPage(first, pageSize, identities));
+        return QueryTimings.time("LIST_TRACKS_PAGE jdbc", () -> new TrackLoader(connection(), identities).load(TrackLoader.PAGE, statement -> {
+            statement.setInt(1, first.getInt(0));
+            statement.setInt(2, first.getInt(0));
+            statement.setInt(3, first.getInt(1));
+            statement.setInt(4, pageSize);
+        }));
     }
 
     public static void addMusicCategory(MusicCategory musicCategory) throws SQLException {
-        PreparedStatement statement = connection.prepareStatement(
-                "INSERT INTO MUSIC_CATEGORY VALUES (?)"
-        );
+        PreparedStatement statement = prepare(transaction(), Query.ADD_MUSIC_CATEGORY);
         statement.setString(1, musicCategory.getName());
         statement.executeUpdate();
+        musicCategoriesCache.add(musicCategory);
+        journal.record(ChangeJournal.Entity.MUSIC_CATEGORY, ChangeJournal.Type.CREATED, musicCategory.getName());
     }
 
     public static void updateMusicCategory(String previousName, MusicCategory musicCategory) throws SQLException {
-        PreparedStatement statement = connection.prepareStatement(
-                "UPDATE FILM_CATEGORY SET FILM_CATEGORY_NAME = ? WHERE FILM_CATEGORY_NAME = ?"
-        );
+        PreparedStatement statement = prepare(transaction(), Query.UPDATE_MUSIC_CATEGORY);
         statement.setString(1, musicCategory.getName());
         statement.setString(2, previousName);
         statement.executeUpdate();
+        musicCategoriesCache.replace(category -> category.getName().equals(previousName), musicCategory);
+        journal.recordUpdate(ChangeJournal.Entity.MUSIC_CATEGORY, new Object[]{previousName}, musicCategory.getName());
     }
 
-    public static void listMusicCategories(ObservableList<MusicCategory> items) throws SQLException {
-        Statement statement = connection.createStatement();
-        ResultSet resultSet = statement.executeQuery("SELECT * FROM MUSIC_CATEGORY");
-        while (resultSet.next()) {
-            MusicCategory musicCategory = new MusicCategory().loadFromResultSet(resultSet);
-            if (musicCategory != null)
-                items.add(musicCategory);
-        }
+    public static void listMusicCategories(RowSink<MusicCategory> items) throws SQLException {
+        items.addAll(musicCategoriesCache.get());
     }
 
-    public static void listTrackArtists(Track track, List<Artist.Musician> artistsList) throws SQLException {
-        PreparedStatement statement = connection.prepareStatement(
-                "SELECT ARTIST.*, JD.INSTRUMENT_NAME FROM JOUE_DANS JD " +
-                        "INNER JOIN ARTIST ON ARTIST.ARTIST_ID = JD.ARTIST_ID " +
-                        "WHERE TRACK_ID = ? AND ALBUM_ID = ?"
-        );
-        statement.setInt(1, track.getId());
-        statement.setInt(2, track.getAlbumId());
-        ResultSet resultSet = statement.executeQuery();
-        while (resultSet.next()) {
-            Artist.Musician musician = (Artist.Musician) new Artist.Musician(resultSet.getString("INSTRUMENT_NAME")).loadFromResultSet(resultSet);
-            if (musician != null)
-                artistsList.add(musician);
+    private static void loadMusicCategories(List<MusicCategory> items) throws SQLException {
+        try (ResultSet resultSet = prepare(connection(), Query.LIST_MUSIC_CATEGORIES).executeQuery()) {
+            while (resultSet.next()) {
+                MusicCategory musicCategory = new MusicCategory().loadFromResultSet(resultSet);
+                if (musicCategory != null)
+                    items.add(musicCategory);
+            }
         }
     }
 
-    public static void listAlbum(ObservableList<Album> items) throws SQLException {
-        Statement statement = connection.createStatement();
-        ResultSet resultSet = statement.executeQuery("SELECT * FROM ALBUM");
-        while (resultSet.next()) {
-            Album album = new Album().loadFromResultSet(resultSet);
-            if (album != null)
-                items.add(album);
+    public static void listTrackArtists(Track track, RowSink<Artist.Musician> artistsList) throws SQLException {
+        IdentityMap identities = identities();
+        PreparedStatement statement = prepare(connection(), Query.LIST_TRACK_MUSICIANS);
+        statement.setInt(1, track.getAlbumId());
+        statement.setInt(2, track.getId());
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                Artist artist = resolveArtist(identities, resultSet);
+                if (artist != null)
+                    artistsList.add(new Artist.Musician(artist, resultSet.getString("INSTRUMENT_NAME")));
+            }
         }
     }
 
+    public static void listAlbum(RowSink<Album> items) throws SQLException {
+        IdentityMap identities = identities();
+        CatalogReplica replica = replica();
+        if (replica != null)
+            items.addAll(QueryTimings.time("LIST_ALBUMS replica", () -> replica.albums(identities)));
+        else
+            items.addAll(QueryTimings.time("LIST_ALBUMS jdbc", () -> new ArrayList<>(new TrackLoader(connection(), identities).loadAlbums().values())));
+    }
+
+    public static int nextAlbumId() throws SQLException {
+        return albumIds.next(connection());
+    }
+
     public static void addAlbums(Album album) throws SQLException {
-        PreparedStatement statement = connection.prepareStatement(
-                "INSERT INTO ALBUM VALUES (?, ?, ?, ?, ?)"
-        );
+        PreparedStatement statement = prepare(transaction(), Query.ADD_ALBUM);
         loadAlbumParameters(statement, album);
         statement.executeUpdate();
+        journal.record(ChangeJournal.Entity.ALBUM, ChangeJournal.Type.CREATED, album.getId());
+        updateSearchIndex(index -> index.putAlbum(album.getId(), album.getTitle()));
     }
 
-    private static void loadAlbumParameters(PreparedStatement statement, Album album) throws SQLException {
+    static void loadAlbumParameters(PreparedStatement statement, Album album) throws SQLException {
         statement.setInt(1, album.getId());
         statement.setString(2, album.getTitle());
         statement.setDate(3, (Date) album.getRelease_date());
@@ -632,55 +1247,60 @@ public class OracleDB {
     }
 
     public static void updateAlbum(int previousId, Album album) throws SQLException {
-        PreparedStatement statement = connection.prepareStatement(
-                "UPDATE ALBUM SET ALBUM_ID = ?, ALBUM_TITLE = ?, RELEASE_DATE = ?, COVER_URL = ?, ARTIST_NAME = ? WHERE ALBUM_ID = ?"
-        );
+        PreparedStatement statement = prepare(transaction(), Query.UPDATE_ALBUM);
         loadAlbumParameters(statement, album);
         statement.setInt(6, previousId);
         statement.executeUpdate();
+        journal.recordUpdate(ChangeJournal.Entity.ALBUM, new Object[]{previousId}, album.getId());
+        updateSearchIndex(index -> {
+            if (previousId != album.getId())
+                index.removeAlbum(previousId);
+            index.putAlbum(album.getId(), album.getTitle());
+        });
+    }
+
+    public static int nextTrackId() throws SQLException {
+        return trackIds.next(connection());
     }
 
     public static void addTrack(Track track) throws SQLException {
-        PreparedStatement statement = connection.prepareStatement(
-                "INSERT INTO TRACK VALUES (?, ?, ?, ?)"
-        );
+        PreparedStatement statement = prepare(transaction(), Query.ADD_TRACK);
         loadTrackParameters(statement, track);
         statement.executeUpdate();
+        journal.record(ChangeJournal.Entity.TRACK, ChangeJournal.Type.CREATED, track.getAlbumId(), track.getId());
+        updateSearchIndex(index -> index.putTrack(track.getAlbumId(), track.getId(), track.getTitle()));
         updateTrackCategories(track);
         updateTrackArtists(track);
     }
 
     public static void updateTrackCategories(Track track) throws SQLException {
-        PreparedStatement statement = connection.prepareStatement(
-                "DELETE TRACK_A_POUR_CAT WHERE ALBUM_ID = ? AND TRACK_ID = ?"
-        );
+        PreparedStatement statement = prepare(transaction(), Query.DELETE_CATEGORIES_OF_TRACK);
         statement.setInt(1, track.getAlbumId());
         statement.setInt(2, track.getId());
         statement.executeUpdate();
 
+        statement = prepare(transaction(), Query.ADD_CATEGORY_TO_TRACK);
         for (MusicCategory mc : track.getTrackCategories()) {
-            statement = connection.prepareStatement(
-                    "INSERT INTO TRACK_A_POUR_CAT VALUES (?, ?, ?)"
-            );
             statement.setInt(1, track.getAlbum().getId());
             statement.setInt(2, track.getId());
             statement.setString(3, mc.getName());
             statement.executeUpdate();
         }
+        journal.record(ChangeJournal.Entity.TRACK, ChangeJournal.Type.UPDATED, track.getAlbumId(), track.getId());
+        updateLanguageIndex(index -> index.putTrack(
+                track.getAlbumId(), track.getId(),
+                track.getTrackCategories().stream().map(MusicCategory::getName).collect(Collectors.toList())
+        ));
     }
 
     public static void updateTrackArtists(Track track) throws SQLException {
-        PreparedStatement statement = connection.prepareStatement(
-                "DELETE JOUE_DANS WHERE ALBUM_ID = ? AND TRACK_ID = ?"
-        );
+        PreparedStatement statement = prepare(transaction(), Query.DELETE_TRACK_MUSICIANS);
         statement.setInt(1, track.getAlbumId());
         statement.setInt(2, track.getId());
         statement.executeUpdate();
 
+        statement = prepare(transaction(), Query.ADD_TRACK_MUSICIAN);
         for (Artist.Musician art : track.getArtistsList()) {
-            statement = connection.prepareStatement(
-                    "INSERT INTO JOUE_DANS VALUES (?, ?, ?, ?)"
-            );
             statement.setInt(1, art.getId());
             statement.setInt(2, track.getAlbum().getId());
             statement.setInt(3, track.getId());
@@ -688,125 +1308,208 @@ public class OracleDB {
 
             statement.executeUpdate();
         }
+        journal.record(ChangeJournal.Entity.TRACK, ChangeJournal.Type.UPDATED, track.getAlbumId(), track.getId());
+        updateSearchIndex(index -> index.setTrackArtists(
+                track.getAlbumId(), track.getId(), track.getArtistsList().stream().map(Artist::getId).collect(Collectors.toList())
+        ));
     }
 
-    private static void loadTrackParameters(PreparedStatement statement, Track track) throws SQLException {
-        statement.setInt(1, track.getAlbum().getId());
+    static void loadTrackParameters(PreparedStatement statement, Track track) throws SQLException {
+        statement.setInt(1, track.getAlbumId());
         statement.setInt(2, track.getId());
         statement.setString(3, track.getTitle());
         statement.setInt(4, track.getLength());
     }
 
     public static void updateTrack(int previousAlbumId, int previousId, Track track) throws SQLException {
-        PreparedStatement statement = connection.prepareStatement(
-                "UPDATE TRACK SET ALBUM_ID = ?, TRACK_ID = ?, TRACK_TITLE = ?, LENGTH = ?  WHERE ALBUM_ID = ? AND TRACK_ID = ?"
-        );
+        PreparedStatement statement = prepare(transaction(), Query.UPDATE_TRACK);
         loadTrackParameters(statement, track);
         statement.setInt(5, previousAlbumId);
         statement.setInt(6, previousId);
         statement.executeUpdate();
+        journal.recordUpdate(ChangeJournal.Entity.TRACK, new Object[]{previousAlbumId, previousId}, track.getAlbumId(), track.getId());
+        updateSearchIndex(index -> {
+            index.removeTrack(previousAlbumId, previousId);
+            index.putTrack(track.getAlbumId(), track.getId(), track.getTitle());
+        });
+        updateLanguageIndex(index -> index.renameTrack(previousAlbumId, previousId, track.getAlbumId(), track.getId()));
         updateTrackCategories(track);
         updateTrackArtists(track);
     }
 
     public static void addFileToTrack(MediaFile file, Track track) throws SQLException {
-        PreparedStatement statement = connection.prepareStatement(
-                "INSERT INTO FILE_CONCERNE_TRACK VALUES (?, ?, ?)"
-        );
+        PreparedStatement statement = prepare(transaction(), Query.ADD_FILE_TO_TRACK);
         statement.setInt(1, file.getId());
         statement.setInt(2, track.getAlbumId());
         statement.setInt(3, track.getId());
         statement.executeUpdate();
+        updateLanguageIndex(index -> index.linkFileToTrack(file.getId(), track.getAlbumId(), track.getId()));
+        updateStorageAccounts(accounts -> accounts.linkFile(file.getId(), MediaFile.MediaType.TRACK));
     }
 
     public static void deleteTrack(Track track) throws SQLException {
-        PreparedStatement statement = connection.prepareStatement(
-                "SELECT MF.* FROM TRACK " +
-                        "INNER JOIN FILE_CONCERNE_TRACK FCT on TRACK.ALBUM_ID = FCT.ALBUM_ID and TRACK.TRACK_ID = FCT.TRACK_ID " +
-                        "INNER JOIN MEDIA_FILE MF on FCT.FILE_ID = MF.FILE_ID " +
-                        "WHERE FCT.ALBUM_ID = ? AND FCT.TRACK_ID = ?"
-        );
-        statement.setInt(1, track.getAlbumId());
-        statement.setInt(2, track.getId());
-        ResultSet resultSet = statement.executeQuery();
-        while (resultSet.next()) {
-            deleteMediaFile(new MediaFile().loadFromResultSet(resultSet));
+        deleteTracks(Collections.singletonList(track), null);
+    }
+
+    /**
+     * Deletes the tracks and their files, see {@link #deleteFilms}.
+     */
+    public static void deleteTracks(List<Track> tracks, IntConsumer progress) throws SQLException {
+        List<Object[]> keys = tracks.stream().map(track -> new Object[]{track.getAlbumId(), track.getId()}).collect(Collectors.toList());
+        deleteWithFiles(keys, Query.LIST_FILE_IDS_OF_TRACKS, Query.DELETE_FILES_OF_TRACKS, Query.DELETE_TRACKS, progress, key -> {
+            int albumId = (Integer) key[0];
+            int trackId = (Integer) key[1];
+            journal.record(ChangeJournal.Entity.TRACK, ChangeJournal.Type.DELETED, albumId, trackId);
+            updateSearchIndex(index -> index.removeTrack(albumId, trackId));
+            updateLanguageIndex(index -> index.removeTrack(albumId, trackId));
+        });
+    }
+
+    public static User getUser(String email) throws SQLException {
+        PreparedStatement statement = prepare(connection(), Query.GET_USER);
+        statement.setString(1, email);
+        try (ResultSet resultSet = statement.executeQuery()) {
+            return resultSet.next() ? new User().loadFromResultSet(resultSet) : null;
         }
-        statement = connection.prepareStatement(
-                "DELETE TRACK WHERE ALBUM_ID = ? AND TRACK_ID = ?"
-        );
-        statement.setInt(1, track.getAlbumId());
-        statement.setInt(2, track.getId());
-        statement.executeUpdate();
     }
 
-    public static void listTrackCategories(Track track) throws SQLException {
-        PreparedStatement statement = connection.prepareStatement(
-                "SELECT * FROM TRACK_A_POUR_CAT WHERE ALBUM_ID = ? AND TRACK_ID = ?"
-        );
-        statement.setInt(1, track.getAlbumId());
-        statement.setInt(2, track.getId());
-        ResultSet resultSet = statement.executeQuery();
-        while (resultSet.next()) {
-            MusicCategory trackCategory = new MusicCategory().loadFromResultSet(resultSet);
-            if (trackCategory != null)
-                track.getTrackCategories().add(trackCategory);
-        }
-    }
-
-
-
-
-
-
-    public static void listFilmsUser(ObservableList<Film> films1, Pair<String, String> data) throws SQLException {
-        PreparedStatement statement = connection.prepareStatement(
-                "SELECT film_cat_age.*" +
-                        "FROM (SELECT FILM.* FROM FILM INNER JOIN FILM_A_POUR_CAT  ON FILM_A_POUR_CAT.film_title = FILM.film_title AND FILM_A_POUR_CAT.film_year = FILM.film_year " +
-                        "WHERE FILM_CATEGORY_NAME = ? " +
-                        "AND RECOMMENDED_AGE <= (SELECT age from KLEX_USER WHERE email = ?)) film_cat_age " +
-                        "INNER JOIN FILE_CONCERNE_FILM  ON FILE_CONCERNE_FILM.film_year = film_cat_age.film_year AND  FILE_CONCERNE_FILM.film_title = film_cat_age.film_title " +
-                        "LEFT JOIN MEDIA_FILE ON MEDIA_FILE.file_id = FILE_CONCERNE_FILM.file_id " +
-                        "LEFT JOIN TEXT_FLUX ON TEXT_FLUX.file_id = MEDIA_FILE.file_id " +
-                        "LEFT JOIN AUDIO_FLUX AF on FILE_CONCERNE_FILM.FILE_ID = AF.FILE_ID " +
-                        "WHERE AF.AUDIO_LANGUAGE in (SELECT PREFERRED_LANGUAGE from KLEX_USER WHERE EMAIL = ?) OR "+
-                        "TEXT_FLUX.text_language in (SELECT PREFERRED_LANGUAGE from KLEX_USER WHERE EMAIL = ?)"
-        );
-        statement.setString(1, data.getKey());
-        statement.setString(2, data.getValue());
-        statement.setString(3, data.getValue());
-        statement.setString(4, data.getValue());
-        ResultSet resultSet = statement.executeQuery();
-        while (resultSet.next()) {
-            Film film = new Film().loadFromResultSet(resultSet);
-            if (film != null)
-                films1.add(film);
-        }
-    }
-
-    public static void listTracksUser(ObservableList<Track> tracks1, Pair<String, String> data) throws SQLException {
-        PreparedStatement statement = connection.prepareStatement(
-                "select distinct tid.* from " +
-                        "(select TRACK.* from TRACK " +
-                "inner join FILE_CONCERNE_TRACK FCT on TRACK.ALBUM_ID = FCT.ALBUM_ID and TRACK.TRACK_ID = FCT.TRACK_ID " +
-                "inner join FLUX F on FCT.FILE_ID = F.FILE_ID " +
-                "inner join AUDIO_FLUX AF on F.FILE_ID = AF.FILE_ID and F.FLUX_ID = AF.FLUX_ID " +
-                "where AUDIO_LANGUAGE = (select PREFERRED_LANGUAGE from KLEX_USER where EMAIL = ?)) tid " +
-                "inner join ALBUM on ALBUM.ALBUM_ID = tid.ALBUM_ID " +
-                "inner join JOUE_DANS on JOUE_DANS.ALBUM_ID = tid.ALBUM_ID " +
-                "inner join ARTIST on ARTIST.ARTIST_ID = JOUE_DANS.ARTIST_ID " +
-                        "inner join TRACK_A_POUR_CAT on tid.TRACK_ID = TRACK_A_POUR_CAT.TRACK_ID "+
-                        " and tid.ALBUM_ID = TRACK_A_POUR_CAT.ALBUM_ID where MUSIC_CATEGORY_NAME = ?"
-
-        );
-        statement.setString(1, data.getValue());
-        statement.setString(2, data.getKey());
-        ResultSet resultSet = statement.executeQuery();
-        while (resultSet.next()) {
-            Track track = new Track().loadFromResultSet(resultSet);
-            if (track != null)
-                tracks1.add(track);
+    public static List<User> listUsersByKeys(List<Object[]> keys) throws SQLException {
+        List<User> users = new ArrayList<>();
+        for (Object[] key : keys) {
+            User user = getUser((String) key[0]);
+            if (user != null)
+                users.add(user);
+        }
+        loadStorageUsage(users);
+        return users;
+    }
+
+    /**
+     * Films of a category, allowed at the age of the user and available in the user's language.
+     * The candidates come from the language index, then the films are read by primary key.
+     * Runs the equivalent SQL query instead when the index is disabled with {@code -Dklex.languageIndex=false}.
+     */
+    public static void listFilmsUser(RowSink<Film> films1, Pair<String, String> data) throws SQLException {
+        FilmLoader loader = new FilmLoader(connection());
+        if (!LANGUAGE_INDEX_ENABLED) {
+            films1.addAll(loader.loadJoined(Query.LIST_FILMS_USER, statement -> {
+                statement.setString(1, data.getValue());
+                statement.setString(2, data.getKey());
+            }));
+            return;
+        }
+        User user = getUser(data.getValue());
+        if (user == null)
+            return;
+        List<Object[]> keys = languageIndex().findFilms(user.getPreferredLanguage(), data.getKey(), user.getAge());
+        films1.addAll(listFilmsByKeys(keys));
+    }
+
+    /**
+     * Films with the given keys, ordered by title and year.
+     */
+    public static List<Film> listFilmsByKeys(List<Object[]> keys) throws SQLException {
+        CatalogReplica replica = replica();
+        if (replica != null)
+            return QueryTimings.time("LIST_FILMS_BY_KEYS replica", () -> replica.filmsByKeys(keys));
+        FilmLoader loader = new FilmLoader(connection());
+        return QueryTimings.time("LIST_FILMS_BY_KEYS jdbc", () -> {
+            List<Film> films = new ArrayList<>();
+            for (int from = 0; from < keys.size(); from += Query.KEY_BATCH) {
+                List<Object[]> batch = keys.subList(from, Math.min(from + Query.KEY_BATCH, keys.size()));
+                films.addAll(loader.loadJoined(Query.LIST_FILMS_BY_KEYS, statement -> bindKeys(statement, batch)));
+            }
+            return films;
+        });
+    }
+
+    /**
+     * Tracks of a category with an audio flux in the user's language, see {@link #listFilmsUser}.
+     */
+    public static void listTracksUser(RowSink<Track> tracks1, Pair<String, String> data) throws SQLException {
+        IdentityMap identities = identities();
+        TrackLoader loader = new TrackLoader(connection(), identities);
+        if (!LANGUAGE_INDEX_ENABLED) {
+            tracks1.addAll(loader.load(TrackLoader.USER_RECOMMENDATIONS, statement -> {
+                statement.setString(1, data.getValue());
+                statement.setString(2, data.getKey());
+            }));
+            return;
+        }
+        User user = getUser(data.getValue());
+        if (user == null)
+            return;
+        List<Object[]> keys = languageIndex().findTracks(user.getPreferredLanguage(), data.getKey());
+        tracks1.addAll(listTracksByKeys(keys));
+    }
+
+    /**
+     * Tracks with the given keys, ordered by album and track id.
+     */
+    public static List<Track> listTracksByKeys(List<Object[]> keys) throws SQLException {
+        IdentityMap identities = identities();
+        CatalogReplica replica = replica();
+        if (replica != null)
+            return QueryTimings.time("LIST_TRACKS_BY_KEYS replica", () -> replica.tracksByKeys(keys, identities));
+        TrackLoader loader = new TrackLoader(connection(), identities);
+        return QueryTimings.time("LIST_TRACKS_BY_KEYS jdbc", () -> {
+            List<Track> tracks = new ArrayList<>();
+            for (int from = 0; from < keys.size(); from += Query.KEY_BATCH) {
+                List<Object[]> batch = keys.subList(from, Math.min(from + Query.KEY_BATCH, keys.size()));
+                tracks.addAll(loader.load(TrackLoader.BY_KEYS, statement -> bindKeys(statement, batch)));
+            }
+            return tracks;
+        });
+    }
+
+    /**
+     * Films matching the words of the query in their title or abstract, or in the name or biography of
+     * one of their artists, best match first. See {@link SearchIndex}.
+     */
+    public static void searchFilms(String query, RowSink<Film> films) throws SQLException {
+        SearchIndex index = searchIndex();
+        List<Object[]> keys = QueryTimings.time("SEARCH_FILMS index", () -> index.findFilms(query, SEARCH_LIMIT));
+        Map<String, Integer> ranks = new HashMap<>();
+        for (Object[] key : keys) {
+            ranks.put(FilmLoader.key((String) key[0], (Integer) key[1]), ranks.size());
+        }
+        List<Film> found = listFilmsByKeys(keys);
+        found.sort(Comparator.comparing(film -> ranks.get(FilmLoader.key(film.getTitle(), film.getYear()))));
+        films.addAll(found);
+    }
+
+    /**
+     * Keys of every film matching the query like {@link #searchFilms}, as lists of their title and year,
+     * without reading the films. Unlike the search, the matches are not capped.
+     */
+    public static Set<List<Object>> matchFilms(String query) throws SQLException {
+        SearchIndex index = searchIndex();
+        return QueryTimings.time("MATCH_FILMS index", () -> index.matchFilms(query));
+    }
+
+    /**
+     * Tracks matching the words of the query in their title, the title of their album, or the name or
+     * biography of one of their musicians, best match first. See {@link SearchIndex}.
+     */
+    public static void searchTracks(String query, RowSink<Track> tracks) throws SQLException {
+        SearchIndex index = searchIndex();
+        List<Object[]> keys = QueryTimings.time("SEARCH_TRACKS index", () -> index.findTracks(query, SEARCH_LIMIT));
+        Map<Long, Integer> ranks = new HashMap<>();
+        for (Object[] key : keys) {
+            ranks.put(TrackLoader.key((Integer) key[0], (Integer) key[1]), ranks.size());
         }
+        List<Track> found = listTracksByKeys(keys);
+        found.sort(Comparator.comparing(track -> ranks.get(TrackLoader.key(track.getAlbumId(), track.getId()))));
+        tracks.addAll(found);
+    }
+
+    /**
+     * Keys of every track matching the query like {@link #searchTracks}, as lists of their album id and track id,
+     * without reading the tracks. Unlike the search, the matches are not capped.
+     */
+    public static Set<List<Object>> matchTracks(String query) throws SQLException {
+        SearchIndex index = searchIndex();
+        return QueryTimings.time("MATCH_TRACKS index", () -> index.matchTracks(query));
     }
 
 }
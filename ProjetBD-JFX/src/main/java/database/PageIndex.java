@@ -0,0 +1,70 @@
+package database;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * First primary key of every page of a table, in key order, and the number of rows of the table.
+ * A page is then read with a keyset query starting at its first key, whatever its position in the table.
+ */
+public final class PageIndex {
+
+    public static final PageIndex EMPTY = new PageIndex(1, 0, Collections.emptyList());
+
+    private final int pageSize;
+    private final int size;
+    private final List<Key> firstKeys;
+
+    PageIndex(int pageSize, int size, List<Key> firstKeys) {
+        this.pageSize = pageSize;
+        this.size = size;
+        this.firstKeys = firstKeys;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getPageCount() {
+        return firstKeys.size();
+    }
+
+    public Key getFirstKey(int page) {
+        return firstKeys.get(page);
+    }
+
+    /**
+     * Values of the primary key columns of a row, in key order.
+     */
+    public static final class Key {
+        private final Object[] values;
+
+        Key(Object[] values) {
+            this.values = values;
+        }
+
+        public static Key of(Object... values) {
+            return new Key(values.clone());
+        }
+
+        public int getColumnCount() {
+            return values.length;
+        }
+
+        public Object get(int column) {
+            return values[column];
+        }
+
+        String getString(int column) {
+            return (String) values[column];
+        }
+
+        int getInt(int column) {
+            return ((Number) values[column]).intValue();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * In-memory index of the media files each client can play, so it's answered with bitmap intersections instead of
+ * joining the flux of the whole catalog with the codecs of the client.
+ * <p>
+ * A file is playable when each of its video flux fits in the maximum resolution of the client and uses a codec it
+ * supports, files without video flux are playable everywhere. Video codecs are numbered, so the codecs of a file or
+ * a client are a bitmask, and the files are numbered with dense ordinals bucketed by their largest width, largest
+ * height and codec mask.
+ */
+class PlayabilityIndex {
+
+    private static final class Client {
+        private final int maxWidth;
+        private final int maxHeight;
+        private long videoCodecs = 0;
+
+        Client(int maxWidth, int maxHeight) {
+            this.maxWidth = maxWidth;
+            this.maxHeight = maxHeight;
+        }
+    }
+
+    private static final class FileEntry {
+        private final int ordinal;
+        private int width = 0;
+        private int height = 0;
+        private long videoCodecs = 0;
+
+        FileEntry(int ordinal) {
+            this.ordinal = ordinal;
+        }
+    }
+
+    private final Map<String, Integer> videoCodecBits = new HashMap<>();
+    private final Map<String, Client> clients = new HashMap<>();
+    private final Map<Integer, FileEntry> files = new HashMap<>();
+    private final List<Integer> fileIds = new ArrayList<>();
+    private final TreeMap<Integer, BitSet> filesByWidth = new TreeMap<>();
+    private final TreeMap<Integer, BitSet> filesByHeight = new TreeMap<>();
+    private final Map<Long, BitSet> filesByVideoCodecs = new HashMap<>();
+
+    /**
+     * Builds the index from the tables. The connection must see the uncommitted writes of the application,
+     * which are indexed as they happen.
+     */
+    static PlayabilityIndex build(Connection connection) throws SQLException {
+        PlayabilityIndex index = new PlayabilityIndex();
+        try (ResultSet resultSet = OracleDB.prepare(connection, Query.LIST_CLIENTS).executeQuery()) {
+            while (resultSet.next()) {
+                index.clients.put(clientKey(resultSet.getString("BRAND"), resultSet.getString("MODEL")),
+                        new Client(resultSet.getInt("MAX_WIDTH"), resultSet.getInt("MAX_HEIGHT")));
+            }
+        }
+        try (ResultSet resultSet = OracleDB.prepare(connection, Query.LIST_CLIENT_VIDEO_CODECS).executeQuery()) {
+            while (resultSet.next()) {
+                Client client = index.clients.get(clientKey(resultSet.getString("BRAND"), resultSet.getString("MODEL")));
+                if (client != null)
+                    client.videoCodecs |= index.videoCodecBit(resultSet.getString("VIDEO_CODEC_NAME"));
+            }
+        }
+        try (ResultSet resultSet = OracleDB.prepare(connection, Query.LIST_FILE_VIDEO_SHAPES).executeQuery()) {
+            while (resultSet.next()) {
+                int fileId = resultSet.getInt("FILE_ID");
+                String codec = resultSet.getString("VIDEO_CODEC_NAME");
+                if (codec == null)
+                    index.addFile(fileId);
+                else
+                    index.addVideoFlux(fileId, codec, resultSet.getInt("WIDTH"), resultSet.getInt("HEIGHT"));
+            }
+        }
+        return index;
+    }
+
+    // region Queries
+    /**
+     * IDs of the files the client can play, in ascending order. Empty when the client doesn't exist.
+     */
+    synchronized List<Integer> findPlayableFiles(String brand, String model) {
+        Client client = clients.get(clientKey(brand, model));
+        if (client == null)
+            return new ArrayList<>();
+        BitSet matches = new BitSet();
+        filesByWidth.headMap(client.maxWidth, true).values().forEach(matches::or);
+        BitSet fitsHeight = new BitSet();
+        filesByHeight.headMap(client.maxHeight, true).values().forEach(fitsHeight::or);
+        matches.and(fitsHeight);
+        BitSet supported = new BitSet();
+        filesByVideoCodecs.forEach((codecs, ordinals) -> {
+            if ((codecs & ~client.videoCodecs) == 0)
+                supported.or(ordinals);
+        });
+        matches.and(supported);
+
+        List<Integer> ids = new ArrayList<>(matches.cardinality());
+        matches.stream().forEach(file -> ids.add(fileIds.get(file)));
+        ids.sort(null);
+        return ids;
+    }
+    // endregion
+
+    // region Maintenance
+    synchronized void addFile(int fileId) {
+        files.computeIfAbsent(fileId, id -> {
+            FileEntry file = new FileEntry(fileIds.size());
+            fileIds.add(id);
+            bucket(file);
+            return file;
+        });
+    }
+
+    synchronized void addVideoFlux(int fileId, String codec, int width, int height) {
+        addFile(fileId);
+        FileEntry file = files.get(fileId);
+        unbucket(file);
+        file.width = Math.max(file.width, width);
+        file.height = Math.max(file.height, height);
+        file.videoCodecs |= videoCodecBit(codec);
+        bucket(file);
+    }
+
+    synchronized void renameFile(int previousId, int fileId) {
+        FileEntry file = files.remove(previousId);
+        if (file == null)
+            return;
+        files.put(fileId, file);
+        fileIds.set(file.ordinal, fileId);
+    }
+
+    synchronized void removeFile(int fileId) {
+        // The ordinal is not reused
+        FileEntry file = files.remove(fileId);
+        if (file != null)
+            unbucket(file);
+    }
+    // endregion
+
+    private void bucket(FileEntry file) {
+        filesByWidth.computeIfAbsent(file.width, w -> new BitSet()).set(file.ordinal);
+        filesByHeight.computeIfAbsent(file.height, h -> new BitSet()).set(file.ordinal);
+        filesByVideoCodecs.computeIfAbsent(file.videoCodecs, c -> new BitSet()).set(file.ordinal);
+    }
+
+    private void unbucket(FileEntry file) {
+        filesByWidth.get(file.width).clear(file.ordinal);
+        filesByHeight.get(file.height).clear(file.ordinal);
+        filesByVideoCodecs.get(file.videoCodecs).clear(file.ordinal);
+    }
+
+    private long videoCodecBit(String codec) {
+        int bit = videoCodecBits.computeIfAbsent(codec, c -> videoCodecBits.size());
+        if (bit >= Long.SIZE)
+            throw new IllegalStateException("More than " + Long.SIZE + " video codecs, can't index " + codec);
+        return 1L << bit;
+    }
+
+    private static String clientKey(String brand, String model) {
+        return brand + '\0' + model;
+    }
+
+    synchronized String getStatistics() {
+        return String.format(
+                "clients=%d videoCodecs=%d files=%d codecMasks=%d",
+                clients.size(), videoCodecBits.size(), files.size(), filesByVideoCodecs.size()
+        );
+    }
+}
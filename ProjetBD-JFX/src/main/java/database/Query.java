@@ -0,0 +1,377 @@
+package database;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registry of every SQL statement sent by the application, each one identified by a name.
+ * Statements are prepared once per connection by {@link StatementCache}, which records hits and misses here.
+ */
+public final class Query {
+
+    private static final Map<String, Query> registry = new LinkedHashMap<>();
+
+    // Keyset page of tracks, parameters: album id, album id, track id, page size
+    private static final String TRACK_PAGE_CONDITION = "(ALBUM_ID > ? OR (ALBUM_ID = ? AND TRACK_ID >= ?))";
+    private static final String TRACK_PAGE =
+            "(SELECT ALBUM_ID, TRACK_ID FROM TRACK WHERE " + TRACK_PAGE_CONDITION + " ORDER BY ALBUM_ID, TRACK_ID FETCH FIRST ? ROWS ONLY)";
+    // Up to KEY_BATCH primary keys of two columns, unused slots are filled with the last key
+    static final int KEY_BATCH = 200;
+    private static final String KEY_LIST = keyList(KEY_BATCH);
+    // Tracks with an audio flux in the user's language and the given category, parameters: user email, music category
+    private static final String TRACKS_USER =
+            "(SELECT T.ALBUM_ID, T.TRACK_ID FROM TRACK T WHERE " +
+                    "EXISTS (SELECT 1 FROM FILE_CONCERNE_TRACK FCT INNER JOIN AUDIO_FLUX AF ON AF.FILE_ID = FCT.FILE_ID " +
+                    "WHERE FCT.ALBUM_ID = T.ALBUM_ID AND FCT.TRACK_ID = T.TRACK_ID " +
+                    "AND AF.AUDIO_LANGUAGE = (SELECT PREFERRED_LANGUAGE FROM KLEX_USER WHERE EMAIL = ?)) " +
+                    "AND EXISTS (SELECT 1 FROM TRACK_A_POUR_CAT TAC " +
+                    "WHERE TAC.ALBUM_ID = T.ALBUM_ID AND TAC.TRACK_ID = T.TRACK_ID AND TAC.MUSIC_CATEGORY_NAME = ?))";
+
+    // region Users
+    public static final Query GET_USER = register("GET_USER", "SELECT * FROM KLEX_USER WHERE EMAIL = ?");
+    public static final Query LIST_USERS = register("LIST_USERS", "SELECT * FROM KLEX_USER");
+    public static final Query ADD_USER = register("ADD_USER", "INSERT INTO KLEX_USER VALUES (?, ?, ?, ?, ?, ?)");
+    public static final Query UPDATE_USER = register("UPDATE_USER",
+            "UPDATE KLEX_USER SET EMAIL = ?, FIRST_NAME = ?, LAST_NAME = ?, AGE = ?, ACCESS_CODE = ?, PREFERRED_LANGUAGE = ? WHERE EMAIL = ?");
+    public static final Query DELETE_USER = register("DELETE_USER", "DELETE KLEX_USER WHERE EMAIL = ?");
+
+    public static final Query LIST_USER_PAGE_KEYS = register("LIST_USER_PAGE_KEYS",
+            "SELECT EMAIL, TOTAL FROM (" +
+                    "SELECT EMAIL, ROW_NUMBER() OVER (ORDER BY EMAIL) RN, COUNT(*) OVER () TOTAL FROM KLEX_USER" +
+                    ") WHERE MOD(RN - 1, ?) = 0 ORDER BY EMAIL");
+    public static final Query LIST_USERS_PAGE = register("LIST_USERS_PAGE",
+            "SELECT * FROM KLEX_USER WHERE EMAIL >= ? ORDER BY EMAIL FETCH FIRST ? ROWS ONLY");
+    // endregion
+
+    // region Media files
+    public static final Query ADD_MEDIA_FILE = register("ADD_MEDIA_FILE", "INSERT INTO MEDIA_FILE VALUES (?, ?, ?, ?)");
+    public static final Query ADD_FLUX = register("ADD_FLUX", "INSERT INTO FLUX VALUES (?, ?, ?)");
+    public static final Query ADD_VIDEO_FLUX = register("ADD_VIDEO_FLUX", "INSERT INTO VIDEO_FLUX VALUES (?, ?, ?, ?, ?, ?)");
+    public static final Query ADD_AUDIO_FLUX = register("ADD_AUDIO_FLUX", "INSERT INTO AUDIO_FLUX VALUES (?, ?, ?, ?, ?, ?)");
+    public static final Query ADD_TEXT_FLUX = register("ADD_TEXT_FLUX", "INSERT INTO TEXT_FLUX VALUES (?, ?, ?, ?, ?)");
+    public static final Query UPDATE_MEDIA_FILE = register("UPDATE_MEDIA_FILE",
+            "UPDATE MEDIA_FILE SET FILE_ID = ?, FILE_SIZE = ?, ADDED_DATE = ?, USER_EMAIL = ? WHERE FILE_ID = ?");
+    public static final Query DELETE_MEDIA_FILE = register("DELETE_MEDIA_FILE", "DELETE MEDIA_FILE WHERE FILE_ID = ?");
+
+    public static final Query LIST_FILE_LANGUAGES = register("LIST_FILE_LANGUAGES",
+            "SELECT FILE_ID, AUDIO_LANGUAGE LANGUAGE, 'A' KIND FROM AUDIO_FLUX " +
+                    "UNION SELECT FILE_ID, TEXT_LANGUAGE LANGUAGE, 'T' KIND FROM TEXT_FLUX");
+    public static final Query LIST_FILM_FILE_LINKS = register("LIST_FILM_FILE_LINKS",
+            "SELECT FILE_ID, FILM_TITLE, FILM_YEAR FROM FILE_CONCERNE_FILM");
+    public static final Query LIST_TRACK_FILE_LINKS = register("LIST_TRACK_FILE_LINKS",
+            "SELECT FILE_ID, ALBUM_ID, TRACK_ID FROM FILE_CONCERNE_TRACK");
+    public static final Query LIST_FILE_VIDEO_SHAPES = register("LIST_FILE_VIDEO_SHAPES",
+            "SELECT MF.FILE_ID, VF.VIDEO_CODEC_NAME, VF.WIDTH, VF.HEIGHT FROM MEDIA_FILE MF " +
+                    "LEFT JOIN VIDEO_FLUX VF ON VF.FILE_ID = MF.FILE_ID");
+    public static final Query LIST_FILE_STORAGE = register("LIST_FILE_STORAGE",
+            "SELECT MF.FILE_ID, MF.FILE_SIZE, MF.USER_EMAIL, CASE " +
+                    "WHEN EXISTS (SELECT 1 FROM FILE_CONCERNE_FILM FCF WHERE FCF.FILE_ID = MF.FILE_ID) THEN 'FILM' " +
+                    "WHEN EXISTS (SELECT 1 FROM FILE_CONCERNE_TRACK FCT WHERE FCT.FILE_ID = MF.FILE_ID) THEN 'TRACK' " +
+                    "END MEDIA_TYPE FROM MEDIA_FILE MF");
+    public static final Query LIST_FLUX_RATES = register("LIST_FLUX_RATES",
+            "SELECT F.FILE_ID, F.FLUX_ID, F.DATA_RATE, " +
+                    "CASE WHEN VF.FILE_ID IS NOT NULL THEN 'V' WHEN AF.FILE_ID IS NOT NULL THEN 'A' WHEN TF.FILE_ID IS NOT NULL THEN 'T' END KIND, " +
+                    "COALESCE(AF.AUDIO_LANGUAGE, TF.TEXT_LANGUAGE) LANGUAGE FROM FLUX F " +
+                    "LEFT JOIN VIDEO_FLUX VF ON VF.FILE_ID = F.FILE_ID AND VF.FLUX_ID = F.FLUX_ID " +
+                    "LEFT JOIN AUDIO_FLUX AF ON AF.FILE_ID = F.FILE_ID AND AF.FLUX_ID = F.FLUX_ID " +
+                    "LEFT JOIN TEXT_FLUX TF ON TF.FILE_ID = F.FILE_ID AND TF.FLUX_ID = F.FLUX_ID " +
+                    "ORDER BY F.DATA_RATE");
+    // endregion
+
+    // region Codecs
+    public static final Query LIST_VIDEO_CODECS = register("LIST_VIDEO_CODECS", "SELECT * FROM VIDEO_CODEC");
+    public static final Query LIST_AUDIO_CODECS = register("LIST_AUDIO_CODECS", "SELECT * FROM AUDIO_CODEC");
+    public static final Query LIST_TEXT_CODECS = register("LIST_TEXT_CODECS", "SELECT * FROM TEXT_CODEC");
+    // endregion
+
+    // region Clients
+    public static final Query LIST_CLIENTS = register("LIST_CLIENTS", "SELECT BRAND, MODEL, MAX_WIDTH, MAX_HEIGHT FROM CLIENT");
+    public static final Query LIST_CLIENT_VIDEO_CODECS = register("LIST_CLIENT_VIDEO_CODECS",
+            "SELECT BRAND, MODEL, VIDEO_CODEC_NAME FROM CLIENT_SUPPORTE_CODEC_VIDEO");
+    // endregion
+
+    // region Artists
+    public static final Query LIST_ARTISTS = register("LIST_ARTISTS", "SELECT * FROM ARTIST");
+    public static final Query GET_ARTIST = register("GET_ARTIST", "SELECT * FROM ARTIST WHERE ARTIST_ID = ?");
+    public static final Query ADD_ARTIST = register("ADD_ARTIST", "INSERT INTO ARTIST VALUES (?, ?, ?, ?, ?, ?)");
+    public static final Query UPDATE_ARTIST = register("UPDATE_ARTIST",
+            "UPDATE ARTIST SET ARTIST_ID = ?, NAME = ?, PICTURE_URL = ?, MAIN_SPECIALTY = ?, BIRTH_DATE = ?, BIOGRAPHY = ? WHERE ARTIST_ID = ?");
+    // endregion
+
+    // region Films
+    public static final Query LIST_FILM_CATEGORIES = register("LIST_FILM_CATEGORIES", "SELECT * FROM FILM_CATEGORY");
+    public static final Query ADD_FILM_CATEGORY = register("ADD_FILM_CATEGORY", "INSERT INTO FILM_CATEGORY VALUES (?)");
+    public static final Query UPDATE_FILM_CATEGORY = register("UPDATE_FILM_CATEGORY",
+            "UPDATE FILM_CATEGORY SET FILM_CATEGORY_NAME = ? WHERE FILM_CATEGORY_NAME = ?");
+    public static final Query DELETE_CATEGORIES_OF_FILM = register("DELETE_CATEGORIES_OF_FILM",
+            "DELETE FILM_A_POUR_CAT WHERE FILM_TITLE = ? AND FILM_YEAR = ?");
+    public static final Query ADD_CATEGORY_TO_FILM = register("ADD_CATEGORY_TO_FILM", "INSERT INTO FILM_A_POUR_CAT VALUES (?, ?, ?)");
+
+    public static final Query LIST_FILMS = register("LIST_FILMS",
+            "SELECT FILM.*, FAC.FILM_CATEGORY_NAME FROM FILM " +
+                    "LEFT JOIN FILM_A_POUR_CAT FAC ON FAC.FILM_TITLE = FILM.FILM_TITLE AND FAC.FILM_YEAR = FILM.FILM_YEAR " +
+                    "ORDER BY FILM.FILM_TITLE, FILM.FILM_YEAR");
+    public static final Query LIST_FILM_AGES = register("LIST_FILM_AGES", "SELECT FILM_TITLE, FILM_YEAR, RECOMMENDED_AGE FROM FILM");
+    public static final Query LIST_FILM_CATEGORY_LINKS = register("LIST_FILM_CATEGORY_LINKS", "SELECT * FROM FILM_A_POUR_CAT");
+    public static final Query LIST_FILM_ROWS = register("LIST_FILM_ROWS", "SELECT * FROM FILM");
+    public static final Query GET_FILM = register("GET_FILM", "SELECT * FROM FILM WHERE FILM_TITLE = ? AND FILM_YEAR = ?");
+    public static final Query LIST_CATEGORIES_OF_FILM = register("LIST_CATEGORIES_OF_FILM",
+            "SELECT * FROM FILM_A_POUR_CAT WHERE FILM_TITLE = ? AND FILM_YEAR = ?");
+    public static final Query LIST_FILMS_BY_KEYS = register("LIST_FILMS_BY_KEYS",
+            "SELECT FILM.*, FAC.FILM_CATEGORY_NAME FROM FILM " +
+                    "LEFT JOIN FILM_A_POUR_CAT FAC ON FAC.FILM_TITLE = FILM.FILM_TITLE AND FAC.FILM_YEAR = FILM.FILM_YEAR " +
+                    "WHERE (FILM.FILM_TITLE, FILM.FILM_YEAR) IN " + KEY_LIST + " " +
+                    "ORDER BY FILM.FILM_TITLE, FILM.FILM_YEAR");
+    public static final Query LIST_FILM_PAGE_KEYS = register("LIST_FILM_PAGE_KEYS",
+            "SELECT FILM_TITLE, FILM_YEAR, TOTAL FROM (" +
+                    "SELECT FILM_TITLE, FILM_YEAR, ROW_NUMBER() OVER (ORDER BY FILM_TITLE, FILM_YEAR) RN, COUNT(*) OVER () TOTAL FROM FILM" +
+                    ") WHERE MOD(RN - 1, ?) = 0 ORDER BY FILM_TITLE, FILM_YEAR");
+    public static final Query LIST_FILMS_PAGE = register("LIST_FILMS_PAGE",
+            "SELECT FILM.*, FAC.FILM_CATEGORY_NAME FROM (" +
+                    "SELECT * FROM FILM WHERE FILM_TITLE > ? OR (FILM_TITLE = ? AND FILM_YEAR >= ?) " +
+                    "ORDER BY FILM_TITLE, FILM_YEAR FETCH FIRST ? ROWS ONLY" +
+                    ") FILM LEFT JOIN FILM_A_POUR_CAT FAC ON FAC.FILM_TITLE = FILM.FILM_TITLE AND FAC.FILM_YEAR = FILM.FILM_YEAR " +
+                    "ORDER BY FILM.FILM_TITLE, FILM.FILM_YEAR");
+    public static final Query ADD_FILM = register("ADD_FILM", "INSERT INTO FILM VALUES (?, ?, ?, ?, ?)");
+    public static final Query UPDATE_FILM = register("UPDATE_FILM",
+            "UPDATE FILM SET FILM_TITLE = ?, FILM_YEAR = ?, ABSTRACT = ?, RECOMMENDED_AGE = ?, POSTER_URL = ? WHERE FILM_TITLE = ? AND FILM_YEAR = ?");
+
+    public static final Query LIST_FILM_ARTISTS = register("LIST_FILM_ARTISTS",
+            "SELECT ARTIST.* FROM PARTICIPE_AU_FILM PAF " +
+                    "INNER JOIN ARTIST on ARTIST.ARTIST_ID = PAF.ARTIST_ID " +
+                    "WHERE FILM_TITLE = ? AND FILM_YEAR = ?");
+    public static final Query LIST_FILM_ACTORS = register("LIST_FILM_ACTORS",
+            "SELECT ARTIST.*, JR.CHARACTER_NAME FROM JOUE_ROLE JR " +
+                    "INNER JOIN ARTIST on ARTIST.ARTIST_ID = JR.ARTIST_ID " +
+                    "WHERE FILM_TITLE = ? AND FILM_YEAR = ?");
+    public static final Query DELETE_FILM_ROLES = register("DELETE_FILM_ROLES", "DELETE JOUE_ROLE WHERE FILM_TITLE = ? AND FILM_YEAR = ?");
+    public static final Query DELETE_FILM_PARTICIPATIONS = register("DELETE_FILM_PARTICIPATIONS",
+            "DELETE PARTICIPE_AU_FILM WHERE FILM_TITLE = ? AND FILM_YEAR = ?");
+    public static final Query ADD_FILM_ROLE = register("ADD_FILM_ROLE", "INSERT INTO JOUE_ROLE VALUES (?, ?, ?, ?)");
+    public static final Query ADD_FILM_PARTICIPATION = register("ADD_FILM_PARTICIPATION", "INSERT INTO PARTICIPE_AU_FILM VALUES (?, ?, ?)");
+    public static final Query LIST_FILM_ARTIST_LINKS = register("LIST_FILM_ARTIST_LINKS",
+            "SELECT ARTIST_ID, FILM_TITLE, FILM_YEAR FROM PARTICIPE_AU_FILM " +
+                    "UNION SELECT ARTIST_ID, FILM_TITLE, FILM_YEAR FROM JOUE_ROLE");
+
+    public static final Query ADD_FILE_TO_FILM = register("ADD_FILE_TO_FILM", "INSERT INTO FILE_CONCERNE_FILM VALUES (?, ?, ?)");
+    // Deleting the files cascades to their flux and links, deleting the films to their categories, artists and pictures
+    public static final Query LIST_FILE_IDS_OF_FILMS = register("LIST_FILE_IDS_OF_FILMS",
+            "SELECT FILE_ID FROM FILE_CONCERNE_FILM WHERE (FILM_TITLE, FILM_YEAR) IN " + KEY_LIST);
+    public static final Query DELETE_FILES_OF_FILMS = register("DELETE_FILES_OF_FILMS",
+            "DELETE MEDIA_FILE WHERE FILE_ID IN (" +
+                    "SELECT FILE_ID FROM FILE_CONCERNE_FILM WHERE (FILM_TITLE, FILM_YEAR) IN " + KEY_LIST + ")");
+    public static final Query DELETE_FILMS = register("DELETE_FILMS",
+            "DELETE FILM WHERE (FILM_TITLE, FILM_YEAR) IN " + KEY_LIST);
+
+    // Films of a category allowed at the age of the user, with at least one file having an audio or text flux
+    // in the user's language. Parameters: user email, film category
+    public static final Query LIST_FILMS_USER = register("LIST_FILMS_USER",
+            "SELECT FILM.*, FAC.FILM_CATEGORY_NAME FROM FILM " +
+                    "CROSS JOIN (SELECT AGE, PREFERRED_LANGUAGE FROM KLEX_USER WHERE EMAIL = ?) U " +
+                    "LEFT JOIN FILM_A_POUR_CAT FAC ON FAC.FILM_TITLE = FILM.FILM_TITLE AND FAC.FILM_YEAR = FILM.FILM_YEAR " +
+                    "WHERE FILM.RECOMMENDED_AGE <= U.AGE " +
+                    "AND EXISTS (SELECT 1 FROM FILM_A_POUR_CAT C " +
+                    "WHERE C.FILM_TITLE = FILM.FILM_TITLE AND C.FILM_YEAR = FILM.FILM_YEAR AND C.FILM_CATEGORY_NAME = ?) " +
+                    "AND EXISTS (SELECT 1 FROM FILE_CONCERNE_FILM FCF " +
+                    "WHERE FCF.FILM_TITLE = FILM.FILM_TITLE AND FCF.FILM_YEAR = FILM.FILM_YEAR AND (" +
+                    "EXISTS (SELECT 1 FROM AUDIO_FLUX AF WHERE AF.FILE_ID = FCF.FILE_ID AND AF.AUDIO_LANGUAGE = U.PREFERRED_LANGUAGE) " +
+                    "OR EXISTS (SELECT 1 FROM TEXT_FLUX TF WHERE TF.FILE_ID = FCF.FILE_ID AND TF.TEXT_LANGUAGE = U.PREFERRED_LANGUAGE))) " +
+                    "ORDER BY FILM.FILM_TITLE, FILM.FILM_YEAR");
+    // endregion
+
+    // region Albums
+    public static final Query LIST_ALBUMS = register("LIST_ALBUMS", "SELECT * FROM ALBUM");
+    public static final Query ADD_ALBUM = register("ADD_ALBUM", "INSERT INTO ALBUM VALUES (?, ?, ?, ?, ?)");
+    public static final Query UPDATE_ALBUM = register("UPDATE_ALBUM",
+            "UPDATE ALBUM SET ALBUM_ID = ?, ALBUM_TITLE = ?, RELEASE_DATE = ?, COVER_URL = ?, ARTIST_NAME = ? WHERE ALBUM_ID = ?");
+    public static final Query LIST_ALBUM_CATEGORIES = register("LIST_ALBUM_CATEGORIES", "SELECT * FROM ALBUM_A_POUR_CAT");
+    public static final Query GET_ALBUM = register("GET_ALBUM", "SELECT * FROM ALBUM WHERE ALBUM_ID = ?");
+    public static final Query LIST_CATEGORIES_OF_ALBUM = register("LIST_CATEGORIES_OF_ALBUM",
+            "SELECT * FROM ALBUM_A_POUR_CAT WHERE ALBUM_ID = ?");
+    // endregion
+
+    // region Tracks
+    public static final Query LIST_MUSIC_CATEGORIES = register("LIST_MUSIC_CATEGORIES", "SELECT * FROM MUSIC_CATEGORY");
+    public static final Query ADD_MUSIC_CATEGORY = register("ADD_MUSIC_CATEGORY", "INSERT INTO MUSIC_CATEGORY VALUES (?)");
+    public static final Query UPDATE_MUSIC_CATEGORY = register("UPDATE_MUSIC_CATEGORY",
+            "UPDATE MUSIC_CATEGORY SET MUSIC_CATEGORY_NAME = ? WHERE MUSIC_CATEGORY_NAME = ?");
+    public static final Query LIST_TRACK_CATEGORIES = register("LIST_TRACK_CATEGORIES", "SELECT * FROM TRACK_A_POUR_CAT");
+    public static final Query DELETE_CATEGORIES_OF_TRACK = register("DELETE_CATEGORIES_OF_TRACK",
+            "DELETE TRACK_A_POUR_CAT WHERE ALBUM_ID = ? AND TRACK_ID = ?");
+    public static final Query ADD_CATEGORY_TO_TRACK = register("ADD_CATEGORY_TO_TRACK", "INSERT INTO TRACK_A_POUR_CAT VALUES (?, ?, ?)");
+
+    public static final Query LIST_TRACKS = register("LIST_TRACKS", "SELECT * FROM TRACK");
+    public static final Query GET_TRACK = register("GET_TRACK", "SELECT * FROM TRACK WHERE ALBUM_ID = ? AND TRACK_ID = ?");
+    public static final Query LIST_CATEGORIES_OF_TRACK = register("LIST_CATEGORIES_OF_TRACK",
+            "SELECT * FROM TRACK_A_POUR_CAT WHERE ALBUM_ID = ? AND TRACK_ID = ?");
+    public static final Query LIST_TRACK_PAGE_KEYS = register("LIST_TRACK_PAGE_KEYS",
+            "SELECT ALBUM_ID, TRACK_ID, TOTAL FROM (" +
+                    "SELECT ALBUM_ID, TRACK_ID, ROW_NUMBER() OVER (ORDER BY ALBUM_ID, TRACK_ID) RN, COUNT(*) OVER () TOTAL FROM TRACK" +
+                    ") WHERE MOD(RN - 1, ?) = 0 ORDER BY ALBUM_ID, TRACK_ID");
+    public static final Query LIST_TRACKS_PAGE = register("LIST_TRACKS_PAGE",
+            "SELECT * FROM TRACK WHERE " + TRACK_PAGE_CONDITION + " ORDER BY ALBUM_ID, TRACK_ID FETCH FIRST ? ROWS ONLY");
+    public static final Query LIST_ALBUMS_OF_TRACKS_PAGE = register("LIST_ALBUMS_OF_TRACKS_PAGE",
+            "SELECT * FROM ALBUM WHERE ALBUM_ID IN (SELECT ALBUM_ID FROM " + TRACK_PAGE + ")");
+    public static final Query LIST_ALBUM_CATEGORIES_OF_TRACKS_PAGE = register("LIST_ALBUM_CATEGORIES_OF_TRACKS_PAGE",
+            "SELECT * FROM ALBUM_A_POUR_CAT WHERE ALBUM_ID IN (SELECT ALBUM_ID FROM " + TRACK_PAGE + ")");
+    public static final Query LIST_TRACK_CATEGORIES_OF_TRACKS_PAGE = register("LIST_TRACK_CATEGORIES_OF_TRACKS_PAGE",
+            "SELECT TAC.* FROM TRACK_A_POUR_CAT TAC " +
+                    "INNER JOIN " + TRACK_PAGE + " P ON P.ALBUM_ID = TAC.ALBUM_ID AND P.TRACK_ID = TAC.TRACK_ID");
+    public static final Query LIST_MUSICIANS_OF_TRACKS_PAGE = register("LIST_MUSICIANS_OF_TRACKS_PAGE",
+            "SELECT JD.ALBUM_ID, JD.TRACK_ID, JD.INSTRUMENT_NAME, ARTIST.* FROM JOUE_DANS JD " +
+                    "INNER JOIN ARTIST on ARTIST.ARTIST_ID = JD.ARTIST_ID " +
+                    "INNER JOIN " + TRACK_PAGE + " P ON P.ALBUM_ID = JD.ALBUM_ID AND P.TRACK_ID = JD.TRACK_ID");
+    public static final Query ADD_TRACK = register("ADD_TRACK", "INSERT INTO TRACK VALUES (?, ?, ?, ?)");
+    public static final Query UPDATE_TRACK = register("UPDATE_TRACK",
+            "UPDATE TRACK SET ALBUM_ID = ?, TRACK_ID = ?, TRACK_TITLE = ?, LENGTH = ?  WHERE ALBUM_ID = ? AND TRACK_ID = ?");
+
+    public static final Query LIST_TRACK_MUSICIANS = register("LIST_TRACK_MUSICIANS",
+            "SELECT ARTIST.*, JD.INSTRUMENT_NAME FROM JOUE_DANS JD " +
+                    "INNER JOIN ARTIST on ARTIST.ARTIST_ID = JD.ARTIST_ID " +
+                    "WHERE ALBUM_ID = ? AND TRACK_ID = ?");
+    public static final Query LIST_MUSICIANS = register("LIST_MUSICIANS",
+            "SELECT JD.ALBUM_ID, JD.TRACK_ID, JD.INSTRUMENT_NAME, ARTIST.* FROM JOUE_DANS JD " +
+                    "INNER JOIN ARTIST on ARTIST.ARTIST_ID = JD.ARTIST_ID");
+    public static final Query DELETE_TRACK_MUSICIANS = register("DELETE_TRACK_MUSICIANS", "DELETE JOUE_DANS WHERE ALBUM_ID = ? AND TRACK_ID = ?");
+    public static final Query ADD_TRACK_MUSICIAN = register("ADD_TRACK_MUSICIAN", "INSERT INTO JOUE_DANS VALUES (?, ?, ?, ?)");
+    public static final Query LIST_TRACK_ARTIST_LINKS = register("LIST_TRACK_ARTIST_LINKS",
+            "SELECT ARTIST_ID, ALBUM_ID, TRACK_ID FROM JOUE_DANS");
+
+    public static final Query ADD_FILE_TO_TRACK = register("ADD_FILE_TO_TRACK", "INSERT INTO FILE_CONCERNE_TRACK VALUES (?, ?, ?)");
+    public static final Query LIST_FILE_IDS_OF_TRACKS = register("LIST_FILE_IDS_OF_TRACKS",
+            "SELECT FILE_ID FROM FILE_CONCERNE_TRACK WHERE (ALBUM_ID, TRACK_ID) IN " + KEY_LIST);
+    public static final Query DELETE_FILES_OF_TRACKS = register("DELETE_FILES_OF_TRACKS",
+            "DELETE MEDIA_FILE WHERE FILE_ID IN (" +
+                    "SELECT FILE_ID FROM FILE_CONCERNE_TRACK WHERE (ALBUM_ID, TRACK_ID) IN " + KEY_LIST + ")");
+    public static final Query DELETE_TRACKS = register("DELETE_TRACKS",
+            "DELETE TRACK WHERE (ALBUM_ID, TRACK_ID) IN " + KEY_LIST);
+
+    public static final Query LIST_TRACKS_BY_KEYS = register("LIST_TRACKS_BY_KEYS",
+            "SELECT * FROM TRACK WHERE (ALBUM_ID, TRACK_ID) IN " + KEY_LIST + " ORDER BY ALBUM_ID, TRACK_ID");
+    public static final Query LIST_ALBUMS_OF_TRACKS_BY_KEYS = register("LIST_ALBUMS_OF_TRACKS_BY_KEYS",
+            "SELECT * FROM ALBUM WHERE ALBUM_ID IN (SELECT ALBUM_ID FROM TRACK WHERE (ALBUM_ID, TRACK_ID) IN " + KEY_LIST + ")");
+    public static final Query LIST_ALBUM_CATEGORIES_OF_TRACKS_BY_KEYS = register("LIST_ALBUM_CATEGORIES_OF_TRACKS_BY_KEYS",
+            "SELECT * FROM ALBUM_A_POUR_CAT WHERE ALBUM_ID IN (SELECT ALBUM_ID FROM TRACK WHERE (ALBUM_ID, TRACK_ID) IN " + KEY_LIST + ")");
+    public static final Query LIST_TRACK_CATEGORIES_OF_TRACKS_BY_KEYS = register("LIST_TRACK_CATEGORIES_OF_TRACKS_BY_KEYS",
+            "SELECT * FROM TRACK_A_POUR_CAT WHERE (ALBUM_ID, TRACK_ID) IN " + KEY_LIST);
+    public static final Query LIST_MUSICIANS_OF_TRACKS_BY_KEYS = register("LIST_MUSICIANS_OF_TRACKS_BY_KEYS",
+            "SELECT JD.ALBUM_ID, JD.TRACK_ID, JD.INSTRUMENT_NAME, ARTIST.* FROM JOUE_DANS JD " +
+                    "INNER JOIN ARTIST on ARTIST.ARTIST_ID = JD.ARTIST_ID " +
+                    "WHERE (JD.ALBUM_ID, JD.TRACK_ID) IN " + KEY_LIST);
+
+    public static final Query LIST_TRACKS_USER = register("LIST_TRACKS_USER",
+            "SELECT * FROM TRACK WHERE (ALBUM_ID, TRACK_ID) IN " + TRACKS_USER + " ORDER BY ALBUM_ID, TRACK_ID");
+    public static final Query LIST_ALBUMS_OF_TRACKS_USER = register("LIST_ALBUMS_OF_TRACKS_USER",
+            "SELECT * FROM ALBUM WHERE ALBUM_ID IN (SELECT ALBUM_ID FROM " + TRACKS_USER + ")");
+    public static final Query LIST_ALBUM_CATEGORIES_OF_TRACKS_USER = register("LIST_ALBUM_CATEGORIES_OF_TRACKS_USER",
+            "SELECT * FROM ALBUM_A_POUR_CAT WHERE ALBUM_ID IN (SELECT ALBUM_ID FROM " + TRACKS_USER + ")");
+    public static final Query LIST_TRACK_CATEGORIES_OF_TRACKS_USER = register("LIST_TRACK_CATEGORIES_OF_TRACKS_USER",
+            "SELECT * FROM TRACK_A_POUR_CAT WHERE (ALBUM_ID, TRACK_ID) IN " + TRACKS_USER);
+    public static final Query LIST_MUSICIANS_OF_TRACKS_USER = register("LIST_MUSICIANS_OF_TRACKS_USER",
+            "SELECT JD.ALBUM_ID, JD.TRACK_ID, JD.INSTRUMENT_NAME, ARTIST.* FROM JOUE_DANS JD " +
+                    "INNER JOIN ARTIST on ARTIST.ARTIST_ID = JD.ARTIST_ID " +
+                    "WHERE (JD.ALBUM_ID, JD.TRACK_ID) IN " + TRACKS_USER);
+    // endregion
+
+    // region Schema
+    public static final Query COUNT_SCHEMA_VERSION_TABLES = register("COUNT_SCHEMA_VERSION_TABLES",
+            "SELECT COUNT(*) FROM USER_TABLES WHERE TABLE_NAME = 'SCHEMA_VERSION'");
+    public static final Query CREATE_SCHEMA_VERSION = register("CREATE_SCHEMA_VERSION",
+            "CREATE TABLE SCHEMA_VERSION (VERSION int NOT NULL PRIMARY KEY, DESCRIPTION varchar(255) NOT NULL, " +
+                    "APPLIED_ON DATE NOT NULL, ELAPSED_MS int NOT NULL)");
+    public static final Query LIST_SCHEMA_VERSIONS = register("LIST_SCHEMA_VERSIONS", "SELECT VERSION FROM SCHEMA_VERSION");
+    public static final Query ADD_SCHEMA_VERSION = register("ADD_SCHEMA_VERSION",
+            "INSERT INTO SCHEMA_VERSION VALUES (?, ?, SYSDATE, ?)");
+    public static final Query GET_SEQUENCE_INCREMENT = register("GET_SEQUENCE_INCREMENT",
+            "SELECT INCREMENT_BY FROM USER_SEQUENCES WHERE SEQUENCE_NAME = ?");
+    public static final Query GET_PLAN_COST = register("GET_PLAN_COST",
+            "SELECT MAX(CASE WHEN ID = 0 THEN COST END), " +
+                    "SUM(CASE WHEN OPERATION = 'TABLE ACCESS' AND OPTIONS = 'FULL' THEN 1 ELSE 0 END) " +
+                    "FROM PLAN_TABLE WHERE STATEMENT_ID = ?");
+    public static final Query DELETE_PLAN = register("DELETE_PLAN", "DELETE PLAN_TABLE WHERE STATEMENT_ID = ?");
+    // endregion
+
+    private final String name;
+    private final String sql;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private Query(String name, String sql) {
+        this.name = name;
+        this.sql = sql;
+    }
+
+    /**
+     * Registers a named query. Registering the same name twice is only allowed with the same SQL,
+     * so generated queries can be registered lazily.
+     */
+    public static Query register(String name, String sql) {
+        synchronized (registry) {
+            Query query = registry.get(name);
+            if (query == null) {
+                query = new Query(name, sql);
+                registry.put(name, query);
+            } else if (!query.sql.equals(sql)) {
+                throw new IllegalArgumentException("Query " + name + " is already registered with another statement");
+            }
+            return query;
+        }
+    }
+
+    private static String keyList(int size) {
+        StringBuilder s = new StringBuilder("(");
+        for (int i = 0; i < size; i++) {
+            s.append(i == 0 ? "(?, ?)" : ", (?, ?)");
+        }
+        return s.append(")").toString();
+    }
+
+    public static Collection<Query> all() {
+        synchronized (registry) {
+            return Collections.unmodifiableList(new ArrayList<>(registry.values()));
+        }
+    }
+
+    public static String getStatistics() {
+        StringBuilder s = new StringBuilder();
+        for (Query query : all()) {
+            if (query.getHits() + query.getMisses() == 0)
+                continue;
+            s.append(String.format("%-32s hits=%d misses=%d%n", query.name, query.getHits(), query.getMisses()));
+        }
+        return s.toString();
+    }
+
+    void recordHit() {
+        hits.increment();
+    }
+
+    void recordMiss() {
+        misses.increment();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,116 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Optimizer plans of the registered queries, to compare their cost before and after a schema migration.
+ * Parameters are left unbound, so the plans are the generic ones the server would pick on first execution.
+ */
+public final class QueryPlans {
+
+    private static final String STATEMENT_ID = "KLEX_PLAN";
+
+    public static final class Plan {
+        private final long cost;
+        private final int fullScans;
+
+        private Plan(long cost, int fullScans) {
+            this.cost = cost;
+            this.fullScans = fullScans;
+        }
+
+        public long getCost() {
+            return cost;
+        }
+
+        public int getFullScans() {
+            return fullScans;
+        }
+    }
+
+    private final Map<Query, Plan> plans;
+
+    private QueryPlans(Map<Query, Plan> plans) {
+        this.plans = plans;
+    }
+
+    /**
+     * Explains every query; the ones the server can't explain, like DDL, are left out.
+     */
+    public static QueryPlans explain(Connection connection, Collection<Query> queries) throws SQLException {
+        Map<Query, Plan> plans = new LinkedHashMap<>();
+        try (StatementCache statements = new StatementCache(connection);
+             Statement explain = connection.createStatement()) {
+            for (Query query : queries) {
+                PreparedStatement delete = statements.prepare(Query.DELETE_PLAN);
+                delete.setString(1, STATEMENT_ID);
+                delete.executeUpdate();
+                try {
+                    explain.execute("EXPLAIN PLAN SET STATEMENT_ID = '" + STATEMENT_ID + "' FOR " + namedParameters(query.getSql()));
+                } catch (SQLException e) {
+                    continue;
+                }
+                PreparedStatement cost = statements.prepare(Query.GET_PLAN_COST);
+                cost.setString(1, STATEMENT_ID);
+                try (ResultSet resultSet = cost.executeQuery()) {
+                    if (resultSet.next())
+                        plans.put(query, new Plan(resultSet.getLong(1), resultSet.getInt(2)));
+                }
+            }
+            PreparedStatement delete = statements.prepare(Query.DELETE_PLAN);
+            delete.setString(1, STATEMENT_ID);
+            delete.executeUpdate();
+        }
+        return new QueryPlans(plans);
+    }
+
+    public Plan get(Query query) {
+        return plans.get(query);
+    }
+
+    /**
+     * One line per query explained in both: cost and full table scans before and after, changed ones marked with '*'.
+     */
+    public String compareTo(QueryPlans after) {
+        StringBuilder s = new StringBuilder(String.format("  %-45s %10s %10s %6s %6s%n", "query", "cost", "after", "full", "after"));
+        long total = 0;
+        long totalAfter = 0;
+        for (Map.Entry<Query, Plan> entry : plans.entrySet()) {
+            Plan plan = entry.getValue();
+            Plan planAfter = after.get(entry.getKey());
+            if (planAfter == null)
+                continue;
+            total += plan.cost;
+            totalAfter += planAfter.cost;
+            boolean changed = plan.cost != planAfter.cost || plan.fullScans != planAfter.fullScans;
+            s.append(String.format("%s %-45s %10d %10d %6d %6d%n", changed ? "*" : " ", entry.getKey().getName(),
+                    plan.cost, planAfter.cost, plan.fullScans, planAfter.fullScans));
+        }
+        return s.append(String.format("  %-45s %10d %10d%n", "total", total, totalAfter)).toString();
+    }
+
+    /**
+     * EXPLAIN PLAN takes SQL text, where JDBC '?' parameters become bind variables.
+     */
+    private static String namedParameters(String sql) {
+        StringBuilder s = new StringBuilder();
+        boolean quoted = false;
+        int parameter = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '\'')
+                quoted = !quoted;
+            if (c == '?' && !quoted)
+                s.append(":p").append(++parameter);
+            else
+                s.append(c);
+        }
+        return s.toString();
+    }
+}
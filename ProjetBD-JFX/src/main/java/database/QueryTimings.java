@@ -0,0 +1,68 @@
+package database;
+
+import utils.SQLSupplier;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency, rows and heap allocated per row of named read paths, used to compare the replica and JDBC paths.
+ */
+final class QueryTimings {
+
+    private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private static final Map<String, QueryTimings> timings = new ConcurrentHashMap<>();
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+
+    private QueryTimings() {}
+
+    /**
+     * Runs the read and records it under the given name. Collections returned by the read are counted as rows.
+     */
+    static <T> T time(String name, SQLSupplier<T> read) throws SQLException {
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        T result = read.get();
+        long elapsed = System.nanoTime() - start;
+        long allocated = allocatedBytes() - allocatedBefore;
+
+        QueryTimings timing = timings.computeIfAbsent(name, n -> new QueryTimings());
+        timing.calls.increment();
+        timing.nanos.add(elapsed);
+        if (result instanceof Collection)
+            timing.rows.add(((Collection<?>) result).size());
+        if (allocated > 0)
+            timing.allocatedBytes.add(allocated);
+        return result;
+    }
+
+    private static long allocatedBytes() {
+        if (threads instanceof com.sun.management.ThreadMXBean)
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        return 0;
+    }
+
+    static String getStatistics() {
+        StringBuilder s = new StringBuilder();
+        new TreeMap<>(timings).forEach((name, timing) -> {
+            long calls = timing.calls.sum();
+            long rows = timing.rows.sum();
+            s.append(String.format(
+                    "%-32s calls=%d avg=%.1fus rows=%d allocated/row=%dB%n",
+                    name, calls, timing.nanos.sum() / 1e3 / Math.max(calls, 1), rows,
+                    rows == 0 ? 0 : timing.allocatedBytes.sum() / rows
+            ));
+        });
+        return s.toString();
+    }
+}
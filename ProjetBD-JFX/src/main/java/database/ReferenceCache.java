@@ -0,0 +1,71 @@
+package database;
+
+import utils.SQLConsumer;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * In-memory copy of a small reference table, loaded on first use and kept up to date by the writes of the application.
+ * Writes of other clients are only seen once the cache is invalidated.
+ */
+class ReferenceCache<T> {
+
+    private final String name;
+    private final SQLConsumer<List<T>> loader;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private List<T> rows;
+
+    ReferenceCache(String name, SQLConsumer<List<T>> loader) {
+        this.name = name;
+        this.loader = loader;
+    }
+
+    synchronized List<T> get() throws SQLException {
+        if (rows == null) {
+            List<T> loaded = new ArrayList<>();
+            loader.accept(loaded);
+            rows = loaded;
+            loads.increment();
+        } else {
+            hits.increment();
+        }
+        return Collections.unmodifiableList(new ArrayList<>(rows));
+    }
+
+    /**
+     * Adds a row written by the application. Does nothing if the table isn't loaded yet, it will be read with the row.
+     */
+    synchronized void add(T row) {
+        if (rows != null)
+            rows.add(row);
+    }
+
+    /**
+     * Replaces the first row matching the predicate, or adds the row if none matches.
+     */
+    synchronized void replace(Predicate<T> previous, T row) {
+        if (rows == null)
+            return;
+        for (int i = 0; i < rows.size(); i++) {
+            if (previous.test(rows.get(i))) {
+                rows.set(i, row);
+                return;
+            }
+        }
+        rows.add(row);
+    }
+
+    synchronized void invalidate() {
+        rows = null;
+    }
+
+    String getStatistics() {
+        return String.format("%-20s hits=%d loads=%d", name, hits.sum(), loads.sum());
+    }
+}
@@ -0,0 +1,179 @@
+package database;
+
+import javafx.application.Platform;
+import utils.SQLConsumer;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Reads a query on a background thread and appends its rows to a list on the JavaFX thread, chunk by chunk,
+ * while the cursor is still open.
+ * <p>
+ * The first chunk is kept small so the first rows show up right away, then chunks grow up to {@link #MAX_CHUNK}.
+ * At most {@link #QUEUED_CHUNKS} chunks wait for the JavaFX thread: when it falls behind, the reader blocks
+ * instead of buffering the whole result set.
+ */
+public class RowStream<T> {
+
+    /**
+     * Turns rows into items. Rows may be grouped: {@link #read} returns an item once it is complete, or null,
+     * and {@link #finish} returns the last pending item, if any.
+     */
+    public interface RowReader<T> {
+        T read(ResultSet resultSet) throws SQLException;
+
+        default T finish() {
+            return null;
+        }
+    }
+
+    static final int FIRST_CHUNK = 50;
+    static final int MAX_CHUNK = 2000;
+    static final int QUEUED_CHUNKS = 4;
+    static final int MIN_FETCH_SIZE = 50;
+    static final int MAX_FETCH_SIZE = 2000;
+    static final int FETCH_BYTES = 256 * 1024;
+    private static final int MAX_COLUMN_WIDTH = 4000;
+
+    private static final List<Object> END = new ArrayList<>();
+
+    private final List<? super T> target;
+    private final BlockingQueue<List<?>> chunks = new ArrayBlockingQueue<>(QUEUED_CHUNKS);
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final Runnable then;
+    private volatile boolean cancelled = false;
+    private volatile int fetchSize = MIN_FETCH_SIZE;
+    private volatile int rowCount = 0;
+
+    RowStream(List<? super T> target, Runnable then) {
+        this.target = target;
+        this.then = then;
+    }
+
+    /**
+     * Stops reading. Chunks already queued are dropped and {@code then} won't be called.
+     */
+    public void cancel() {
+        cancelled = true;
+        chunks.clear();
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Runs the query and queues its items. Must be called from a background thread.
+     */
+    void read(PreparedStatement statement, SQLConsumer<PreparedStatement> parameters, RowReader<T> reader) throws SQLException {
+        parameters.accept(statement);
+        statement.setFetchSize(MIN_FETCH_SIZE);
+        try (ResultSet resultSet = statement.executeQuery()) {
+            fetchSize = adaptFetchSize(resultSet.getMetaData());
+            int chunkSize = FIRST_CHUNK;
+            List<T> chunk = new ArrayList<>(chunkSize);
+            boolean adapted = false;
+            while (!cancelled && resultSet.next()) {
+                T item = reader.read(resultSet);
+                if (item == null)
+                    continue;
+                chunk.add(item);
+                rowCount++;
+                if (chunk.size() >= chunkSize) {
+                    if (!adapted) {
+                        // The first rows were fetched with a small fetch size, the remaining ones come in bigger round trips
+                        resultSet.setFetchSize(fetchSize);
+                        adapted = true;
+                    }
+                    offer(chunk);
+                    chunkSize = Math.min(chunkSize * 2, MAX_CHUNK);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            T last = reader.finish();
+            if (last != null)
+                chunk.add(last);
+            if (!chunk.isEmpty())
+                offer(chunk);
+        } finally {
+            statement.setFetchSize(0);
+        }
+        offer(END);
+    }
+
+    /**
+     * Queues items already in memory, in the same growing chunks as rows read from a query.
+     */
+    void readAll(List<T> items) throws SQLException {
+        int chunkSize = FIRST_CHUNK;
+        for (int from = 0; from < items.size() && !cancelled; from += chunkSize, chunkSize = Math.min(chunkSize * 2, MAX_CHUNK)) {
+            List<T> chunk = new ArrayList<>(items.subList(from, Math.min(from + chunkSize, items.size())));
+            rowCount += chunk.size();
+            offer(chunk);
+        }
+        offer(END);
+    }
+
+    private static int adaptFetchSize(ResultSetMetaData metaData) throws SQLException {
+        int rowWidth = 0;
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            rowWidth += Math.max(1, Math.min(metaData.getColumnDisplaySize(i), MAX_COLUMN_WIDTH));
+        }
+        return Math.max(MIN_FETCH_SIZE, Math.min(MAX_FETCH_SIZE, FETCH_BYTES / Math.max(rowWidth, 1)));
+    }
+
+    private void offer(List<?> chunk) throws SQLException {
+        try {
+            while (!cancelled) {
+                if (chunks.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+                    if (drainScheduled.compareAndSet(false, true))
+                        Platform.runLater(this::drain);
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while streaming rows", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void drain() {
+        drainScheduled.set(false);
+        List<?> chunk;
+        while (!cancelled && (chunk = chunks.poll()) != null) {
+            if (chunk == END) {
+                if (then != null)
+                    then.run();
+                return;
+            }
+            target.addAll((List<T>) chunk);
+        }
+    }
+
+    void fail(Exception error, Consumer<Exception> onError) {
+        if (!cancelled)
+            Platform.runLater(() -> {
+                if (!cancelled)
+                    onError.accept(error);
+            });
+    }
+}
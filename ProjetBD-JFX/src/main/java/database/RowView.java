@@ -0,0 +1,73 @@
+package database;
+
+import utils.SQLFunction;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+
+/**
+ * A single row of values seen as a positioned {@link ResultSet}, read by column name only.
+ * Values may also be given as text, then parsed by the getter: integers, and dates as {@code yyyy-mm-dd}.
+ */
+final class RowView implements InvocationHandler {
+
+    private final SQLFunction<String, Object> columns;
+    private boolean wasNull = false;
+
+    private RowView(SQLFunction<String, Object> columns) {
+        this.columns = columns;
+    }
+
+    static ResultSet of(SQLFunction<String, Object> columns) {
+        return (ResultSet) Proxy.newProxyInstance(
+                ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class}, new RowView(columns)
+        );
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "getString":
+                return (String) value(args);
+            case "getInt":
+                Object value = value(args);
+                if (value instanceof String)
+                    return Integer.parseInt(((String) value).trim());
+                return value == null ? 0 : ((Number) value).intValue();
+            case "getDate":
+                value = value(args);
+                if (value instanceof String)
+                    return Date.valueOf(((String) value).trim());
+                return (Date) value;
+            case "getObject":
+                return value(args);
+            case "wasNull":
+                return wasNull;
+            case "close":
+                return null;
+            case "isClosed":
+                return false;
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            case "toString":
+                return "RowView";
+            default:
+                throw new SQLFeatureNotSupportedException("RowView does not support " + method.getName());
+        }
+    }
+
+    private Object value(Object[] args) throws SQLException {
+        if (args.length != 1 || !(args[0] instanceof String))
+            throw new SQLFeatureNotSupportedException("RowView columns are read by name");
+        Object value = columns.apply((String) args[0]);
+        wasNull = value == null;
+        return value;
+    }
+}
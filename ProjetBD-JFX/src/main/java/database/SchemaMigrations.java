@@ -0,0 +1,208 @@
+package database;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Versioned changes to the schema of creation_bd.sql, applied in order and recorded in SCHEMA_VERSION.
+ * A version is a script of the migrations resource folder named {@code V<version>__<description>.sql},
+ * its statements separated by ';'.
+ * <p>
+ * Migrating needs the rights to create tables, indexes and sequences, and to execute DBMS_LOCK.
+ */
+public class SchemaMigrations {
+
+    private static final List<String> SCRIPTS = List.of(
+            "V1__performance_indexes.sql",
+            "V2__id_sequences.sql"
+    );
+    // name already used by an existing object, column list already indexed
+    private static final Set<Integer> ALREADY_APPLIED_ERRORS = Set.of(955, 1408);
+    private static final int NAME_ALREADY_USED = 955;
+    private static final String LOCK_NAME = "KLEX_SCHEMA_MIGRATIONS";
+    private static final int LOCK_TIMEOUT_SECONDS = 600;
+    // DBMS_LOCK.REQUEST: granted, or already held by this session
+    private static final Set<Integer> LOCK_GRANTED = Set.of(0, 4);
+
+    public static final class Migration {
+        private final int version;
+        private final String description;
+        private final String script;
+
+        private Migration(String script) {
+            String name = script.substring(0, script.length() - ".sql".length());
+            this.version = Integer.parseInt(name.substring(1, name.indexOf("__")));
+            this.description = name.substring(name.indexOf("__") + 2).replace('_', ' ');
+            this.script = script;
+        }
+
+        public int getVersion() {
+            return version;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        /**
+         * The statements of the script, without comments. A statement ends with ';' at the end of a line,
+         * a PL/SQL block starting with DECLARE or BEGIN with a line holding only '/'.
+         */
+        List<String> getStatements() throws IOException {
+            try (InputStream input = SchemaMigrations.class.getResourceAsStream("/migrations/" + script)) {
+                if (input == null)
+                    throw new IOException("Missing migration script " + script);
+                List<String> statements = new ArrayList<>();
+                StringBuilder statement = new StringBuilder();
+                boolean block = false;
+                for (String line : new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)).lines()
+                        .collect(Collectors.toList())) {
+                    String trimmed = line.trim();
+                    if (trimmed.startsWith("--") || (trimmed.isEmpty() && statement.length() == 0))
+                        continue;
+                    if (statement.length() == 0)
+                        block = trimmed.toUpperCase().startsWith("DECLARE") || trimmed.toUpperCase().startsWith("BEGIN");
+                    if (block ? trimmed.equals("/") : trimmed.endsWith(";")) {
+                        if (!block)
+                            statement.append(trimmed, 0, trimmed.length() - 1);
+                        statements.add(statement.toString().trim());
+                        statement.setLength(0);
+                    } else {
+                        statement.append(line).append('\n');
+                    }
+                }
+                if (statement.toString().trim().length() > 0)
+                    statements.add(statement.toString().trim());
+                return statements;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "V" + version + " " + description;
+        }
+    }
+
+    private final Connection connection;
+
+    public SchemaMigrations(Connection connection) {
+        this.connection = connection;
+    }
+
+    public List<Migration> getPending() throws SQLException {
+        try (StatementCache statements = new StatementCache(connection)) {
+            return getPending(statements);
+        }
+    }
+
+    /**
+     * Applies the pending migrations and returns them. DDL commits on its own, so a migration stopped half way
+     * is simply run again: objects it already created are skipped.
+     * <p>
+     * Runners are serialized by a DBMS_LOCK lock, which unlike a table lock outlives the commits of the DDL.
+     * The pending migrations are read once it is held, so those applied by the runner it waited for are skipped.
+     */
+    public List<Migration> migrate() throws SQLException, IOException {
+        String lock = lock();
+        try (StatementCache statements = new StatementCache(connection)) {
+            List<Migration> pending = getPending(statements);
+            for (Migration migration : pending) {
+                long start = System.currentTimeMillis();
+                try (Statement statement = connection.createStatement()) {
+                    for (String sql : migration.getStatements()) {
+                        try {
+                            statement.execute(sql);
+                        } catch (SQLException e) {
+                            if (!ALREADY_APPLIED_ERRORS.contains(e.getErrorCode()))
+                                throw new SQLException("Migration " + migration + " failed on: " + sql, e);
+                        }
+                    }
+                }
+                PreparedStatement statement = statements.prepare(Query.ADD_SCHEMA_VERSION);
+                statement.setInt(1, migration.getVersion());
+                statement.setString(2, migration.getDescription());
+                statement.setLong(3, System.currentTimeMillis() - start);
+                statement.executeUpdate();
+                if (!connection.getAutoCommit())
+                    connection.commit();
+            }
+            return pending;
+        } finally {
+            unlock(lock);
+        }
+    }
+
+    /**
+     * Waits for the migration lock and returns its handle.
+     */
+    private String lock() throws SQLException {
+        try (CallableStatement statement = connection.prepareCall("DECLARE handle VARCHAR2(128); " +
+                "BEGIN DBMS_LOCK.ALLOCATE_UNIQUE(?, handle); ? := DBMS_LOCK.REQUEST(handle, DBMS_LOCK.X_MODE, ?, FALSE); " +
+                "? := handle; END;")) {
+            statement.setString(1, LOCK_NAME);
+            statement.registerOutParameter(2, Types.INTEGER);
+            statement.setInt(3, LOCK_TIMEOUT_SECONDS);
+            statement.registerOutParameter(4, Types.VARCHAR);
+            statement.execute();
+            int status = statement.getInt(2);
+            if (!LOCK_GRANTED.contains(status))
+                throw new SQLException("Cannot lock the schema migrations, DBMS_LOCK.REQUEST returned " + status);
+            return statement.getString(4);
+        }
+    }
+
+    private void unlock(String handle) throws SQLException {
+        try (CallableStatement statement = connection.prepareCall("BEGIN ? := DBMS_LOCK.RELEASE(?); END;")) {
+            statement.registerOutParameter(1, Types.INTEGER);
+            statement.setString(2, handle);
+            statement.execute();
+        }
+    }
+
+    private List<Migration> getPending(StatementCache statements) throws SQLException {
+        try (ResultSet resultSet = statements.prepare(Query.COUNT_SCHEMA_VERSION_TABLES).executeQuery()) {
+            resultSet.next();
+            if (resultSet.getInt(1) == 0)
+                createSchemaVersion(statements);
+        }
+        Set<Integer> applied = new HashSet<>();
+        try (ResultSet resultSet = statements.prepare(Query.LIST_SCHEMA_VERSIONS).executeQuery()) {
+            while (resultSet.next())
+                applied.add(resultSet.getInt(1));
+        }
+        List<Migration> pending = new ArrayList<>();
+        for (String script : SCRIPTS) {
+            Migration migration = new Migration(script);
+            if (!applied.contains(migration.getVersion()))
+                pending.add(migration);
+        }
+        return pending;
+    }
+
+    /**
+     * Creates SCHEMA_VERSION, unless another runner created it since it was found missing.
+     */
+    private static void createSchemaVersion(StatementCache statements) throws SQLException {
+        try {
+            statements.prepare(Query.CREATE_SCHEMA_VERSION).execute();
+        } catch (SQLException e) {
+            if (e.getErrorCode() != NAME_ALREADY_USED)
+                throw e;
+        }
+    }
+}
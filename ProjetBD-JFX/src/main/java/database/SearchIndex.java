@@ -0,0 +1,539 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index of the words of film titles and abstracts, track titles, album titles,
+ * artist names and biographies, answering the search box without scanning the tables.
+ * <p>
+ * Words are lower-cased and stripped of their accents. A word of the query matches every indexed word containing it:
+ * through the trigrams of the vocabulary when it has at least 3 characters, by prefix otherwise.
+ * Every word of the query must match. Documents are ranked by the weight of the field each word matched in,
+ * exact and prefix matches first. Albums and artists also match the tracks and films they are part of.
+ * <p>
+ * Documents are numbered with dense ordinals. Updating a document adds it again under a new ordinal,
+ * the postings of the old one are dropped when more than half of the ordinals are dead.
+ */
+class SearchIndex {
+
+    enum Kind {
+        FILM, TRACK, ALBUM, ARTIST
+    }
+
+    private static final int TITLE_WEIGHT = 4;
+    private static final int TEXT_WEIGHT = 1;
+    private static final int GRAM = 3;
+    // Indexed words a word of the query may expand to, like the maximum expansions of a prefix query
+    private static final int MAX_EXPANSIONS = 64;
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private static final class Document {
+        private final Kind kind;
+        private final Object[] key;
+        private final int[] terms;
+        private final int[] weights;
+
+        private Document(Kind kind, Object[] key, int[] terms, int[] weights) {
+            this.kind = kind;
+            this.key = key;
+            this.terms = terms;
+            this.weights = weights;
+        }
+    }
+
+    /**
+     * Ordinals of the documents containing a word, with the weight of the field it was found in.
+     */
+    private static final class Postings {
+        private int[] documents = new int[4];
+        private int[] weights = new int[4];
+        private int size = 0;
+
+        void add(int document, int weight) {
+            if (size == documents.length) {
+                documents = Arrays.copyOf(documents, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            documents[size] = document;
+            weights[size++] = weight;
+        }
+    }
+
+    private final List<Document> documents = new ArrayList<>();
+    private final Map<List<Object>, Integer> ordinals = new HashMap<>();
+    private final BitSet dead = new BitSet();
+
+    private final Map<String, Integer> termIds = new HashMap<>();
+    private final List<String> terms = new ArrayList<>();
+    private final List<Postings> postings = new ArrayList<>();
+    private final TreeMap<String, Integer> sortedTerms = new TreeMap<>();
+    private final Map<String, List<Integer>> grams = new HashMap<>();
+
+    // Films and tracks of each artist and album, by document id
+    private final Map<Integer, Set<List<Object>>> worksOfArtist = new HashMap<>();
+    private final Map<List<Object>, Set<Integer>> artistsOfWork = new HashMap<>();
+    private final Map<Integer, Set<List<Object>>> tracksOfAlbum = new HashMap<>();
+
+    // Scratch scores by ordinal, zero between queries
+    private int[] totals = new int[0];
+    private int[] wordScores = new int[0];
+
+    /**
+     * Builds the index from the tables. The connection must see the uncommitted writes of the application,
+     * which are indexed as they happen.
+     */
+    static SearchIndex build(Connection connection) throws SQLException {
+        SearchIndex index = new SearchIndex();
+        try (ResultSet resultSet = OracleDB.prepare(connection, Query.LIST_FILM_ROWS).executeQuery()) {
+            while (resultSet.next()) {
+                index.putFilm(resultSet.getString("FILM_TITLE"), resultSet.getInt("FILM_YEAR"), resultSet.getString("ABSTRACT"));
+            }
+        }
+        try (ResultSet resultSet = OracleDB.prepare(connection, Query.LIST_TRACKS).executeQuery()) {
+            while (resultSet.next()) {
+                index.putTrack(resultSet.getInt("ALBUM_ID"), resultSet.getInt("TRACK_ID"), resultSet.getString("TRACK_TITLE"));
+            }
+        }
+        try (ResultSet resultSet = OracleDB.prepare(connection, Query.LIST_ALBUMS).executeQuery()) {
+            while (resultSet.next()) {
+                index.putAlbum(resultSet.getInt("ALBUM_ID"), resultSet.getString("ALBUM_TITLE"));
+            }
+        }
+        try (ResultSet resultSet = OracleDB.prepare(connection, Query.LIST_ARTISTS).executeQuery()) {
+            while (resultSet.next()) {
+                index.putArtist(resultSet.getInt("ARTIST_ID"), resultSet.getString("NAME"), resultSet.getString("BIOGRAPHY"));
+            }
+        }
+        try (ResultSet resultSet = OracleDB.prepare(connection, Query.LIST_FILM_ARTIST_LINKS).executeQuery()) {
+            while (resultSet.next()) {
+                index.link(resultSet.getInt("ARTIST_ID"), id(Kind.FILM, resultSet.getString("FILM_TITLE"), resultSet.getInt("FILM_YEAR")));
+            }
+        }
+        try (ResultSet resultSet = OracleDB.prepare(connection, Query.LIST_TRACK_ARTIST_LINKS).executeQuery()) {
+            while (resultSet.next()) {
+                index.link(resultSet.getInt("ARTIST_ID"), id(Kind.TRACK, resultSet.getInt("ALBUM_ID"), resultSet.getInt("TRACK_ID")));
+            }
+        }
+        return index;
+    }
+
+    // region Queries
+    /**
+     * Keys of the films matching the query, best first: by their title and abstract, or by the name
+     * and biography of their artists.
+     */
+    synchronized List<Object[]> findFilms(String query, int limit) {
+        int[] matches = match(query);
+        return top(matches, relatedFilms(matches), Kind.FILM, limit);
+    }
+
+    /**
+     * Keys of every film {@link #findFilms} would find, unranked, as lists of their title and year.
+     */
+    synchronized Set<List<Object>> matchFilms(String query) {
+        int[] matches = match(query);
+        return all(matches, relatedFilms(matches), Kind.FILM);
+    }
+
+    /**
+     * Keys of the tracks matching the query, best first: by their title, the title of their album,
+     * or the name and biography of their musicians.
+     */
+    synchronized List<Object[]> findTracks(String query, int limit) {
+        int[] matches = match(query);
+        return top(matches, relatedTracks(matches), Kind.TRACK, limit);
+    }
+
+    /**
+     * Keys of every track {@link #findTracks} would find, unranked, as lists of their album id and track id.
+     */
+    synchronized Set<List<Object>> matchTracks(String query) {
+        int[] matches = match(query);
+        return all(matches, relatedTracks(matches), Kind.TRACK);
+    }
+
+    /**
+     * Films of the artists among the matches, with the score of their artists.
+     */
+    private Map<Integer, Integer> relatedFilms(int[] matches) {
+        Map<Integer, Integer> related = new HashMap<>();
+        for (int ordinal : matches) {
+            Document document = documents.get(ordinal);
+            if (document.kind == Kind.ARTIST)
+                addWorks(related, worksOfArtist.get((Integer) document.key[0]), Kind.FILM, totals[ordinal]);
+        }
+        return related;
+    }
+
+    /**
+     * Tracks of the albums and musicians among the matches, with the score of their albums and musicians.
+     */
+    private Map<Integer, Integer> relatedTracks(int[] matches) {
+        Map<Integer, Integer> related = new HashMap<>();
+        for (int ordinal : matches) {
+            Document document = documents.get(ordinal);
+            if (document.kind == Kind.ALBUM)
+                addWorks(related, tracksOfAlbum.get((Integer) document.key[0]), Kind.TRACK, totals[ordinal]);
+            else if (document.kind == Kind.ARTIST)
+                addWorks(related, worksOfArtist.get((Integer) document.key[0]), Kind.TRACK, totals[ordinal]);
+        }
+        return related;
+    }
+
+    /**
+     * Ordinals of the live documents matching every word of the query, their score left in {@link #totals}
+     * until {@link #top} clears it. Words are matched from the one with the fewest postings,
+     * so the candidates only shrink.
+     */
+    private int[] match(String query) {
+        List<String> words = new ArrayList<>(new LinkedHashSet<>(words(query)));
+        List<List<Integer>> matches = new ArrayList<>();
+        long[] costs = new long[words.size()];
+        Integer[] order = new Integer[words.size()];
+        for (int i = 0; i < words.size(); i++) {
+            List<Integer> wordTerms = matchingTerms(words.get(i));
+            if (wordTerms.isEmpty())
+                return new int[0];
+            matches.add(wordTerms);
+            order[i] = i;
+            for (int term : wordTerms) {
+                costs[i] += postings.get(term).size;
+            }
+        }
+        Arrays.sort(order, Comparator.comparingLong(i -> costs[i]));
+        if (totals.length < documents.size()) {
+            totals = new int[documents.size()];
+            wordScores = new int[documents.size()];
+        }
+
+        int[] candidates = null;
+        int count = 0;
+        for (int i : order) {
+            String word = words.get(i);
+            int[] touched = new int[candidates == null ? 16 : count];
+            int touchedCount = 0;
+            for (int term : matches.get(i)) {
+                String text = terms.get(term);
+                int bonus = text.equals(word) ? 3 : text.startsWith(word) ? 2 : 1;
+                Postings termPostings = postings.get(term);
+                for (int p = 0; p < termPostings.size; p++) {
+                    int document = termPostings.documents[p];
+                    if (dead.get(document) || (candidates != null && totals[document] == 0))
+                        continue;
+                    int score = termPostings.weights[p] * bonus;
+                    if (wordScores[document] == 0) {
+                        if (touchedCount == touched.length)
+                            touched = Arrays.copyOf(touched, touchedCount * 2);
+                        touched[touchedCount++] = document;
+                    }
+                    wordScores[document] = Math.max(wordScores[document], score);
+                }
+            }
+            if (candidates != null) {
+                for (int c = 0; c < count; c++) {
+                    if (wordScores[candidates[c]] == 0)
+                        totals[candidates[c]] = 0;
+                }
+            }
+            for (int t = 0; t < touchedCount; t++) {
+                totals[touched[t]] += wordScores[touched[t]];
+                wordScores[touched[t]] = 0;
+            }
+            candidates = touched;
+            count = touchedCount;
+            if (count == 0)
+                break;
+        }
+        return candidates == null ? new int[0] : Arrays.copyOf(candidates, count);
+    }
+
+    /**
+     * Indexed words containing the word, at most {@link #MAX_EXPANSIONS} of them: the word itself first,
+     * then the words starting with it, then the shortest ones.
+     */
+    private List<Integer> matchingTerms(String word) {
+        if (word.length() < GRAM) {
+            List<Integer> matching = new ArrayList<>();
+            for (int term : sortedTerms.subMap(word, word + Character.MAX_VALUE).values()) {
+                if (matching.size() == MAX_EXPANSIONS)
+                    break;
+                matching.add(term);
+            }
+            return matching;
+        }
+        List<Integer> candidates = null;
+        for (String gram : grams(word)) {
+            List<Integer> withGram = grams.get(gram);
+            if (withGram == null)
+                return Collections.emptyList();
+            if (candidates == null || withGram.size() < candidates.size())
+                candidates = withGram;
+        }
+        List<Integer> matching = new ArrayList<>();
+        for (int term : candidates) {
+            if (terms.get(term).contains(word))
+                matching.add(term);
+        }
+        if (matching.size() > MAX_EXPANSIONS) {
+            matching.sort(Comparator.<Integer, Boolean>comparing(term -> !terms.get(term).startsWith(word))
+                    .thenComparing(term -> terms.get(term).length()));
+            matching = new ArrayList<>(matching.subList(0, MAX_EXPANSIONS));
+        }
+        return matching;
+    }
+
+    private void addWorks(Map<Integer, Integer> related, Set<List<Object>> works, Kind kind, int score) {
+        if (works == null)
+            return;
+        for (List<Object> work : works) {
+            Integer ordinal = work.get(0) == kind ? ordinals.get(work) : null;
+            if (ordinal != null)
+                related.merge(ordinal, score, Integer::sum);
+        }
+    }
+
+    /**
+     * Keys of the {@code limit} best documents of the kind, among the matches and the documents related to them,
+     * kept in a min-heap so the matches are never fully sorted. Clears the scores of the matches.
+     */
+    private List<Object[]> top(int[] matches, Map<Integer, Integer> related, Kind kind, int limit) {
+        PriorityQueue<int[]> best = new PriorityQueue<>(Comparator.comparingInt((int[] entry) -> entry[1]));
+        for (int ordinal : matches) {
+            if (documents.get(ordinal).kind == kind) {
+                Integer extra = related.remove(ordinal);
+                offer(best, ordinal, totals[ordinal] + (extra == null ? 0 : extra), limit);
+            }
+            totals[ordinal] = 0;
+        }
+        related.forEach((ordinal, score) -> offer(best, ordinal, score, limit));
+
+        List<int[]> entries = new ArrayList<>(best);
+        entries.sort(Comparator.comparingInt((int[] entry) -> entry[1]).reversed().thenComparingInt(entry -> entry[0]));
+        List<Object[]> keys = new ArrayList<>(entries.size());
+        for (int[] entry : entries) {
+            keys.add(documents.get(entry[0]).key.clone());
+        }
+        return keys;
+    }
+
+    /**
+     * Keys of all the documents of the kind among the matches and the documents related to them.
+     * Clears the scores of the matches.
+     */
+    private Set<List<Object>> all(int[] matches, Map<Integer, Integer> related, Kind kind) {
+        Set<List<Object>> keys = new HashSet<>();
+        for (int ordinal : matches) {
+            if (documents.get(ordinal).kind == kind)
+                keys.add(List.of(documents.get(ordinal).key));
+            totals[ordinal] = 0;
+        }
+        for (int ordinal : related.keySet()) {
+            keys.add(List.of(documents.get(ordinal).key));
+        }
+        return keys;
+    }
+
+    private static void offer(PriorityQueue<int[]> best, int ordinal, int score, int limit) {
+        if (best.size() < limit) {
+            best.add(new int[]{ordinal, score});
+        } else if (best.peek()[1] < score) {
+            best.poll();
+            best.add(new int[]{ordinal, score});
+        }
+    }
+    // endregion
+
+    // region Maintenance
+    synchronized void putFilm(String title, int year, String _abstract) {
+        put(Kind.FILM, new Object[]{title, year}, title, _abstract);
+    }
+
+    synchronized void removeFilm(String title, int year) {
+        remove(id(Kind.FILM, title, year));
+    }
+
+    synchronized void putTrack(int albumId, int trackId, String title) {
+        put(Kind.TRACK, new Object[]{albumId, trackId}, title, null);
+        tracksOfAlbum.computeIfAbsent(albumId, id -> new HashSet<>()).add(id(Kind.TRACK, albumId, trackId));
+    }
+
+    synchronized void removeTrack(int albumId, int trackId) {
+        List<Object> id = id(Kind.TRACK, albumId, trackId);
+        remove(id);
+        Set<List<Object>> albumTracks = tracksOfAlbum.get(albumId);
+        if (albumTracks != null)
+            albumTracks.remove(id);
+    }
+
+    synchronized void putAlbum(int albumId, String title) {
+        put(Kind.ALBUM, new Object[]{albumId}, title, null);
+    }
+
+    synchronized void removeAlbum(int albumId) {
+        remove(id(Kind.ALBUM, albumId));
+    }
+
+    synchronized void putArtist(int artistId, String name, String biography) {
+        put(Kind.ARTIST, new Object[]{artistId}, name, biography);
+    }
+
+    synchronized void removeArtist(int artistId) {
+        remove(id(Kind.ARTIST, artistId));
+    }
+
+    synchronized void setFilmArtists(String title, int year, Collection<Integer> artistIds) {
+        setArtists(id(Kind.FILM, title, year), artistIds);
+    }
+
+    synchronized void setTrackArtists(int albumId, int trackId, Collection<Integer> artistIds) {
+        setArtists(id(Kind.TRACK, albumId, trackId), artistIds);
+    }
+    // endregion
+
+    private void put(Kind kind, Object[] key, String title, String text) {
+        List<Object> id = id(kind, key);
+        Integer previous = ordinals.get(id);
+        if (previous != null)
+            dead.set(previous);
+
+        Map<Integer, Integer> weights = new HashMap<>();
+        for (String word : words(title)) {
+            weights.merge(termId(word), TITLE_WEIGHT, Math::max);
+        }
+        for (String word : words(text)) {
+            weights.merge(termId(word), TEXT_WEIGHT, Math::max);
+        }
+        int ordinal = documents.size();
+        int[] documentTerms = new int[weights.size()];
+        int[] documentWeights = new int[weights.size()];
+        int i = 0;
+        for (Map.Entry<Integer, Integer> weight : weights.entrySet()) {
+            documentTerms[i] = weight.getKey();
+            documentWeights[i++] = weight.getValue();
+            postings.get(weight.getKey()).add(ordinal, weight.getValue());
+        }
+        documents.add(new Document(kind, key, documentTerms, documentWeights));
+        ordinals.put(id, ordinal);
+        compactIfSparse();
+    }
+
+    private void remove(List<Object> id) {
+        Integer ordinal = ordinals.remove(id);
+        if (ordinal != null) {
+            dead.set(ordinal);
+            compactIfSparse();
+        }
+        Set<Integer> artists = artistsOfWork.remove(id);
+        if (artists != null)
+            artists.forEach(artist -> worksOfArtist.get(artist).remove(id));
+    }
+
+    private void link(int artistId, List<Object> work) {
+        worksOfArtist.computeIfAbsent(artistId, a -> new HashSet<>()).add(work);
+        artistsOfWork.computeIfAbsent(work, w -> new HashSet<>()).add(artistId);
+    }
+
+    private void setArtists(List<Object> work, Collection<Integer> artistIds) {
+        Set<Integer> previous = artistsOfWork.remove(work);
+        if (previous != null)
+            previous.forEach(artist -> worksOfArtist.get(artist).remove(work));
+        for (int artistId : artistIds) {
+            link(artistId, work);
+        }
+    }
+
+    /**
+     * Renumbers the live documents and rebuilds the postings once dead ordinals outnumber live ones.
+     */
+    private void compactIfSparse() {
+        int deadCount = dead.cardinality();
+        if (deadCount < 1024 || deadCount * 2 < documents.size())
+            return;
+        List<Document> live = new ArrayList<>(documents.size() - deadCount);
+        for (int ordinal = 0; ordinal < documents.size(); ordinal++) {
+            if (!dead.get(ordinal))
+                live.add(documents.get(ordinal));
+        }
+        documents.clear();
+        ordinals.clear();
+        dead.clear();
+        postings.replaceAll(p -> new Postings());
+        for (Document document : live) {
+            int ordinal = documents.size();
+            for (int i = 0; i < document.terms.length; i++) {
+                postings.get(document.terms[i]).add(ordinal, document.weights[i]);
+            }
+            documents.add(document);
+            ordinals.put(id(document.kind, document.key), ordinal);
+        }
+    }
+
+    private int termId(String word) {
+        Integer id = termIds.get(word);
+        if (id == null) {
+            id = terms.size();
+            termIds.put(word, id);
+            terms.add(word);
+            postings.add(new Postings());
+            sortedTerms.put(word, id);
+            for (String gram : grams(word)) {
+                grams.computeIfAbsent(gram, g -> new ArrayList<>()).add(id);
+            }
+        }
+        return id;
+    }
+
+    private static Set<String> grams(String word) {
+        Set<String> wordGrams = new HashSet<>();
+        for (int i = 0; i + GRAM <= word.length(); i++) {
+            wordGrams.add(word.substring(i, i + GRAM));
+        }
+        return wordGrams;
+    }
+
+    static List<String> words(String text) {
+        if (text == null || text.isBlank())
+            return Collections.emptyList();
+        String normalized = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        List<String> words = new ArrayList<>();
+        for (String word : SEPARATORS.split(normalized.toLowerCase(Locale.ROOT))) {
+            if (!word.isEmpty())
+                words.add(word);
+        }
+        return words;
+    }
+
+    private static List<Object> id(Kind kind, Object... key) {
+        List<Object> id = new ArrayList<>(key.length + 1);
+        id.add(kind);
+        id.addAll(Arrays.asList(key));
+        return id;
+    }
+
+    synchronized String getStatistics() {
+        return String.format(
+                "documents=%d dead=%d words=%d trigrams=%d",
+                ordinals.size(), dead.cardinality(), terms.size(), grams.size()
+        );
+    }
+}
@@ -0,0 +1,76 @@
+package database;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Groups JDBC batches of several statements and flushes them in the order they were given,
+ * so rows referenced by a foreign key always reach the server before the rows referencing them.
+ */
+class StatementBatch {
+
+    private final int maxRows;
+    private final List<PreparedStatement> statements;
+    private final int[] pending;
+    private int pendingRows = 0;
+    private int roundTrips = 0;
+
+    StatementBatch(int maxRows, PreparedStatement... statementsInDependencyOrder) {
+        this.maxRows = maxRows;
+        this.statements = Arrays.asList(statementsInDependencyOrder);
+        this.pending = new int[statementsInDependencyOrder.length];
+    }
+
+    /**
+     * Adds the current parameters of the statement to its batch. Never flushes, so a parent row and its children
+     * always end up in the same flush.
+     */
+    void add(PreparedStatement statement) throws SQLException {
+        int index = statements.indexOf(statement);
+        if (index < 0)
+            throw new IllegalArgumentException("Statement is not part of this batch");
+        statement.addBatch();
+        pending[index]++;
+        pendingRows++;
+    }
+
+    /**
+     * Flushes the batches if the row limit is reached. Call it once a parent row and all its children were added.
+     */
+    void flushIfFull() throws SQLException {
+        if (pendingRows >= maxRows)
+            flush();
+    }
+
+    void flush() throws SQLException {
+        try {
+            for (int i = 0; i < pending.length; i++) {
+                if (pending[i] > 0) {
+                    statements.get(i).executeBatch();
+                    pending[i] = 0;
+                    roundTrips++;
+                }
+            }
+            pendingRows = 0;
+        } catch (SQLException e) {
+            clear();
+            throw e;
+        }
+    }
+
+    void clear() {
+        for (int i = 0; i < pending.length; i++) {
+            try {
+                statements.get(i).clearBatch();
+            } catch (SQLException ignored) {}
+            pending[i] = 0;
+        }
+        pendingRows = 0;
+    }
+
+    int getRoundTrips() {
+        return roundTrips;
+    }
+}
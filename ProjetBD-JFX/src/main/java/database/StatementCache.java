@@ -0,0 +1,43 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Prepared statements of one connection, prepared on first use and kept open until the connection goes away.
+ */
+class StatementCache implements AutoCloseable {
+
+    private final Connection connection;
+    private final Map<Query, PreparedStatement> statements = new HashMap<>();
+
+    StatementCache(Connection connection) {
+        this.connection = connection;
+    }
+
+    synchronized PreparedStatement prepare(Query query) throws SQLException {
+        PreparedStatement statement = statements.get(query);
+        if (statement != null && !statement.isClosed()) {
+            query.recordHit();
+            statement.clearParameters();
+            return statement;
+        }
+        query.recordMiss();
+        statement = connection.prepareStatement(query.getSql());
+        statements.put(query, statement);
+        return statement;
+    }
+
+    @Override
+    public synchronized void close() {
+        for (PreparedStatement statement : statements.values()) {
+            try {
+                statement.close();
+            } catch (SQLException ignored) {}
+        }
+        statements.clear();
+    }
+}
@@ -0,0 +1,180 @@
+package database;
+
+import model.MediaFile;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Storage used by each user: bytes and number of the files they added, and bytes by media type.
+ * Read with a single scan of the files, then kept up to date by the writes of the application,
+ * so the usage of a user is read in constant time instead of grouping all the files.
+ * <p>
+ * A file counts for the type of the first film or track it's linked to, and for no type before that.
+ */
+public final class StorageAccounts {
+
+    public static final class Usage {
+        public static final Usage NONE = new Usage(0, 0, 0, 0);
+
+        private final long bytes;
+        private final int files;
+        private final long filmBytes;
+        private final long trackBytes;
+
+        private Usage(long bytes, int files, long filmBytes, long trackBytes) {
+            this.bytes = bytes;
+            this.files = files;
+            this.filmBytes = filmBytes;
+            this.trackBytes = trackBytes;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public int getFiles() {
+            return files;
+        }
+
+        public long getFilmBytes() {
+            return filmBytes;
+        }
+
+        public long getTrackBytes() {
+            return trackBytes;
+        }
+
+        @Override
+        public String toString() {
+            return "bytes=" + bytes + " files=" + files + " filmBytes=" + filmBytes + " trackBytes=" + trackBytes;
+        }
+    }
+
+    private static final class Account {
+        private long bytes = 0;
+        private int files = 0;
+        private long filmBytes = 0;
+        private long trackBytes = 0;
+
+        void add(FileEntry file, int sign) {
+            bytes += sign * file.size;
+            files += sign;
+            if (file.type == MediaFile.MediaType.FILM)
+                filmBytes += sign * file.size;
+            else if (file.type == MediaFile.MediaType.TRACK)
+                trackBytes += sign * file.size;
+        }
+    }
+
+    private static final class FileEntry {
+        private final String userEmail;
+        private final long size;
+        private MediaFile.MediaType type;
+
+        FileEntry(String userEmail, long size, MediaFile.MediaType type) {
+            this.userEmail = userEmail;
+            this.size = size;
+            this.type = type;
+        }
+    }
+
+    private final Map<String, Account> accounts = new HashMap<>();
+    private final Map<Integer, FileEntry> files = new HashMap<>();
+
+    private StorageAccounts() {
+    }
+
+    /**
+     * Reads every file. The connection must see the uncommitted writes of the application,
+     * which are accounted as they happen.
+     */
+    static StorageAccounts build(Connection connection) throws SQLException {
+        StorageAccounts storage = new StorageAccounts();
+        try (ResultSet resultSet = OracleDB.prepare(connection, Query.LIST_FILE_STORAGE).executeQuery()) {
+            while (resultSet.next()) {
+                String type = resultSet.getString("MEDIA_TYPE");
+                storage.put(resultSet.getInt("FILE_ID"), new FileEntry(resultSet.getString("USER_EMAIL"),
+                        resultSet.getLong("FILE_SIZE"), type == null ? null : MediaFile.MediaType.valueOf(type)));
+            }
+        }
+        return storage;
+    }
+
+    // region Queries
+    synchronized Usage getUsage(String userEmail) {
+        Account account = accounts.get(userEmail);
+        return account == null ? Usage.NONE
+                : new Usage(account.bytes, account.files, account.filmBytes, account.trackBytes);
+    }
+
+    /**
+     * Whether the user still has room for {@code bytes} more in a quota of {@code quota} bytes.
+     */
+    synchronized boolean fits(String userEmail, long bytes, long quota) {
+        Account account = accounts.get(userEmail);
+        return (account == null ? 0 : account.bytes) + bytes <= quota;
+    }
+
+    /**
+     * Bytes the file counts for in the storage of the user, 0 when it was added by someone else.
+     */
+    synchronized long getFileBytes(int fileId, String userEmail) {
+        FileEntry file = files.get(fileId);
+        return file != null && file.userEmail.equals(userEmail) ? file.size : 0;
+    }
+    // endregion
+
+    // region Maintenance
+    synchronized void addFile(int fileId, String userEmail, long size) {
+        put(fileId, new FileEntry(userEmail, size, null));
+    }
+
+    /**
+     * Replaces a file, keeping the media type it had.
+     */
+    synchronized void updateFile(int previousId, int fileId, String userEmail, long size) {
+        FileEntry previous = remove(previousId);
+        put(fileId, new FileEntry(userEmail, size, previous == null ? null : previous.type));
+    }
+
+    synchronized void removeFile(int fileId) {
+        remove(fileId);
+    }
+
+    synchronized void linkFile(int fileId, MediaFile.MediaType type) {
+        FileEntry file = files.get(fileId);
+        if (file == null || file.type != null)
+            return;
+        Account account = accounts.get(file.userEmail);
+        account.add(file, -1);
+        file.type = type;
+        account.add(file, 1);
+    }
+    // endregion
+
+    private void put(int fileId, FileEntry file) {
+        FileEntry previous = files.put(fileId, file);
+        if (previous != null)
+            accounts.get(previous.userEmail).add(previous, -1);
+        accounts.computeIfAbsent(file.userEmail, email -> new Account()).add(file, 1);
+    }
+
+    private FileEntry remove(int fileId) {
+        FileEntry file = files.remove(fileId);
+        if (file != null) {
+            Account account = accounts.get(file.userEmail);
+            account.add(file, -1);
+            if (account.files == 0)
+                accounts.remove(file.userEmail);
+        }
+        return file;
+    }
+
+    synchronized String getStatistics() {
+        return String.format("users=%d files=%d", accounts.size(), files.size());
+    }
+}
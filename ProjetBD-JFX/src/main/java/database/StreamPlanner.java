@@ -0,0 +1,301 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Chooses the flux to stream for a file, a film or a track within a data rate budget: the video flux with the
+ * highest rate leaving room for an audio flux in the language of the user, the audio flux with the highest rate
+ * in what is left, then the subtitles with the highest rate in the remainder if any fit.
+ * A video or audio flux is only required when the file has flux of that kind.
+ * <p>
+ * The planner is an immutable snapshot of the committed flux, so sessions are planned concurrently without locking.
+ * The flux of each file are sorted by data rate, and the files of a film or a track by their best video rate,
+ * so planning stops at the first file that can't beat the best plan found.
+ */
+public final class StreamPlanner {
+
+    public static final class Plan {
+        private final int fileId;
+        private final int videoFluxId;
+        private final int audioFluxId;
+        private final int textFluxId;
+        private final int videoRate;
+        private final int audioRate;
+        private final int textRate;
+
+        private Plan(int fileId, int videoFluxId, int videoRate, int audioFluxId, int audioRate, int textFluxId, int textRate) {
+            this.fileId = fileId;
+            this.videoFluxId = videoFluxId;
+            this.videoRate = videoRate;
+            this.audioFluxId = audioFluxId;
+            this.audioRate = audioRate;
+            this.textFluxId = textFluxId;
+            this.textRate = textRate;
+        }
+
+        public int getFileId() {
+            return fileId;
+        }
+
+        /**
+         * The chosen video flux, -1 when the file has none.
+         */
+        public int getVideoFluxId() {
+            return videoFluxId;
+        }
+
+        /**
+         * The chosen audio flux, -1 when the file has none.
+         */
+        public int getAudioFluxId() {
+            return audioFluxId;
+        }
+
+        /**
+         * The chosen subtitles, -1 when none are streamed.
+         */
+        public int getTextFluxId() {
+            return textFluxId;
+        }
+
+        public int getDataRate() {
+            return videoRate + audioRate + textRate;
+        }
+
+        private boolean isBetterThan(Plan other) {
+            if (videoRate != other.videoRate)
+                return videoRate > other.videoRate;
+            if (audioRate != other.audioRate)
+                return audioRate > other.audioRate;
+            return textRate > other.textRate;
+        }
+
+        @Override
+        public String toString() {
+            return "file=" + fileId + " video=" + videoFluxId + " audio=" + audioFluxId + " text=" + textFluxId
+                    + " dataRate=" + getDataRate();
+        }
+    }
+
+    /**
+     * What a user wants to play, in which language and with which data rate budget.
+     */
+    public static final class Session {
+        private final Function<StreamPlanner, FileStreams[]> candidates;
+        private final String language;
+        private final int budget;
+
+        private Session(Function<StreamPlanner, FileStreams[]> candidates, String language, int budget) {
+            this.candidates = candidates;
+            this.language = language;
+            this.budget = budget;
+        }
+
+        public static Session file(int fileId, String language, int budget) {
+            return new Session(planner -> {
+                FileStreams file = planner.files.get(fileId);
+                return file == null ? NO_FILES : new FileStreams[]{file};
+            }, language, budget);
+        }
+
+        public static Session film(String title, int year, String language, int budget) {
+            return new Session(planner -> planner.filmFiles.getOrDefault(FilmLoader.key(title, year), NO_FILES),
+                    language, budget);
+        }
+
+        public static Session track(int albumId, int trackId, String language, int budget) {
+            return new Session(planner -> planner.trackFiles.getOrDefault(TrackLoader.key(albumId, trackId), NO_FILES),
+                    language, budget);
+        }
+
+        /**
+         * Parses a tab separated line: {@code file <id>}, {@code film <title> <year>} or {@code track <album id> <track id>},
+         * followed by the language and the budget.
+         */
+        public static Session parse(String line) {
+            String[] fields = line.split("\t");
+            int budget = Integer.parseInt(fields[fields.length - 1].trim());
+            String language = fields[fields.length - 2].trim();
+            switch (fields[0].trim().toLowerCase()) {
+                case "file":
+                    if (fields.length == 4)
+                        return file(Integer.parseInt(fields[1].trim()), language, budget);
+                    break;
+                case "film":
+                    if (fields.length == 5)
+                        return film(fields[1], Integer.parseInt(fields[2].trim()), language, budget);
+                    break;
+                case "track":
+                    if (fields.length == 5)
+                        return track(Integer.parseInt(fields[1].trim()), Integer.parseInt(fields[2].trim()), language, budget);
+                    break;
+            }
+            throw new IllegalArgumentException("Invalid session: " + line);
+        }
+    }
+
+    /**
+     * Data rates in ascending order and the matching flux IDs, added in that order.
+     */
+    private static final class Streams {
+        private int[] rates = new int[2];
+        private int[] fluxIds = new int[2];
+        private int size = 0;
+
+        void add(int fluxId, int rate) {
+            if (size == rates.length) {
+                rates = Arrays.copyOf(rates, size * 2);
+                fluxIds = Arrays.copyOf(fluxIds, size * 2);
+            }
+            rates[size] = rate;
+            fluxIds[size] = fluxId;
+            size++;
+        }
+
+        /**
+         * Index of the highest rate at most {@code budget}, -1 when even the lowest is over it.
+         */
+        int highestWithin(int budget) {
+            int index = Arrays.binarySearch(rates, 0, size, budget);
+            if (index < 0)
+                return -index - 2;
+            while (index + 1 < size && rates[index + 1] == budget)
+                index++;
+            return index;
+        }
+    }
+
+    private static final class FileStreams {
+        private final int fileId;
+        private final Streams video = new Streams();
+        private final Map<String, Streams> audio = new HashMap<>(2);
+        private final Map<String, Streams> text = new HashMap<>(2);
+
+        FileStreams(int fileId) {
+            this.fileId = fileId;
+        }
+
+        int bestVideoRate() {
+            return video.size == 0 ? 0 : video.rates[video.size - 1];
+        }
+
+        Plan plan(String language, int budget) {
+            Streams audioInLanguage = audio.get(language);
+            if (audioInLanguage == null && !audio.isEmpty())
+                return null;
+            Streams textInLanguage = text.get(language);
+            for (int v = video.size - 1; v >= (video.size == 0 ? -1 : 0); v--) {
+                int videoRate = v < 0 ? 0 : video.rates[v];
+                int remaining = budget - videoRate;
+                if (remaining < 0)
+                    continue;
+                int a = audioInLanguage == null ? -1 : audioInLanguage.highestWithin(remaining);
+                if (audioInLanguage != null && a < 0)
+                    continue;
+                int audioRate = a < 0 ? 0 : audioInLanguage.rates[a];
+                remaining -= audioRate;
+                int t = textInLanguage == null ? -1 : textInLanguage.highestWithin(remaining);
+                return new Plan(fileId,
+                        v < 0 ? -1 : video.fluxIds[v], videoRate,
+                        a < 0 ? -1 : audioInLanguage.fluxIds[a], audioRate,
+                        t < 0 ? -1 : textInLanguage.fluxIds[t], t < 0 ? 0 : textInLanguage.rates[t]);
+            }
+            return null;
+        }
+    }
+
+    private static final FileStreams[] NO_FILES = new FileStreams[0];
+
+    private final Map<Integer, FileStreams> files = new HashMap<>();
+    private final Map<String, FileStreams[]> filmFiles = new HashMap<>();
+    private final Map<Long, FileStreams[]> trackFiles = new HashMap<>();
+
+    private StreamPlanner() {
+    }
+
+    /**
+     * Reads the flux of every file, by ascending data rate, and the files of the films and tracks.
+     */
+    public static StreamPlanner load(Connection connection) throws SQLException {
+        StreamPlanner planner = new StreamPlanner();
+        Map<String, List<FileStreams>> filmFiles = new HashMap<>();
+        Map<Long, List<FileStreams>> trackFiles = new HashMap<>();
+        try (StatementCache statements = new StatementCache(connection)) {
+            try (ResultSet resultSet = statements.prepare(Query.LIST_FLUX_RATES).executeQuery()) {
+                while (resultSet.next()) {
+                    FileStreams file = planner.files.computeIfAbsent(resultSet.getInt("FILE_ID"), FileStreams::new);
+                    String kind = resultSet.getString("KIND");
+                    Streams streams;
+                    if ("V".equals(kind))
+                        streams = file.video;
+                    else if ("A".equals(kind))
+                        streams = file.audio.computeIfAbsent(resultSet.getString("LANGUAGE"), l -> new Streams());
+                    else if ("T".equals(kind))
+                        streams = file.text.computeIfAbsent(resultSet.getString("LANGUAGE"), l -> new Streams());
+                    else
+                        continue;
+                    streams.add(resultSet.getInt("FLUX_ID"), resultSet.getInt("DATA_RATE"));
+                }
+            }
+            try (ResultSet resultSet = statements.prepare(Query.LIST_FILM_FILE_LINKS).executeQuery()) {
+                while (resultSet.next()) {
+                    FileStreams file = planner.files.get(resultSet.getInt("FILE_ID"));
+                    if (file != null)
+                        filmFiles.computeIfAbsent(FilmLoader.key(resultSet.getString("FILM_TITLE"), resultSet.getInt("FILM_YEAR")),
+                                key -> new ArrayList<>(1)).add(file);
+                }
+            }
+            try (ResultSet resultSet = statements.prepare(Query.LIST_TRACK_FILE_LINKS).executeQuery()) {
+                while (resultSet.next()) {
+                    FileStreams file = planner.files.get(resultSet.getInt("FILE_ID"));
+                    if (file != null)
+                        trackFiles.computeIfAbsent(TrackLoader.key(resultSet.getInt("ALBUM_ID"), resultSet.getInt("TRACK_ID")),
+                                key -> new ArrayList<>(1)).add(file);
+                }
+            }
+        }
+        Comparator<FileStreams> bestVideoFirst = Comparator.comparingInt(FileStreams::bestVideoRate).reversed();
+        filmFiles.forEach((key, candidates) ->
+                planner.filmFiles.put(key, candidates.stream().sorted(bestVideoFirst).toArray(FileStreams[]::new)));
+        trackFiles.forEach((key, candidates) ->
+                planner.trackFiles.put(key, candidates.stream().sorted(bestVideoFirst).toArray(FileStreams[]::new)));
+        return planner;
+    }
+
+    /**
+     * The best plan among the files of the session, null when none of them fits the budget or has audio in
+     * the language.
+     */
+    public Plan plan(Session session) {
+        Plan best = null;
+        for (FileStreams file : session.candidates.apply(this)) {
+            if (best != null && file.bestVideoRate() < best.videoRate)
+                break;
+            Plan plan = file.plan(session.language, session.budget);
+            if (plan != null && (best == null || plan.isBetterThan(best)))
+                best = plan;
+        }
+        return best;
+    }
+
+    /**
+     * Plans the sessions in parallel, the plans are in the order of the sessions.
+     */
+    public List<Plan> planAll(List<Session> sessions) {
+        return sessions.parallelStream().map(this::plan).collect(Collectors.toList());
+    }
+
+    public String getStatistics() {
+        return String.format("files=%d films=%d tracks=%d", files.size(), filmFiles.size(), trackFiles.size());
+    }
+}
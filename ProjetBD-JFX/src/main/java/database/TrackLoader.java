@@ -0,0 +1,187 @@
+package database;
+
+import model.Album;
+import model.AlbumCategory;
+import model.Artist;
+import model.MusicCategory;
+import model.Track;
+import utils.SQLConsumer;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Loads tracks with their album, album categories, track categories and musicians in a constant number of queries,
+ * then stitches the rows together in memory.
+ */
+class TrackLoader {
+
+    /**
+     * The queries used to load a set of tracks and the rows related to them.
+     * When {@code filtersRelated} is set, the related queries take the same parameters as the track query
+     * and only return the rows of the tracks it selects.
+     */
+    static class Scope {
+        private final Query tracks;
+        private final Query albums;
+        private final Query albumCategories;
+        private final Query trackCategories;
+        private final Query musicians;
+        private final boolean filtersRelated;
+
+        Scope(Query tracks, Query albums, Query albumCategories, Query trackCategories, Query musicians, boolean filtersRelated) {
+            this.tracks = tracks;
+            this.albums = albums;
+            this.albumCategories = albumCategories;
+            this.trackCategories = trackCategories;
+            this.musicians = musicians;
+            this.filtersRelated = filtersRelated;
+        }
+    }
+
+    static final Scope ALL = new Scope(
+            Query.LIST_TRACKS, Query.LIST_ALBUMS, Query.LIST_ALBUM_CATEGORIES,
+            Query.LIST_TRACK_CATEGORIES, Query.LIST_MUSICIANS, false
+    );
+
+    /**
+     * One keyset page of tracks, see {@link Query#LIST_TRACKS_PAGE}.
+     */
+    static final Scope PAGE = new Scope(
+            Query.LIST_TRACKS_PAGE, Query.LIST_ALBUMS_OF_TRACKS_PAGE, Query.LIST_ALBUM_CATEGORIES_OF_TRACKS_PAGE,
+            Query.LIST_TRACK_CATEGORIES_OF_TRACKS_PAGE, Query.LIST_MUSICIANS_OF_TRACKS_PAGE, true
+    );
+
+    /**
+     * Tracks recommended to a user, see {@link Query#LIST_TRACKS_USER}.
+     */
+    static final Scope USER_RECOMMENDATIONS = new Scope(
+            Query.LIST_TRACKS_USER, Query.LIST_ALBUMS_OF_TRACKS_USER, Query.LIST_ALBUM_CATEGORIES_OF_TRACKS_USER,
+            Query.LIST_TRACK_CATEGORIES_OF_TRACKS_USER, Query.LIST_MUSICIANS_OF_TRACKS_USER, true
+    );
+
+    /**
+     * Tracks given by primary key, see {@link Query#LIST_TRACKS_BY_KEYS}.
+     */
+    static final Scope BY_KEYS = new Scope(
+            Query.LIST_TRACKS_BY_KEYS, Query.LIST_ALBUMS_OF_TRACKS_BY_KEYS, Query.LIST_ALBUM_CATEGORIES_OF_TRACKS_BY_KEYS,
+            Query.LIST_TRACK_CATEGORIES_OF_TRACKS_BY_KEYS, Query.LIST_MUSICIANS_OF_TRACKS_BY_KEYS, true
+    );
+
+    private static final SQLConsumer<PreparedStatement> NO_PARAMETERS = statement -> {};
+
+    private final Connection connection;
+    private final IdentityMap identities;
+    private int roundTrips = 0;
+
+    TrackLoader(Connection connection, IdentityMap identities) {
+        this.connection = connection;
+        this.identities = identities;
+    }
+
+    List<Track> load(Scope scope) throws SQLException {
+        return load(scope, NO_PARAMETERS);
+    }
+
+    List<Track> load(Scope scope, SQLConsumer<PreparedStatement> parameters) throws SQLException {
+        SQLConsumer<PreparedStatement> relatedParameters = scope.filtersRelated ? parameters : NO_PARAMETERS;
+
+        Map<Long, Track> tracks = new LinkedHashMap<>();
+        try (ResultSet resultSet = execute(scope.tracks, parameters)) {
+            while (resultSet.next()) {
+                Track track = new Track().loadFromResultSet(resultSet);
+                if (track != null)
+                    tracks.put(key(track.getAlbumId(), track.getId()), track);
+            }
+        }
+        if (tracks.isEmpty())
+            return new ArrayList<>();
+
+        Map<Integer, Album> albums = loadAlbums(scope.albums, scope.albumCategories, relatedParameters);
+        for (Track track : tracks.values()) {
+            track.setAlbum(albums.get(track.getAlbumId()));
+        }
+
+        try (ResultSet resultSet = execute(scope.trackCategories, relatedParameters)) {
+            while (resultSet.next()) {
+                Track track = tracks.get(key(resultSet.getInt("ALBUM_ID"), resultSet.getInt("TRACK_ID")));
+                if (track == null)
+                    continue;
+                MusicCategory trackCategory = new MusicCategory().loadFromResultSet(resultSet);
+                if (trackCategory != null)
+                    track.getTrackCategories().add(trackCategory);
+            }
+        }
+
+        try (ResultSet resultSet = execute(scope.musicians, relatedParameters)) {
+            while (resultSet.next()) {
+                Track track = tracks.get(key(resultSet.getInt("ALBUM_ID"), resultSet.getInt("TRACK_ID")));
+                if (track == null)
+                    continue;
+                Artist artist = OracleDB.resolveArtist(identities, resultSet);
+                if (artist != null)
+                    track.getArtistsList().add(new Artist.Musician(artist, resultSet.getString("INSTRUMENT_NAME")));
+            }
+        }
+
+        return new ArrayList<>(tracks.values());
+    }
+
+    Map<Integer, Album> loadAlbums() throws SQLException {
+        return loadAlbums(ALL.albums, ALL.albumCategories, NO_PARAMETERS);
+    }
+
+    private Map<Integer, Album> loadAlbums(Query albumQuery, Query categoryQuery, SQLConsumer<PreparedStatement> parameters) throws SQLException {
+        Map<Integer, Album> albums = new LinkedHashMap<>();
+        Set<Integer> materialized = new HashSet<>();
+        try (ResultSet resultSet = execute(albumQuery, parameters)) {
+            while (resultSet.next()) {
+                int albumId = resultSet.getInt("ALBUM_ID");
+                if (!identities.contains(Album.class, albumId))
+                    materialized.add(albumId);
+                Album album = identities.resolve(Album.class, albumId, () -> new Album().loadFromResultSet(resultSet));
+                if (album != null)
+                    albums.put(album.getId(), album);
+            }
+        }
+        if (materialized.isEmpty())
+            return albums;
+        try (ResultSet resultSet = execute(categoryQuery, parameters)) {
+            while (resultSet.next()) {
+                // Albums already known to this unit of work have their categories
+                if (!materialized.contains(resultSet.getInt("ALBUM_ID")))
+                    continue;
+                Album album = albums.get(resultSet.getInt("ALBUM_ID"));
+                if (album == null)
+                    continue;
+                AlbumCategory albumCategory = new AlbumCategory().loadFromResultSet(resultSet);
+                if (albumCategory != null)
+                    album.getAlbumCatgeories().add(albumCategory);
+            }
+        }
+        return albums;
+    }
+
+    private ResultSet execute(Query query, SQLConsumer<PreparedStatement> parameters) throws SQLException {
+        PreparedStatement statement = OracleDB.prepare(connection, query);
+        parameters.accept(statement);
+        roundTrips++;
+        return statement.executeQuery();
+    }
+
+    int getRoundTrips() {
+        return roundTrips;
+    }
+
+    static long key(int albumId, int trackId) {
+        return ((long) albumId << 32) | (trackId & 0xFFFFFFFFL);
+    }
+}
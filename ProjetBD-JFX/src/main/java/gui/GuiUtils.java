@@ -1,10 +1,12 @@
 package gui;
 
+import database.OracleDB;
 import javafx.geometry.Insets;
 import javafx.scene.control.*;
 import javafx.scene.layout.GridPane;
 
 import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class GuiUtils {
@@ -30,6 +32,19 @@ public class GuiUtils {
         return grid;
     }
 
+    /**
+     * Fills the ID field of a new row with an ID allocated by the database. The field can't be edited
+     * and the button stays disabled until the ID arrived.
+     */
+    public static void fillAllocatedId(TextField idField, Button okButton, Callable<Integer> allocator) {
+        idField.setEditable(false);
+        okButton.setDisable(true);
+        OracleDB.queryThen(allocator, id -> {
+            idField.setText(String.valueOf(id));
+            okButton.setDisable(false);
+        });
+    }
+
     public static TextField getNumericField(int value) {
         TextField numericField = new TextField(String.valueOf(value));
         numericField.textProperty().addListener(((observable, oldValue, newValue) -> {
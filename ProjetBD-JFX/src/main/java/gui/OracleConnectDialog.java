@@ -1,6 +1,7 @@
 package gui;
 
 import com.google.common.collect.ImmutableMap;
+import database.ConnectionPool;
 import database.OracleDB;
 import javafx.application.Platform;
 import javafx.beans.value.ChangeListener;
@@ -9,13 +10,11 @@ import javafx.scene.control.*;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.GridPane;
 
-import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
-public class OracleConnectDialog extends Dialog<Connection> {
+public class OracleConnectDialog extends Dialog<ConnectionPool> {
 
-    private Connection result = null;
+    private ConnectionPool result = null;
 
     public OracleConnectDialog() {
         setTitle("Oracle Database Connection");
@@ -75,10 +74,13 @@ public class OracleConnectDialog extends Dialog<Connection> {
                 connectButton.setDisable(true);
                 progressIndicator.setVisible(true);
                 OracleDB.getExecutor().submit(() -> {
+                    ConnectionPool pool = OracleDB.createPool("jdbc:oracle:thin:@" + address.getText() + ":" + database.getText(), username.getText(), password.getText());
                     try {
-                        result = DriverManager.getConnection("jdbc:oracle:thin:@" + address.getText() + ":" + database.getText(), username.getText(), password.getText());
+                        pool.prewarm();
+                        result = pool;
                         Platform.runLater(this::close);
                     } catch (SQLException throwables) {
+                        pool.close();
                         // display exception
                         Platform.runLater(() -> new ExceptionAlert(throwables).showAndWait());
                     }
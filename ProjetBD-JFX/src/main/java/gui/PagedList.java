@@ -0,0 +1,520 @@
+package gui;
+
+import database.ChangeJournal;
+import database.OracleDB;
+import database.PageIndex;
+import javafx.collections.ObservableListBase;
+import utils.SQLFunction;
+import utils.SQLSupplier;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Read-only list backed by a table, fetched one keyset page at a time as its rows are accessed.
+ * Only the most recently used pages are kept in memory and the page following an accessed one is prefetched.
+ * Rows that are not loaded yet read as {@code null}; an update event is fired once their page arrives.
+ * Must only be used from the JavaFX application thread.
+ */
+public class PagedList<T> extends ObservableListBase<T> {
+
+    public static final int DEFAULT_PAGE_SIZE = 200;
+    public static final int DEFAULT_MAX_PAGES = 8;
+    // Beyond this many changed rows, reading the page index again is cheaper than applying the changes one by one
+    public static final int MAX_REFRESHED_ROWS = 1000;
+
+    public interface PageLoader<T> {
+        List<T> load(PageIndex.Key first, int pageSize) throws SQLException;
+    }
+
+    /**
+     * Table of the rows in the {@link ChangeJournal}, and how to read rows again by primary key.
+     * A change to one of the dependencies, such as a renamed category shown in the rows, reloads the whole list.
+     */
+    public static final class Source<T> {
+        private final ChangeJournal.Entity entity;
+        private final Function<T, Object[]> keyOf;
+        private final SQLFunction<List<Object[]>, List<T>> rowsLoader;
+        private final Set<ChangeJournal.Entity> dependencies;
+
+        public Source(ChangeJournal.Entity entity, Function<T, Object[]> keyOf,
+                      SQLFunction<List<Object[]>, List<T>> rowsLoader, ChangeJournal.Entity... dependencies) {
+            this.entity = entity;
+            this.keyOf = keyOf;
+            this.rowsLoader = rowsLoader;
+            this.dependencies = dependencies.length == 0
+                    ? EnumSet.noneOf(ChangeJournal.Entity.class) : EnumSet.copyOf(Arrays.asList(dependencies));
+        }
+    }
+
+    private static final class Snapshot<R> {
+        private final long sequence;
+        private final R value;
+
+        private Snapshot(long sequence, R value) {
+            this.sequence = sequence;
+            this.value = value;
+        }
+    }
+
+    private static final class Page<T> {
+        private final List<T> rows;
+        // Last change of the journal that the rows may not include
+        private final long sequence;
+
+        private Page(List<T> rows, long sequence) {
+            this.rows = rows;
+            this.sequence = sequence;
+        }
+    }
+
+    private static final class RowChange {
+        private final Object[] key;
+        private final boolean existedBefore;
+        private boolean existsAfter;
+
+        private RowChange(Object[] key, boolean existedBefore) {
+            this.key = key;
+            this.existedBefore = existedBefore;
+        }
+    }
+
+    private final int pageSize;
+    private final SQLFunction<Integer, PageIndex> indexLoader;
+    private final PageLoader<T> pageLoader;
+    private final Source<T> source;
+    private final Map<Integer, Page<T>> pages;
+    private final Map<Integer, Integer> loading = new HashMap<>();
+
+    // Pages keep their first key but their row count changes with refreshes, until the next reload
+    private List<PageIndex.Key> firstKeys = new ArrayList<>();
+    private int[] counts = new int[0];
+    private int[] starts = new int[0];
+    private int size = 0;
+    private long sequence = 0;
+    private boolean indexLoading = false;
+    private boolean refreshing = false;
+    private Runnable queuedRefresh;
+    private int generation = 0;
+    private int requests = 0;
+    private Consumer<Exception> onError;
+
+    public PagedList(SQLFunction<Integer, PageIndex> indexLoader, PageLoader<T> pageLoader) {
+        this(DEFAULT_PAGE_SIZE, DEFAULT_MAX_PAGES, indexLoader, pageLoader, null);
+    }
+
+    public PagedList(SQLFunction<Integer, PageIndex> indexLoader, PageLoader<T> pageLoader, Source<T> source) {
+        this(DEFAULT_PAGE_SIZE, DEFAULT_MAX_PAGES, indexLoader, pageLoader, source);
+    }
+
+    public PagedList(int pageSize, int maxPages, SQLFunction<Integer, PageIndex> indexLoader, PageLoader<T> pageLoader,
+                     Source<T> source) {
+        this.pageSize = pageSize;
+        this.indexLoader = indexLoader;
+        this.pageLoader = pageLoader;
+        this.source = source;
+        this.pages = new LinkedHashMap<>(maxPages + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Page<T>> eldest) {
+                return size() > maxPages;
+            }
+        };
+    }
+
+    /**
+     * Empties the list, then reads the page index again. {@code then} runs once the size of the list is known.
+     */
+    public void reload(Runnable then, Consumer<Exception> onError) {
+        int currentGeneration = ++generation;
+        this.onError = onError;
+        loading.clear();
+        pages.clear();
+        refreshing = false;
+        queuedRefresh = null;
+        indexLoading = true;
+        setIndex(PageIndex.EMPTY, sequence);
+
+        OracleDB.queryThen(
+                snapshot(() -> indexLoader.apply(pageSize)),
+                newIndex -> {
+                    if (currentGeneration != generation)
+                        return;
+                    indexLoading = false;
+                    setIndex(newIndex.value, newIndex.sequence);
+                    if (!firstKeys.isEmpty())
+                        request(0);
+                    if (then != null)
+                        then.run();
+                },
+                error -> {
+                    if (currentGeneration == generation && onError != null)
+                        onError.accept(error);
+                }
+        );
+    }
+
+    /**
+     * Applies the rows written since the last reload or refresh as additions, removals and replacements of rows,
+     * so a table showing the list keeps its selection and scroll position. Only the changed rows of the loaded
+     * pages are read again. Falls back to {@link #reload} without a {@link Source}, when the journal no longer
+     * has every change, when too many rows changed or when one of the dependencies changed.
+     */
+    public void refresh(Runnable then, Consumer<Exception> onError) {
+        if (refreshing) {
+            queuedRefresh = () -> refresh(then, onError);
+            return;
+        }
+        List<ChangeJournal.Change> changes = source == null || indexLoading ? null : OracleDB.getJournal().since(sequence);
+        if (changes == null) {
+            reload(then, onError);
+            return;
+        }
+        Map<List<Object>, RowChange> rowChanges = new LinkedHashMap<>();
+        long lastSequence = sequence;
+        for (ChangeJournal.Change change : changes) {
+            lastSequence = change.getSequence();
+            if (change.getEntity() != source.entity) {
+                if (source.dependencies.contains(change.getEntity()) && change.getType() != ChangeJournal.Type.CREATED) {
+                    reload(then, onError);
+                    return;
+                }
+                continue;
+            }
+            Object[] key = change.getKey();
+            rowChanges.computeIfAbsent(
+                    Arrays.asList(key), k -> new RowChange(key, change.getType() != ChangeJournal.Type.CREATED)
+            ).existsAfter = change.getType() != ChangeJournal.Type.DELETED;
+        }
+        if (rowChanges.size() > MAX_REFRESHED_ROWS) {
+            reload(then, onError);
+            return;
+        }
+
+        long from = sequence;
+        sequence = lastSequence;
+        this.onError = onError;
+        List<Object[]> keys = new ArrayList<>();
+        for (RowChange change : rowChanges.values()) {
+            Page<T> page = firstKeys.isEmpty() ? null : pages.get(pageOf(change.key));
+            if (change.existsAfter && page != null && page.sequence <= from)
+                keys.add(change.key);
+        }
+        if (keys.isEmpty()) {
+            apply(rowChanges.values(), Collections.emptyList(), from);
+            if (then != null)
+                then.run();
+            return;
+        }
+
+        int currentGeneration = generation;
+        refreshing = true;
+        OracleDB.queryThen(
+                () -> source.rowsLoader.apply(keys),
+                rows -> {
+                    if (currentGeneration != generation)
+                        return;
+                    refreshing = false;
+                    apply(rowChanges.values(), rows, from);
+                    if (then != null)
+                        then.run();
+                    runQueuedRefresh();
+                },
+                error -> {
+                    if (currentGeneration != generation)
+                        return;
+                    refreshing = false;
+                    if (onError != null)
+                        onError.accept(error);
+                    runQueuedRefresh();
+                }
+        );
+    }
+
+    private void runQueuedRefresh() {
+        Runnable refresh = queuedRefresh;
+        queuedRefresh = null;
+        if (refresh != null)
+            refresh.run();
+    }
+
+    /**
+     * Applies the changes to the pages, with the rows read again for the created and updated keys.
+     * Pages loaded after {@code from} may already include some of the changes: they are read again, as are
+     * the pages that were being read and the loaded pages a row is missing for.
+     */
+    private void apply(Collection<RowChange> changes, List<T> rows, long from) {
+        Map<List<Object>, T> readRows = new HashMap<>();
+        for (T row : rows) {
+            readRows.put(Arrays.asList(source.keyOf.apply(row)), row);
+        }
+        Set<Integer> stalePages = new TreeSet<>();
+
+        beginChange();
+        for (RowChange change : changes) {
+            if (!change.existedBefore && !change.existsAfter)
+                continue;
+            if (firstKeys.isEmpty()) {
+                if (!change.existsAfter)
+                    continue;
+                firstKeys.add(PageIndex.Key.of(change.key));
+                counts = new int[1];
+                starts = new int[1];
+            }
+            int page = pageOf(change.key);
+            if (loading.remove(page) != null)
+                stalePages.add(page);
+            Page<T> loaded = pages.get(page);
+            if (loaded != null && loaded.sequence > from) {
+                pages.remove(page);
+                stalePages.add(page);
+                loaded = null;
+            }
+            int index = loaded == null ? -1 : indexOf(loaded.rows, change.key);
+            T row = readRows.get(Arrays.asList(change.key));
+
+            if (!change.existsAfter) {
+                if (loaded != null && index < 0)
+                    continue;
+                if (loaded == null && counts[page] == 0)
+                    continue;
+                T removed = loaded == null ? null : loaded.rows.remove(index);
+                resize(page, -1);
+                nextRemove(starts[page] + Math.max(index, 0), removed);
+                continue;
+            }
+            if (loaded != null && row == null) {
+                pages.remove(page);
+                stalePages.add(page);
+                loaded = null;
+                index = -1;
+            }
+            if (loaded != null && index >= 0) {
+                T replaced = loaded.rows.set(index, row);
+                nextSet(starts[page] + index, replaced);
+            } else if (!change.existedBefore || loaded != null) {
+                if (page == 0 && compare(firstKeys.get(0), change.key) > 0)
+                    firstKeys.set(0, PageIndex.Key.of(change.key));
+                int position = counts[page];
+                if (loaded != null) {
+                    position = -index - 1;
+                    loaded.rows.add(position, row);
+                }
+                resize(page, 1);
+                nextAdd(starts[page] + position, starts[page] + position + 1);
+            }
+        }
+        endChange();
+
+        for (int page : stalePages) {
+            pages.remove(page);
+            loading.remove(page);
+            fireUpdates(page);
+            request(page);
+        }
+    }
+
+    private void resize(int page, int delta) {
+        counts[page] += delta;
+        for (int i = page + 1; i < starts.length; i++) {
+            starts[i] += delta;
+        }
+        size += delta;
+    }
+
+    private void setIndex(PageIndex newIndex, long indexSequence) {
+        int oldSize = size;
+        sequence = indexSequence;
+        firstKeys = new ArrayList<>();
+        counts = new int[newIndex.getPageCount()];
+        starts = new int[newIndex.getPageCount()];
+        for (int page = 0; page < newIndex.getPageCount(); page++) {
+            firstKeys.add(newIndex.getFirstKey(page));
+            starts[page] = page * newIndex.getPageSize();
+            counts[page] = Math.min(newIndex.getPageSize(), newIndex.getSize() - starts[page]);
+        }
+        size = newIndex.getSize();
+        if (oldSize == 0 && size == 0)
+            return;
+        beginChange();
+        if (oldSize > 0)
+            nextRemove(0, Collections.<T>nCopies(oldSize, null));
+        if (size > 0)
+            nextAdd(0, size);
+        endChange();
+    }
+
+    private void request(int page) {
+        if (pages.containsKey(page) || loading.containsKey(page))
+            return;
+        int request = ++requests;
+        loading.put(page, request);
+        int currentGeneration = generation;
+        PageIndex.Key first = firstKeys.get(page);
+        int count = counts[page];
+        OracleDB.queryThen(
+                snapshot(() -> count == 0 ? Collections.<T>emptyList() : pageLoader.load(first, count)),
+                rows -> {
+                    if (currentGeneration != generation || !Integer.valueOf(request).equals(loading.get(page)))
+                        return;
+                    loading.remove(page);
+                    pages.put(page, new Page<>(new ArrayList<>(rows.value), rows.sequence));
+                    fireUpdates(page);
+                },
+                error -> {
+                    if (currentGeneration != generation || !Integer.valueOf(request).equals(loading.get(page)))
+                        return;
+                    loading.remove(page);
+                    if (onError != null)
+                        onError.accept(error);
+                }
+        );
+    }
+
+    private void fireUpdates(int page) {
+        if (counts[page] == 0)
+            return;
+        beginChange();
+        for (int i = starts[page]; i < starts[page] + counts[page]; i++) {
+            nextUpdate(i);
+        }
+        endChange();
+    }
+
+    /**
+     * Reads the journal sequence before the rows, so the rows include at least every change up to it.
+     */
+    private static <R> Callable<Snapshot<R>> snapshot(SQLSupplier<R> read) {
+        return () -> {
+            long snapshotSequence = OracleDB.getJournal().getLastSequence();
+            return new Snapshot<>(snapshotSequence, read.get());
+        };
+    }
+
+    /**
+     * Page whose key range contains the key: the last one starting at or before it, or the first one.
+     */
+    private int pageOf(Object[] key) {
+        int low = 0;
+        int high = firstKeys.size() - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (compare(firstKeys.get(middle), key) <= 0)
+                low = middle;
+            else
+                high = middle - 1;
+        }
+        return low;
+    }
+
+    private int pageAt(int i) {
+        int low = 0;
+        int high = starts.length - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (starts[middle] <= i)
+                low = middle;
+            else
+                high = middle - 1;
+        }
+        return low;
+    }
+
+    /**
+     * Index of the row with the key in rows sorted by key, or {@code -(insertion point) - 1}.
+     */
+    private int indexOf(List<T> rows, Object[] key) {
+        int low = 0;
+        int high = rows.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = compare(source.keyOf.apply(rows.get(middle)), key);
+            if (comparison < 0)
+                low = middle + 1;
+            else if (comparison > 0)
+                high = middle - 1;
+            else
+                return middle;
+        }
+        return -low - 1;
+    }
+
+    private static int compare(PageIndex.Key first, Object[] key) {
+        Object[] values = new Object[first.getColumnCount()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = first.get(i);
+        }
+        return compare(values, key);
+    }
+
+    // Keys read from the database may hold BigDecimal numbers where the models hold ints
+    private static int compare(Object[] a, Object[] b) {
+        for (int i = 0; i < Math.min(a.length, b.length); i++) {
+            int comparison = a[i] instanceof Number && b[i] instanceof Number
+                    ? Long.compare(((Number) a[i]).longValue(), ((Number) b[i]).longValue())
+                    : compareBinary((String) a[i], (String) b[i]);
+            if (comparison != 0)
+                return comparison;
+        }
+        return Integer.compare(a.length, b.length);
+    }
+
+    /**
+     * The binary order of the sessions (see ConnectionPool): UTF-8 bytes, that is code points, where
+     * {@link String#compareTo} compares UTF-16 units and puts supplementary characters before U+E000-U+FFFF.
+     */
+    private static int compareBinary(String a, String b) {
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            int first = a.codePointAt(i);
+            int second = b.codePointAt(j);
+            if (first != second)
+                return Integer.compare(first, second);
+            i += Character.charCount(first);
+            j += Character.charCount(second);
+        }
+        return Integer.compare(a.length() - i, b.length() - j);
+    }
+
+    @Override
+    public T get(int i) {
+        if (i < 0 || i >= size())
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size());
+        int page = pageAt(i);
+        Page<T> loaded = pages.get(page);
+        if (loaded == null) {
+            request(page);
+            return null;
+        }
+        if (page + 1 < firstKeys.size())
+            request(page + 1);
+        int offset = i - starts[page];
+        return offset < loaded.rows.size() ? loaded.rows.get(offset) : null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public int getLoadedPageCount() {
+        return pages.size();
+    }
+}
@@ -32,8 +32,6 @@ public class Album extends EditableModel<Album> {
         releaseDate = resultSet.getDate("RELEASE_DATE");
         coverUrl = resultSet.getString("COVER_URL");
         artistName = resultSet.getString("ARTIST_NAME");
-        OracleDB.listAlbumCategory(this);
-
         return this;
     }
 
@@ -63,6 +61,8 @@ public class Album extends EditableModel<Album> {
         Button okButton = (Button) dialog.getDialogPane().lookupButton(ButtonType.OK);
 
         TextField albumId = GuiUtils.getNumericField(create ? 0 : id);
+        if (create)
+            GuiUtils.fillAllocatedId(albumId, okButton, OracleDB::nextAlbumId);
         TextField albumTitle = new TextField(create ? "" : title);
         DatePicker releaseAlbum = new DatePicker(LocalDate.now());
         TextField coverAlbum = new TextField(create ? "" : coverUrl);
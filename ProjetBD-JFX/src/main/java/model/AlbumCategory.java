@@ -24,7 +24,8 @@ public class AlbumCategory extends EditableModel<AlbumCategory>{
 
     @Override
     public AlbumCategory loadFromResultSet(ResultSet resultSet) throws SQLException {
-        return null;
+        name = resultSet.getString("MUSIC_CATEGORY_NAME");
+        return this;
     }
 
     public String getName() {
@@ -65,6 +65,8 @@ public class Artist extends EditableModel<Artist> {
         Button okButton = (Button) dialog.getDialogPane().lookupButton(ButtonType.OK);
 
         TextField idField = GuiUtils.getNumericField(create ? 0 : id);
+        if (create)
+            GuiUtils.fillAllocatedId(idField, okButton, OracleDB::nextArtistId);
         TextField nameField = new TextField(create ? "" : name);
         TextField pictureUrlField = new TextField(create ? "" : pictureUrl);
         TextField mainSpecialtyField = new TextField(create ? "" : mainSpecialty);
@@ -138,7 +140,7 @@ public class Artist extends EditableModel<Artist> {
             }
         });
 
-        OracleDB.execute(() -> OracleDB.listArtists(artistField.getItems()));
+        OracleDB.collect(OracleDB::listArtists, artistField.getItems());
 
         Button addArtist = new Button("New artist...");
         addArtist.setOnAction(e -> {
@@ -228,7 +230,7 @@ public class Artist extends EditableModel<Artist> {
                     return artistField.getItems().stream().filter(a -> a.getName().equals(s)).findFirst().orElseThrow();
                 }
             });
-            OracleDB.execute(() -> OracleDB.listArtists(artistField.getItems()));
+            OracleDB.collect(OracleDB::listArtists, artistField.getItems());
 
             Button addArtist = new Button("New artist...");
             addArtist.setOnAction(e -> {
@@ -309,7 +311,7 @@ public class Artist extends EditableModel<Artist> {
                     return artistField.getItems().stream().filter(a -> a.getName().equals(s)).findFirst().orElseThrow();
                 }
             });
-            OracleDB.execute(() -> OracleDB.listArtists(artistField.getItems()));
+            OracleDB.collect(OracleDB::listArtists, artistField.getItems());
 
             Button addArtist = new Button("New artist...");
             addArtist.setOnAction(e -> {
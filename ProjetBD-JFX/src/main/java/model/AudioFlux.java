@@ -11,6 +11,8 @@ import javafx.scene.control.*;
 import javafx.util.StringConverter;
 import utils.ValidationError;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.List;
 
 public class AudioFlux extends Flux<AudioFlux> {
@@ -25,6 +27,15 @@ public class AudioFlux extends Flux<AudioFlux> {
         this.usedIds = usedIds;
     }
 
+    @Override
+    public AudioFlux loadFromResultSet(ResultSet resultSet) throws SQLException {
+        super.loadFromResultSet(resultSet);
+        audioCodecName = resultSet.getString("AUDIO_CODEC_NAME");
+        sampling = resultSet.getInt("SAMPLING");
+        language = resultSet.getString("AUDIO_LANGUAGE");
+        return this;
+    }
+
     @Override
     protected List<ValidationError> validate() {
         List<ValidationError> errors = super.validate();
@@ -63,8 +74,9 @@ public class AudioFlux extends Flux<AudioFlux> {
                 ).findFirst().orElse(null);
             }
         });
-        OracleDB.executeThen(
-                () -> OracleDB.listAudioCodecs(audioCodecField.getItems()),
+        OracleDB.collectThen(
+                OracleDB::listAudioCodecs,
+                audioCodecField.getItems(),
                 () -> {
                     if (audioCodecName != null)
                         audioCodecField.setValue(audioCodecField.getItems().filtered(vc -> vc.getName().equals(audioCodecName)).stream().findFirst().orElse(null));
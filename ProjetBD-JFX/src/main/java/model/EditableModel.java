@@ -12,4 +12,8 @@ public abstract class EditableModel<T> extends Model<T> {
     public Dialog<T> getEditDialog() {
         return getEditDialog(false);
     }
+
+    public List<ValidationError> getValidationErrors() {
+        return validate();
+    }
 }
@@ -29,7 +29,7 @@ public class Film extends EditableModel<Film> {
     private String posterUrl;
     private final List<FilmCategory> filmCategories = new ArrayList<>();
 
-    private List<Artist> artists;
+    private List<Artist> artists = new ArrayList<>();
 
     @Override
     public Film loadFromResultSet(ResultSet resultSet) throws SQLException {
@@ -38,7 +38,6 @@ public class Film extends EditableModel<Film> {
         _abstract = resultSet.getString("ABSTRACT");
         recommendedAge = resultSet.getInt("RECOMMENDED_AGE");
         posterUrl = resultSet.getString("POSTER_URL");
-        OracleDB.listFilmCategories(this);
         return this;
     }
 
@@ -83,8 +82,9 @@ public class Film extends EditableModel<Film> {
                 return categoryField.getItems().stream().filter(fc -> fc.getName().equals(s)).findFirst().orElseThrow();
             }
         });
-        OracleDB.executeThen(
-                () -> OracleDB.listFilmCategories(categoryField.getItems()),
+        OracleDB.collectThen(
+                OracleDB::listFilmCategories,
+                categoryField.getItems(),
                 () -> filmCategories.forEach(fc -> categoryField.getCheckModel().check(fc))
         );
 
@@ -114,10 +114,10 @@ public class Film extends EditableModel<Film> {
         artists = artistList.getItems();
         artistList.setPlaceholder(new Label("You can add artists to this film"));
 
-        OracleDB.execute(() -> {
-            OracleDB.listFilmArtists(this, artists);
-            OracleDB.listFilmActors(this, artists);
-        });
+        OracleDB.collect(list -> {
+            OracleDB.listFilmArtists(this, list);
+            OracleDB.listFilmActors(this, list);
+        }, artistList.getItems());
 
         Button addArtist = new Button("Add an artist");
         Button addActor = new Button("Add an actor");
@@ -49,7 +49,8 @@ public class MediaFile extends EditableModel<MediaFile> {
             errors.add(new ValidationError("Added date", "Must be specified"));
         if (userEmail == null)
             errors.add(new ValidationError("Added by", "User must be specified"));
-        if (flux.isEmpty())
+        // Files read from a row don't carry their flux, which are then checked on their own
+        if (flux != null && flux.isEmpty())
             errors.add(new ValidationError("Flux", "Add at least one flux"));
         return errors;
     }
@@ -63,6 +64,8 @@ public class MediaFile extends EditableModel<MediaFile> {
         Button okButton = (Button) dialog.getDialogPane().lookupButton(ButtonType.OK);
 
         TextField idField = GuiUtils.getNumericField(create ? 0 : id);
+        if (create)
+            GuiUtils.fillAllocatedId(idField, okButton, OracleDB::nextMediaFileId);
         TextField sizeField = GuiUtils.getNumericField(create ? 1 : size);
         DatePicker dateField = new DatePicker(LocalDate.now());
 
@@ -80,8 +83,9 @@ public class MediaFile extends EditableModel<MediaFile> {
                 ).findFirst().orElse(null);
             }
         });
-        OracleDB.executeThen(
-                () -> OracleDB.listUsers(userField.getItems()),
+        OracleDB.collectThen(
+                OracleDB::listUsers,
+                userField.getItems(),
                 () -> {
                     if (userEmail != null)
                         userField.setValue(userField.getItems().filtered(u -> u.getEmail().equals(userEmail)).stream().findFirst().orElse(null));
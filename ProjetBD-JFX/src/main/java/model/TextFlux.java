@@ -11,6 +11,8 @@ import javafx.scene.control.*;
 import javafx.util.StringConverter;
 import utils.ValidationError;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.List;
 
 public class TextFlux extends Flux<TextFlux> {
@@ -24,6 +26,14 @@ public class TextFlux extends Flux<TextFlux> {
         this.usedIds = usedIds;
     }
 
+    @Override
+    public TextFlux loadFromResultSet(ResultSet resultSet) throws SQLException {
+        super.loadFromResultSet(resultSet);
+        textCodecName = resultSet.getString("TEXT_CODEC_NAME");
+        language = resultSet.getString("TEXT_LANGUAGE");
+        return this;
+    }
+
     @Override
     protected List<ValidationError> validate() {
         List<ValidationError> errors = super.validate();
@@ -60,8 +70,9 @@ public class TextFlux extends Flux<TextFlux> {
                 ).findFirst().orElse(null);
             }
         });
-        OracleDB.executeThen(
-                () -> OracleDB.listTextCodecs(textCodecField.getItems()),
+        OracleDB.collectThen(
+                OracleDB::listTextCodecs,
+                textCodecField.getItems(),
                 () -> {
                     if (textCodecName != null)
                         textCodecField.setValue(textCodecField.getItems().filtered(vc -> vc.getName().equals(textCodecName)).stream().findFirst().orElse(null));
@@ -58,6 +58,8 @@ public class Track extends EditableModel<Track>{
         Button okButton = (Button) dialog.getDialogPane().lookupButton(ButtonType.OK);
 
         TextField idField = GuiUtils.getNumericField(create ? 0 : id);
+        if (create)
+            GuiUtils.fillAllocatedId(idField, okButton, OracleDB::nextTrackId);
         TextField titleField = new TextField(create ? "" : title);
         TextField length = GuiUtils.getNumericField(create ? 1 : getLength());
 
@@ -73,8 +75,9 @@ public class Track extends EditableModel<Track>{
                 return categoryField.getItems().stream().filter(fc -> fc.getName().equals(s)).findFirst().orElseThrow();
             }
         });
-        OracleDB.executeThen(
-                () -> OracleDB.listMusicCategories(categoryField.getItems()),
+        OracleDB.collectThen(
+                OracleDB::listMusicCategories,
+                categoryField.getItems(),
                 () -> trackCategories.forEach(tc -> categoryField.getCheckModel().check(tc))
         );
 
@@ -94,8 +97,9 @@ public class Track extends EditableModel<Track>{
                 ).findFirst().orElse(null);
             }
         });
-        OracleDB.executeThen(
-                () -> OracleDB.listAlbum(albumField.getItems()),
+        OracleDB.collectThen(
+                OracleDB::listAlbum,
+                albumField.getItems(),
                 () -> albumField.setValue(albumField.getItems().filtered(u -> u.getId() == albumId).stream().findFirst().orElse(null))
         );
 
@@ -195,9 +199,6 @@ public class Track extends EditableModel<Track>{
         albumId = resultSet.getInt("ALBUM_ID");
         title = resultSet.getString("TRACK_TITLE");
         length = resultSet.getInt("LENGTH");
-        OracleDB.listTrackCategories(this);
-        OracleDB.setAlbum(this);
-        OracleDB.setArtist(this);
         return this;
     }
 
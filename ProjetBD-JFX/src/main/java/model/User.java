@@ -2,6 +2,7 @@ package model;
 
 import com.google.common.collect.ImmutableMap;
 import database.OracleDB;
+import database.StorageAccounts;
 import gui.GuiUtils;
 import gui.ValidationAlert;
 import javafx.application.Platform;
@@ -22,6 +23,7 @@ public class User extends EditableModel<User> {
     private int age;
     private int accessCode;
     private String preferredLanguage;
+    private StorageAccounts.Usage storageUsage = StorageAccounts.Usage.NONE;
 
     @Override
     public User loadFromResultSet(ResultSet resultSet) throws SQLException {
@@ -144,4 +146,35 @@ public class User extends EditableModel<User> {
     public String getPreferredLanguage() {
         return preferredLanguage;
     }
+
+    public StorageAccounts.Usage getStorageUsage() {
+        return storageUsage;
+    }
+
+    public void setStorageUsage(StorageAccounts.Usage storageUsage) {
+        this.storageUsage = storageUsage;
+    }
+
+    public int getFileCount() {
+        return storageUsage.getFiles();
+    }
+
+    public String getStoredSize() {
+        return formatSize(storageUsage.getBytes());
+    }
+
+    public String getFilmsSize() {
+        return formatSize(storageUsage.getFilmBytes());
+    }
+
+    public String getTracksSize() {
+        return formatSize(storageUsage.getTrackBytes());
+    }
+
+    private static String formatSize(long bytes) {
+        if (bytes < 1024)
+            return bytes + " B";
+        int unit = (63 - Long.numberOfLeadingZeros(bytes)) / 10;
+        return String.format("%.1f %siB", (double) bytes / (1L << (10 * unit)), "KMGTPE".charAt(unit - 1));
+    }
 }
@@ -10,6 +10,8 @@ import javafx.scene.control.*;
 import javafx.util.StringConverter;
 import utils.ValidationError;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.List;
 
 public class VideoFlux extends Flux<VideoFlux> {
@@ -24,6 +26,15 @@ public class VideoFlux extends Flux<VideoFlux> {
         this.usedIds = usedIds;
     }
 
+    @Override
+    public VideoFlux loadFromResultSet(ResultSet resultSet) throws SQLException {
+        super.loadFromResultSet(resultSet);
+        videoCodecName = resultSet.getString("VIDEO_CODEC_NAME");
+        width = resultSet.getInt("WIDTH");
+        height = resultSet.getInt("HEIGHT");
+        return this;
+    }
+
     @Override
     protected List<ValidationError> validate() {
         List<ValidationError> errors = super.validate();
@@ -62,8 +73,9 @@ public class VideoFlux extends Flux<VideoFlux> {
                 ).findFirst().orElse(null);
             }
         });
-        OracleDB.executeThen(
-                () -> OracleDB.listVideoCodecs(videoCodecField.getItems()),
+        OracleDB.collectThen(
+                OracleDB::listVideoCodecs,
+                videoCodecField.getItems(),
                 () -> {
                     if (videoCodecName != null)
                         videoCodecField.setValue(videoCodecField.getItems().filtered(vc -> vc.getName().equals(videoCodecName)).stream().findFirst().orElse(null));
@@ -0,0 +1,28 @@
+package utils;
+
+import java.util.Collection;
+
+/**
+ * Receives the rows read by a loader, which only ever adds to it.
+ */
+public interface RowSink<T> {
+    void add(T row);
+
+    default void addAll(Collection<? extends T> rows) {
+        rows.forEach(this::add);
+    }
+
+    static <T> RowSink<T> of(Collection<? super T> rows) {
+        return new RowSink<T>() {
+            @Override
+            public void add(T row) {
+                rows.add(row);
+            }
+
+            @Override
+            public void addAll(Collection<? extends T> added) {
+                rows.addAll(added);
+            }
+        };
+    }
+}
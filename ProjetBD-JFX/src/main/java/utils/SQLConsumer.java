@@ -0,0 +1,7 @@
+package utils;
+
+import java.sql.SQLException;
+
+public interface SQLConsumer<T> {
+    void accept(T t) throws SQLException;
+}
@@ -0,0 +1,7 @@
+package utils;
+
+import java.sql.SQLException;
+
+public interface SQLFunction<T, R> {
+    R apply(T t) throws SQLException;
+}
@@ -1,10 +1,16 @@
 package view;
 
+import database.ChangeJournal;
 import database.OracleDB;
+import database.RowStream;
 import gui.ExceptionAlert;
 import gui.GuiUtils;
+import gui.PagedList;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
 import javafx.fxml.FXML;
 import javafx.geometry.Pos;
 import javafx.scene.control.*;
@@ -13,22 +19,47 @@ import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.GridPane;
 import javafx.scene.paint.Color;
 import javafx.scene.text.TextAlignment;
+import javafx.util.Duration;
 import javafx.util.Pair;
 import javafx.util.StringConverter;
 import model.*;
 import org.controlsfx.control.CheckComboBox;
+import utils.SQLConsumer;
 
 import java.net.URL;
 import java.sql.SQLException;
+import java.util.List;
 import java.util.ResourceBundle;
+import java.util.function.IntConsumer;
+import java.util.stream.Collectors;
 
 public class RootController extends view.BaseController {
 
-    private final ObservableList<User> users = FXCollections.observableArrayList();
-    private final ObservableList<Film> films = FXCollections.observableArrayList();
+    private final PagedList<User> users = new PagedList<>(
+            OracleDB::listUserPageKeys, OracleDB::listUsersPage,
+            new PagedList.Source<>(ChangeJournal.Entity.USER, user -> new Object[]{user.getEmail()}, OracleDB::listUsersByKeys)
+    );
+    private final PagedList<Film> films = new PagedList<>(
+            OracleDB::listFilmPageKeys, OracleDB::listFilmsPage,
+            new PagedList.Source<>(
+                    ChangeJournal.Entity.FILM, film -> new Object[]{film.getTitle(), film.getYear()},
+                    OracleDB::listFilmsByKeys, ChangeJournal.Entity.FILM_CATEGORY
+            )
+    );
     private final ObservableList<Film> films1 = FXCollections.observableArrayList();
-    private final ObservableList<Track> tracks = FXCollections.observableArrayList();
+    private final FilteredList<Film> films1Filtered = new FilteredList<>(films1);
+    private RowStream<Film> films1Stream;
+    private final PagedList<Track> tracks = new PagedList<>(
+            OracleDB::listTrackPageKeys, OracleDB::listTracksPage,
+            new PagedList.Source<>(
+                    ChangeJournal.Entity.TRACK, track -> new Object[]{track.getAlbumId(), track.getId()},
+                    OracleDB::listTracksByKeys,
+                    ChangeJournal.Entity.ALBUM, ChangeJournal.Entity.ARTIST, ChangeJournal.Entity.MUSIC_CATEGORY
+            )
+    );
     private final ObservableList<Track> tracks1 = FXCollections.observableArrayList();
+    private final FilteredList<Track> tracks1Filtered = new FilteredList<>(tracks1);
+    private final PauseTransition searchDelay = new PauseTransition(Duration.millis(200));
 
     @FXML
     private TableView<User> usersListView;
@@ -46,6 +77,9 @@ public class RootController extends view.BaseController {
     private TableView<Track> tracks1ListView;
 
 
+    @FXML
+    private TextField searchField;
+
     @FXML
     private TabPane tabPane;
 
@@ -71,6 +105,7 @@ public class RootController extends view.BaseController {
     // region Films
     private final Label selectedFilmLabel = new Label();
     private final Button deleteFilm = new Button("Delete film");
+    private final ProgressBar deleteProgress = new ProgressBar();
     private final Label filmAbstractLabel = new Label();
     // endregion
 
@@ -96,9 +131,14 @@ public class RootController extends view.BaseController {
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
-        usersListView.getColumns().forEach(column ->
-                column.setCellValueFactory(new PropertyValueFactory<>(column.getId()))
-        );
+        searchDelay.setOnFinished(e -> search());
+        searchField.textProperty().addListener((observable, oldValue, newValue) -> searchDelay.playFromStart());
+        searchField.setDisable(true);
+
+        usersListView.getColumns().forEach(column -> {
+            column.setCellValueFactory(new PropertyValueFactory<>(column.getId()));
+            column.setSortable(false);
+        });
         usersListView.getSelectionModel().selectedItemProperty().addListener(((observable, oldValue, newValue) -> {
             if (newValue == null) {
                 actionsGridPane.getChildren().remove(selectedUserLabel);
@@ -114,9 +154,11 @@ public class RootController extends view.BaseController {
             }
         }));
 
-        filmsListView.getColumns().forEach(column ->
-                column.setCellValueFactory(new PropertyValueFactory<>(column.getId()))
-        );
+        filmsListView.getColumns().forEach(column -> {
+            column.setCellValueFactory(new PropertyValueFactory<>(column.getId()));
+            column.setSortable(false);
+        });
+        filmsListView.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
         filmsListView.getSelectionModel().selectedItemProperty().addListener(((observable, oldValue, newValue) -> {
             if (newValue == null) {
                 actionsGridPane.getChildren().remove(selectedFilmLabel);
@@ -126,7 +168,10 @@ public class RootController extends view.BaseController {
                 actionsGridPane.getChildren().remove(editMedia);
                 actionsGridPane.getChildren().remove(deleteFilm);
             } else {
-                selectedFilmLabel.setText(newValue.getTitle() + " (" + newValue.getYear() + ")");
+                int selected = filmsListView.getSelectionModel().getSelectedItems().size();
+                selectedFilmLabel.setText(selected > 1
+                        ? selected + " films selected"
+                        : newValue.getTitle() + " (" + newValue.getYear() + ")");
                 filmAbstractLabel.setText(newValue.getAbstract());
                 if (oldValue == null) {
                     int row = 2;
@@ -168,9 +213,11 @@ public class RootController extends view.BaseController {
        
         
 
-        tracksListView.getColumns().forEach(column ->
-                column.setCellValueFactory(new PropertyValueFactory<>(column.getId()))
-        );
+        tracksListView.getColumns().forEach(column -> {
+            column.setCellValueFactory(new PropertyValueFactory<>(column.getId()));
+            column.setSortable(false);
+        });
+        tracksListView.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
         tracksListView.getSelectionModel().selectedItemProperty().addListener(((observable, oldValue, newValue) -> {
             if (newValue == null) {
                 actionsGridPane.getChildren().remove(selectedTrackLabel);
@@ -178,7 +225,8 @@ public class RootController extends view.BaseController {
                 actionsGridPane.getChildren().remove(editMedia);
                 actionsGridPane.getChildren().remove(deleteTrack);
             } else {
-                selectedTrackLabel.setText(newValue.getTitle());
+                int selected = tracksListView.getSelectionModel().getSelectedItems().size();
+                selectedTrackLabel.setText(selected > 1 ? selected + " tracks selected" : newValue.getTitle());
                 if (oldValue == null) {
                     int row = 2;
                     actionsGridPane.add(selectedTrackLabel, 0, row++);
@@ -200,7 +248,7 @@ public class RootController extends view.BaseController {
             if (new User().getEditDialog(true).showAndWait().orElse(null) != null) {
                 try {
                     OracleDB.commit();
-                    loadUsers();
+                    refreshUsers();
                 } catch (SQLException throwables) {
                     new ExceptionAlert(throwables).showAndWait();
                 }
@@ -211,7 +259,7 @@ public class RootController extends view.BaseController {
             if (user != null && user.getEditDialog().showAndWait().orElse(null) != null) {
                 try {
                     OracleDB.commit();
-                    loadUsers();
+                    refreshUsers();
                 } catch (SQLException throwables) {
                     new ExceptionAlert(throwables).showAndWait();
                 }
@@ -233,7 +281,7 @@ public class RootController extends view.BaseController {
                                 OracleDB.deleteUser(user);
                                 OracleDB.commit();
                             },
-                            this::loadUsers
+                            this::refreshUsers
                     );
                 }
             }
@@ -245,6 +293,7 @@ public class RootController extends view.BaseController {
         editMedia.prefWidthProperty().bind(actionsGridPane.widthProperty());
         deleteFilm.prefWidthProperty().bind(actionsGridPane.widthProperty());
         deleteTrack.prefWidthProperty().bind(actionsGridPane.widthProperty());
+        deleteProgress.prefWidthProperty().bind(actionsGridPane.widthProperty());
 
         addNewFile.setOnAction(e -> {
             MediaFile.MediaType mediaType = tabPane.getSelectionModel().getSelectedItem().getId().equals("films")
@@ -262,7 +311,7 @@ public class RootController extends view.BaseController {
                                     () -> {
                                         try {
                                             OracleDB.commit();
-                                            loadFilms();
+                                            refreshFilms();
                                         } catch (SQLException throwables) {
                                             new ExceptionAlert(throwables).showAndWait();
                                         }
@@ -287,7 +336,7 @@ public class RootController extends view.BaseController {
                                     () -> {
                                         try {
                                             OracleDB.commit();
-                                            loadTracks();
+                                            refreshTracks();
                                         } catch (SQLException throwables) {
                                             new ExceptionAlert(throwables).showAndWait();
                                         }
@@ -315,7 +364,7 @@ public class RootController extends view.BaseController {
                 if (film != null && film.getEditDialog().showAndWait().orElse(null) != null) {
                     try {
                         OracleDB.commit();
-                        loadFilms();
+                        refreshFilms();
                     } catch (SQLException throwables) {
                         new ExceptionAlert(throwables).showAndWait();
                     }
@@ -325,7 +374,7 @@ public class RootController extends view.BaseController {
                 if (track != null && track.getEditDialog().showAndWait().orElse(null) != null) {
                     try {
                         OracleDB.commit();
-                        loadTracks();
+                        refreshTracks();
                     } catch (SQLException throwables) {
                         new ExceptionAlert(throwables).showAndWait();
                     }
@@ -334,53 +383,49 @@ public class RootController extends view.BaseController {
         });
 
         deleteFilm.setOnAction(e -> {
-            Film film = filmsListView.getSelectionModel().getSelectedItem();
-            if (film != null) {
+            // Rows of the paged list that aren't loaded yet read as null and can't be deleted
+            List<Film> selected = filmsListView.getSelectionModel().getSelectedItems().stream()
+                    .filter(film -> film != null).collect(Collectors.toList());
+            if (!selected.isEmpty()) {
+                Film film = selected.get(0);
                 Alert alert = new Alert(AlertType.CONFIRMATION);
                 alert.setTitle("Film suppression confirmation");
                 alert.setHeaderText("Film suppression confirmation");
                 alert.setContentText(
-                        "Are you sure you want to delete \"" + film.getTitle() + "\" (" + film.getYear() + ")?\n" +
+                        "Are you sure you want to delete " + (selected.size() > 1
+                                ? selected.size() + " films"
+                                : "\"" + film.getTitle() + "\" (" + film.getYear() + ")") + "?\n" +
                                 "This will also delete all the associated files.\n" +
                                 "This action is irreversible!"
                 );
-                if (alert.showAndWait().orElse(ButtonType.CANCEL) == ButtonType.OK) {
-                    OracleDB.executeThen(
-                            () -> {
-                                OracleDB.deleteFilm(film);
-                                OracleDB.commit();
-                            },
-                            this::loadFilms
-                    );
-                }
+                if (alert.showAndWait().orElse(ButtonType.CANCEL) == ButtonType.OK)
+                    delete(deleteFilm, selected.size(), progress -> OracleDB.deleteFilms(selected, progress), this::refreshFilms);
             }
         });
 
         deleteTrack.setOnAction(e -> {
-            Track track = tracksListView.getSelectionModel().getSelectedItem();
-            if (track != null) {
+            List<Track> selected = tracksListView.getSelectionModel().getSelectedItems().stream()
+                    .filter(track -> track != null).collect(Collectors.toList());
+            if (!selected.isEmpty()) {
+                Track track = selected.get(0);
                 Alert alert = new Alert(AlertType.CONFIRMATION);
                 alert.setTitle("Track suppression confirmation");
                 alert.setHeaderText("Track suppression confirmation");
                 alert.setContentText(
-                        "Are you sure you want to delete \"" + track.getTitle() + "?\n" +
+                        "Are you sure you want to delete " + (selected.size() > 1
+                                ? selected.size() + " tracks"
+                                : "\"" + track.getTitle() + "\"") + "?\n" +
                                 "This will also delete all the associated files.\n" +
                                 "This action is irreversible!"
                 );
-                if (alert.showAndWait().orElse(ButtonType.CANCEL) == ButtonType.OK) {
-                    OracleDB.executeThen(
-                            () -> {
-                                OracleDB.deleteTrack(track);
-                                OracleDB.commit();
-                            },
-                            this::loadTracks
-                    );
-                }
+                if (alert.showAndWait().orElse(ButtonType.CANCEL) == ButtonType.OK)
+                    delete(deleteTrack, selected.size(), progress -> OracleDB.deleteTracks(selected, progress), this::refreshTracks);
             }
         });
 
         onSelectUsers();
         tabPane.getSelectionModel().selectedItemProperty().addListener((observable, oldValue, newValue) -> {
+            searchField.setDisable(newValue.getId().equals("users"));
             switch (newValue.getId()) {
                 case "users": onSelectUsers(); break;
                 case "films": onSelectFilms(); break;
@@ -392,6 +437,39 @@ public class RootController extends view.BaseController {
         });
     }
 
+    /**
+     * Runs a delete in the background and commits it, with a progress bar below the actions meanwhile.
+     */
+    private void delete(Button button, int total, SQLConsumer<IntConsumer> delete, Runnable then) {
+        button.setDisable(true);
+        deleteProgress.setProgress(0);
+        actionsGridPane.getChildren().remove(deleteProgress);
+        actionsGridPane.add(deleteProgress, 0, 10);
+        Runnable done = () -> {
+            button.setDisable(false);
+            actionsGridPane.getChildren().remove(deleteProgress);
+        };
+        OracleDB.executeThen(
+                () -> {
+                    delete.accept(deleted -> Platform.runLater(() -> deleteProgress.setProgress(deleted / (double) total)));
+                    OracleDB.commit();
+                },
+                () -> {
+                    done.run();
+                    then.run();
+                },
+                error -> {
+                    done.run();
+                    new ExceptionAlert(error).showAndWait();
+                    try {
+                        OracleDB.rollback();
+                    } catch (SQLException throwables) {
+                        new ExceptionAlert(throwables).showAndWait();
+                    }
+                }
+        );
+    }
+
     private void onSelectTracksUser() {
         clearActionButtons();
         clearList();
@@ -405,9 +483,11 @@ public class RootController extends view.BaseController {
         tracks1.clear();
         tracks1ListView.getSelectionModel().clearSelection();
         tracks1ListView.setPlaceholder(GuiUtils.getProgressIndicator(50, 50));
-        tracks1ListView.setItems(tracks1);
-        OracleDB.executeThen(
-                () -> OracleDB.listTracks(tracks1),
+        tracks1ListView.setItems(tracks1Filtered);
+        filterTracksUser();
+        OracleDB.collectThen(
+                OracleDB::listTracks,
+                tracks1,
                 () -> onLoad(tracks1ListView, tracks1, "track"),
                 error -> onLoadError(tracks1ListView, error)
         );
@@ -424,8 +504,9 @@ public class RootController extends view.BaseController {
                 ).findFirst().orElse(null);
             }
         });
-        OracleDB.executeThen(
-                () -> OracleDB.listUsers(userFieldTrack.getItems()),
+        OracleDB.collectThen(
+                OracleDB::listUsers,
+                userFieldTrack.getItems(),
                 () -> userFieldTrack.setValue(userFieldTrack.getItems().stream().findFirst().orElse(null))
         );
 
@@ -440,8 +521,9 @@ public class RootController extends view.BaseController {
                 return categoryFieldTrack.getItems().stream().filter(fc -> fc.getName().equals(s)).findFirst().orElseThrow();
             }
         });
-        OracleDB.executeThen(
-                () -> OracleDB.listMusicCategories(categoryFieldTrack.getItems()),
+        OracleDB.collectThen(
+                OracleDB::listMusicCategories,
+                categoryFieldTrack.getItems(),
                 () -> categoryFieldTrack.setValue(categoryFieldTrack.getItems().stream().findFirst().orElse(null))
         );
     }
@@ -451,12 +533,13 @@ public class RootController extends view.BaseController {
         tracks1.clear();
         tracks1ListView.getSelectionModel().clearSelection();
         tracks1ListView.setPlaceholder(GuiUtils.getProgressIndicator(50, 50));
-        tracks1ListView.setItems(tracks1);
+        tracks1ListView.setItems(tracks1Filtered);
 
         if (categoryFieldTrack.getValue() != null && userFieldTrack.getValue() != null) {
             Pair<String, String> data = new Pair<>(categoryFieldTrack.getValue().getName(), userFieldTrack.getValue().getEmail());
-            OracleDB.executeThen(
-                    () -> OracleDB.listTracksUser(tracks1, data),
+            OracleDB.collectThen(
+                    list -> OracleDB.listTracksUser(list, data),
+                    tracks1,
                     () -> onLoad(tracks1ListView, tracks1, "trackUser"),
                     error -> onLoadError(tracks1ListView, error)
             );
@@ -465,15 +548,17 @@ public class RootController extends view.BaseController {
     }
 
     private void loadFilmsUserSpecified() throws SQLException {
+        cancelFilms1Stream();
         films1.clear();
         films1ListView.getSelectionModel().clearSelection();
         films1ListView.setPlaceholder(GuiUtils.getProgressIndicator(50, 50));
-        films1ListView.setItems(films1);
+        films1ListView.setItems(films1Filtered);
         if (categoryField.getValue() != null && userField.getValue() != null) {
             Pair<String, String> data = new Pair<>(categoryField.getValue().getName(), userField.getValue().getEmail());
 
-            OracleDB.executeThen(
-                    () -> OracleDB.listFilmsUser(films1, data),
+            OracleDB.collectThen(
+                    list -> OracleDB.listFilmsUser(list, data),
+                    films1,
                     () -> onLoad(films1ListView, films1, "filmUser"),
                     error -> onLoadError(films1ListView, error)
             );
@@ -481,6 +566,13 @@ public class RootController extends view.BaseController {
 
     }
 
+    private void cancelFilms1Stream() {
+        if (films1Stream != null) {
+            films1Stream.cancel();
+            films1Stream = null;
+        }
+    }
+
     private void clearList() {
         userFieldTrack.getItems().clear();
         categoryFieldTrack.getItems().clear();
@@ -504,12 +596,14 @@ public class RootController extends view.BaseController {
 
     private void loadFilmsUser() {
         clearList();
+        cancelFilms1Stream();
         films1.clear();
         films1ListView.getSelectionModel().clearSelection();
         films1ListView.setPlaceholder(GuiUtils.getProgressIndicator(50, 50));
-        films1ListView.setItems(films1);
-        OracleDB.executeThen(
-                () -> OracleDB.listFilms(films1),
+        films1ListView.setItems(films1Filtered);
+        filterFilmsUser();
+        films1Stream = OracleDB.streamFilms(
+                films1,
                 () -> onLoad(films1ListView, films1, "film"),
                 error -> onLoadError(films1ListView, error)
         );
@@ -526,8 +620,9 @@ public class RootController extends view.BaseController {
                 ).findFirst().orElse(null);
             }
         });
-        OracleDB.executeThen(
-                () -> OracleDB.listUsers(userField.getItems()),
+        OracleDB.collectThen(
+                OracleDB::listUsers,
+                userField.getItems(),
                 () -> userField.setValue(userField.getItems().stream().findFirst().orElse(null))
         );
 
@@ -542,8 +637,9 @@ public class RootController extends view.BaseController {
                 return categoryField.getItems().stream().filter(fc -> fc.getName().equals(s)).findFirst().orElseThrow();
             }
         });
-        OracleDB.executeThen(
-                () -> OracleDB.listFilmCategories(categoryField.getItems()),
+        OracleDB.collectThen(
+                OracleDB::listFilmCategories,
+                categoryField.getItems(),
                 () -> categoryField.setValue(categoryField.getItems().stream().findFirst().orElse(null))
         );
     }
@@ -589,39 +685,139 @@ public class RootController extends view.BaseController {
     }
 
     private void loadUsers() {
-        users.clear();
         usersListView.getSelectionModel().clearSelection();
         usersListView.setPlaceholder(GuiUtils.getProgressIndicator(50, 50));
         usersListView.setItems(users);
-        OracleDB.executeThen(
-                () -> OracleDB.listUsers(users),
+        users.reload(
+                () -> onLoad(usersListView, users, "user"),
+                error -> onLoadError(usersListView, error)
+        );
+    }
+
+    /**
+     * Applies the rows written since the list was last read instead of reading it all again.
+     */
+    private void refreshUsers() {
+        if (usersListView.getItems() != users) {
+            loadUsers();
+            return;
+        }
+        users.refresh(
                 () -> onLoad(usersListView, users, "user"),
                 error -> onLoadError(usersListView, error)
         );
     }
 
     private void loadFilms() {
-        films.clear();
         filmsListView.getSelectionModel().clearSelection();
         filmsListView.setPlaceholder(GuiUtils.getProgressIndicator(50, 50));
+        String query = searchField.getText().trim();
+        if (!query.isEmpty()) {
+            ObservableList<Film> results = FXCollections.observableArrayList();
+            filmsListView.setItems(results);
+            OracleDB.collectThen(
+                    list -> OracleDB.searchFilms(query, list),
+                    results,
+                    () -> onLoad(filmsListView, results, "film matching \"" + query + "\""),
+                    error -> onLoadError(filmsListView, error)
+            );
+            return;
+        }
         filmsListView.setItems(films);
-        OracleDB.executeThen(
-                () -> OracleDB.listFilms(films),
+        films.reload(
                 () -> onLoad(filmsListView, films, "film"),
                 error -> onLoadError(filmsListView, error)
         );
     }
      private void loadTracks() {
-        tracks.clear();
         tracksListView.getSelectionModel().clearSelection();
         tracksListView.setPlaceholder(GuiUtils.getProgressIndicator(50, 50));
+        String query = searchField.getText().trim();
+        if (!query.isEmpty()) {
+            ObservableList<Track> results = FXCollections.observableArrayList();
+            tracksListView.setItems(results);
+            OracleDB.collectThen(
+                    list -> OracleDB.searchTracks(query, list),
+                    results,
+                    () -> onLoad(tracksListView, results, "track matching \"" + query + "\""),
+                    error -> onLoadError(tracksListView, error)
+            );
+            return;
+        }
         tracksListView.setItems(tracks);
-        OracleDB.executeThen(
-                () -> OracleDB.listTracks(tracks),
+        tracks.reload(
                 () -> onLoad(tracksListView, tracks, "track"),
                 error -> onLoadError(tracksListView, error)
         );
      }
 
+    private void refreshFilms() {
+        if (filmsListView.getItems() != films || !searchField.getText().trim().isEmpty()) {
+            loadFilms();
+            return;
+        }
+        films.refresh(
+                () -> onLoad(filmsListView, films, "film"),
+                error -> onLoadError(filmsListView, error)
+        );
+    }
+
+    private void refreshTracks() {
+        if (tracksListView.getItems() != tracks || !searchField.getText().trim().isEmpty()) {
+            loadTracks();
+            return;
+        }
+        tracks.refresh(
+                () -> onLoad(tracksListView, tracks, "track"),
+                error -> onLoadError(tracksListView, error)
+        );
+    }
+
+    private void search() {
+        switch (tabPane.getSelectionModel().getSelectedItem().getId()) {
+            case "films": loadFilms(); break;
+            case "tracks": loadTracks(); break;
+            case "films1": filterFilmsUser(); break;
+            case "tracks1": filterTracksUser(); break;
+            default: break;
+        }
+    }
+
+    /**
+     * Only keeps the recommended films that match the search field, if any.
+     */
+    private void filterFilmsUser() {
+        String query = searchField.getText().trim();
+        if (query.isEmpty()) {
+            films1Filtered.setPredicate(null);
+            return;
+        }
+        OracleDB.queryThen(
+                () -> OracleDB.matchFilms(query),
+                keys -> {
+                    if (query.equals(searchField.getText().trim()))
+                        films1Filtered.setPredicate(film -> keys.contains(List.of(film.getTitle(), film.getYear())));
+                }
+        );
+    }
+
+    /**
+     * Only keeps the recommended tracks that match the search field, if any.
+     */
+    private void filterTracksUser() {
+        String query = searchField.getText().trim();
+        if (query.isEmpty()) {
+            tracks1Filtered.setPredicate(null);
+            return;
+        }
+        OracleDB.queryThen(
+                () -> OracleDB.matchTracks(query),
+                keys -> {
+                    if (query.equals(searchField.getText().trim()))
+                        tracks1Filtered.setPredicate(track -> keys.contains(List.of(track.getAlbumId(), track.getId())));
+                }
+        );
+    }
+
 
 }
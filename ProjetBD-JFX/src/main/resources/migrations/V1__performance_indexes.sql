@@ -0,0 +1,12 @@
+-- Foreign keys of the link tables, used by the recommendation queries and by the cascading deletes of films and tracks
+CREATE INDEX FCF_FILM_IDX ON FILE_CONCERNE_FILM(film_title, film_year);
+CREATE INDEX FCT_TRACK_IDX ON FILE_CONCERNE_TRACK(album_id, track_id);
+CREATE INDEX JOUE_DANS_TRACK_IDX ON JOUE_DANS(album_id, track_id);
+CREATE INDEX JOUE_ROLE_FILM_IDX ON JOUE_ROLE(film_title, film_year);
+CREATE INDEX PARTICIPE_FILM_IDX ON PARTICIPE_AU_FILM(film_title, film_year);
+CREATE INDEX TRACK_CAT_CATEGORY_IDX ON TRACK_A_POUR_CAT(music_category_name);
+CREATE INDEX MEDIA_FILE_USER_IDX ON MEDIA_FILE(user_email);
+
+-- Language filters of the recommendations, with the file so the semi-join doesn't go back to the table
+CREATE INDEX AUDIO_FLUX_LANGUAGE_IDX ON AUDIO_FLUX(audio_language, file_id);
+CREATE INDEX TEXT_FLUX_LANGUAGE_IDX ON TEXT_FLUX(text_language, file_id);
@@ -0,0 +1,25 @@
+-- Sequences of the IDs typed by hand until now, starting after the IDs already used.
+-- Each value reserves a block of INCREMENT BY IDs handed out from memory by IdAllocator.
+DECLARE
+    max_id number;
+
+    PROCEDURE create_sequence(sequence_name varchar2, max_id number) IS
+    BEGIN
+        EXECUTE IMMEDIATE 'CREATE SEQUENCE ' || sequence_name || ' START WITH ' || (NVL(max_id, 0) + 1) || ' INCREMENT BY 100';
+    EXCEPTION
+        WHEN OTHERS THEN
+            IF SQLCODE != -955 THEN
+                RAISE;
+            END IF;
+    END;
+BEGIN
+    SELECT MAX(file_id) INTO max_id FROM MEDIA_FILE;
+    create_sequence('MEDIA_FILE_ID_SEQ', max_id);
+    SELECT MAX(artist_id) INTO max_id FROM ARTIST;
+    create_sequence('ARTIST_ID_SEQ', max_id);
+    SELECT MAX(album_id) INTO max_id FROM ALBUM;
+    create_sequence('ALBUM_ID_SEQ', max_id);
+    SELECT MAX(track_id) INTO max_id FROM TRACK;
+    create_sequence('TRACK_ID_SEQ', max_id);
+END;
+/